@@ -1,5 +1,7 @@
 package newrealm.relaxation;
 
+import newrealm.spatial.SiteIndex;
+
 import java.awt.geom.Point2D;
 
 public class LloydRelaxation {
@@ -14,6 +16,8 @@ public class LloydRelaxation {
      */
     public static void relax(Point2D.Double[] sites, int width, int height, int iterations, int sampleStep) {
         int numSites = sites.length;
+        if (numSites == 0) return;
+        SiteIndex index = new SiteIndex(sites, width, height);
         for (int iter = 0; iter < iterations; iter++) {
             double[] sumX = new double[numSites];
             double[] sumY = new double[numSites];
@@ -22,17 +26,7 @@ public class LloydRelaxation {
             // Sample pixels at a given step for performance.
             for (int i = 0; i < width; i += sampleStep) {
                 for (int j = 0; j < height; j += sampleStep) {
-                    int nearest = 0;
-                    double minDistSq = Double.MAX_VALUE;
-                    for (int k = 0; k < numSites; k++) {
-                        double dx = sites[k].x - i;
-                        double dy = sites[k].y - j;
-                        double distSq = dx * dx + dy * dy;
-                        if (distSq < minDistSq) {
-                            minDistSq = distSq;
-                            nearest = k;
-                        }
-                    }
+                    int nearest = index.nearest(i, j);
                     sumX[nearest] += i;
                     sumY[nearest] += j;
                     count[nearest]++;
@@ -44,6 +38,7 @@ public class LloydRelaxation {
                 if (count[k] > 0) {
                     sites[k].x = sumX[k] / count[k];
                     sites[k].y = sumY[k] / count[k];
+                    index.update(k, sites[k].x, sites[k].y);
                 }
             }
         }
@@ -0,0 +1,160 @@
+package newrealm.spatial;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * Uniform-grid index over site coordinates for nearest-site queries.
+ *
+ * The bounds are cut into square buckets holding about two sites each, so a
+ * nearest query looks at a few buckets around the point instead of every site.
+ * Sites keep their index; ties are broken towards the lowest index, the same
+ * way a linear scan with a strict {@code <} would. Points outside the bounds
+ * are filed in the nearest border bucket and are still found.
+ *
+ * This is the subset of VoronoiConquest's {@code main.SiteIndex} that Lloyd
+ * relaxation needs. The projects share no build; VoronoiConquest's
+ * SiteIndexTest checks that the two match.
+ */
+public class SiteIndex {
+    private static final int SITES_PER_BUCKET = 2;
+
+    private final double width, height;
+    private double[] xs = new double[0], ys = new double[0];
+    private int size;
+
+    private double bucketSize;
+    private int cols, rows;
+    private int[][] buckets;
+    private int[] bucketCounts;
+    // Bucket and slot of each site, so a site can be moved without a search.
+    private int[] siteBucket, siteSlot;
+
+    public SiteIndex(double width, double height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        rebuild(new double[0], new double[0], 0);
+    }
+
+    public SiteIndex(Point2D[] sites, double width, double height) {
+        this(width, height);
+        rebuild(sites);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void rebuild(Point2D[] sites) {
+        double[] x = new double[sites.length], y = new double[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            x[i] = sites[i].getX();
+            y[i] = sites[i].getY();
+        }
+        rebuild(x, y, sites.length);
+    }
+
+    /** Replaces all sites with the first {@code count} coordinates; the arrays are copied. */
+    public void rebuild(double[] x, double[] y, int count) {
+        size = count;
+        xs = Arrays.copyOf(x, count);
+        ys = Arrays.copyOf(y, count);
+        bucketSize = Math.max(1e-9, Math.sqrt(width * height * SITES_PER_BUCKET / Math.max(1, count)));
+        cols = Math.max(1, (int) Math.ceil(width / bucketSize));
+        rows = Math.max(1, (int) Math.ceil(height / bucketSize));
+        bucketCounts = new int[cols * rows];
+        siteBucket = new int[count];
+        siteSlot = new int[count];
+        for (int i = 0; i < count; i++) {
+            siteBucket[i] = bucketOf(xs[i], ys[i]);
+            bucketCounts[siteBucket[i]]++;
+        }
+        buckets = new int[cols * rows][];
+        for (int b = 0; b < buckets.length; b++) {
+            buckets[b] = new int[Math.max(SITES_PER_BUCKET, bucketCounts[b])];
+        }
+        Arrays.fill(bucketCounts, 0);
+        for (int i = 0; i < count; i++) {
+            addToBucket(i, siteBucket[i]);
+        }
+    }
+
+    /** Moves site {@code i} to (x, y) in place; cheap enough to call for every site per iteration. */
+    public void update(int i, double x, double y) {
+        xs[i] = x;
+        ys[i] = y;
+        int bucket = bucketOf(x, y);
+        if (bucket == siteBucket[i]) return;
+        int old = siteBucket[i];
+        int slot = siteSlot[i];
+        int last = buckets[old][--bucketCounts[old]];
+        buckets[old][slot] = last;
+        siteSlot[last] = slot;
+        addToBucket(i, bucket);
+    }
+
+    private void addToBucket(int site, int bucket) {
+        int count = bucketCounts[bucket];
+        if (count == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], count * 2);
+        }
+        buckets[bucket][count] = site;
+        bucketCounts[bucket] = count + 1;
+        siteBucket[site] = bucket;
+        siteSlot[site] = count;
+    }
+
+    private int column(double x) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor(x / bucketSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / bucketSize)));
+    }
+
+    private int bucketOf(double x, double y) {
+        return row(y) * cols + column(x);
+    }
+
+    /** Returns the index of the site nearest to (x, y), or -1 if there are none. */
+    public int nearest(double x, double y) {
+        if (size == 0) return -1;
+        int cx = column(x), cy = row(y);
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ; ring++) {
+            if (ring > 0 && ringLowerBound(ring) > bestDist) return best;
+            if (ring > cols && ring > rows) return best;
+            for (int gy = cy - ring; gy <= cy + ring; gy++) {
+                if (gy < 0 || gy >= rows) continue;
+                boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                for (int gx = cx - ring; gx <= cx + ring; gx += edgeRow ? 1 : 2 * ring) {
+                    if (gx < 0 || gx >= cols) continue;
+                    int bucket = gy * cols + gx;
+                    int[] members = buckets[bucket];
+                    for (int k = bucketCounts[bucket] - 1; k >= 0; k--) {
+                        int i = members[k];
+                        double d = distanceSq(i, x, y);
+                        if (d < bestDist || (d == bestDist && i < best)) {
+                            bestDist = d;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Squared distance from the query to anything in a ring of buckets, which
+    // is at least (ring - 1) buckets away from the query's own bucket.
+    private double ringLowerBound(int ring) {
+        double d = (ring - 1) * bucketSize;
+        return d <= 0 ? 0 : d * d;
+    }
+
+    private double distanceSq(int i, double x, double y) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -33,6 +33,7 @@ public class TerrainVoronoiDiagram extends JPanel {
     }
 
     private java.util.List<Point> sites;
+    private SiteIndex siteIndex;
     private java.util.List<Terrain> terrains;
     private JLabel infoLabel;  // Displays simulation messages/info
 
@@ -121,6 +122,7 @@ public class TerrainVoronoiDiagram extends JPanel {
             sites.add(site);
             terrains.add(getTerrainForSite(site));
         }
+        siteIndex = new SiteIndex(sites, mapWidth, mapHeight);
     }
 
     private void generateResourceNodes() {
@@ -192,8 +194,26 @@ public class TerrainVoronoiDiagram extends JPanel {
         poly.add(new Point2D.Double(mapWidth, 0));
         poly.add(new Point2D.Double(mapWidth, mapHeight));
         poly.add(new Point2D.Double(0, mapHeight));
-        for (Point q : sites) {
-            if (q.equals(p)) continue;
+        // Clip by the nearest sites first. After that only sites closer than twice
+        // the distance to the furthest cell corner can still cut the cell.
+        int[] nearest = siteIndex.nearest(p.x, p.y, 16);
+        poly = clipCell(poly, p, nearest, new int[0]);
+        double reach = 0;
+        for (Point2D.Double pt : poly) {
+            reach = Math.max(reach, pt.distance(p));
+        }
+        poly = clipCell(poly, p, siteIndex.withinRadius(p.x, p.y, 2 * reach + 1), nearest);
+        Polygon awtPoly = new Polygon();
+        for (Point2D.Double pt : poly) {
+            awtPoly.addPoint((int)Math.round(pt.x), (int)Math.round(pt.y));
+        }
+        return awtPoly;
+    }
+
+    private java.util.List<Point2D.Double> clipCell(java.util.List<Point2D.Double> poly, Point p, int[] candidates, int[] done) {
+        for (int i : candidates) {
+            Point q = sites.get(i);
+            if (q.equals(p) || contains(done, i)) continue;
             double A = p.x - q.x;
             double B = p.y - q.y;
             double midX = (p.x + q.x) / 2.0;
@@ -202,11 +222,14 @@ public class TerrainVoronoiDiagram extends JPanel {
             poly = clipPolygon(poly, A, B, C);
             if (poly.isEmpty()) break;
         }
-        Polygon awtPoly = new Polygon();
-        for (Point2D.Double pt : poly) {
-            awtPoly.addPoint((int)Math.round(pt.x), (int)Math.round(pt.y));
+        return poly;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) return true;
         }
-        return awtPoly;
+        return false;
     }
 
     private java.util.List<Point2D.Double> clipPolygon(java.util.List<Point2D.Double> poly, double A, double B, double C) {
@@ -252,16 +275,7 @@ public class TerrainVoronoiDiagram extends JPanel {
     // ----- Civilization Seed Helper Methods -----
 
     private int getCellIndexForPoint(Point p) {
-        double minDist = Double.MAX_VALUE;
-        int index = -1;
-        for (int i = 0; i < sites.size(); i++) {
-            double d = p.distance(sites.get(i));
-            if (d < minDist) {
-                minDist = d;
-                index = i;
-            }
-        }
-        return index;
+        return siteIndex.nearest(p.x, p.y);
     }
 
     private boolean cellOccupied(int cellIndex) {
@@ -330,15 +344,12 @@ public class TerrainVoronoiDiagram extends JPanel {
             graph.add(new java.util.ArrayList<>());
         }
         for (int i = 0; i < n; i++) {
-            java.util.List<int[]> candidates = new java.util.ArrayList<>();
-            for (int j = 0; j < n; j++) {
-                if (i == j) continue;
-                double dist = sites.get(i).distance(sites.get(j));
-                candidates.add(new int[]{j, (int)(dist * 1000)});
-            }
-            candidates.sort(Comparator.comparingInt(a -> a[1]));
-            for (int m = 0; m < k && m < candidates.size(); m++) {
-                int j = candidates.get(m)[0];
+            // One extra so the site itself can be dropped from its own neighbours.
+            int[] nearest = siteIndex.nearest(sites.get(i).x, sites.get(i).y, k + 1);
+            int taken = 0;
+            for (int j : nearest) {
+                if (j == i || taken == k) continue;
+                taken++;
                 double cost = sites.get(i).distance(sites.get(j));
                 graph.get(i).add(new Edge(j, cost));
                 graph.get(j).add(new Edge(i, cost));
@@ -435,10 +446,9 @@ public class TerrainVoronoiDiagram extends JPanel {
             }
             if (seed.level == 3 && Math.random() < BUDDING_PROBABILITY) {
                 int parentCell = getCellIndexForPoint(seed.location);
-                for (int i = 0; i < sites.size(); i++) {
+                for (int i : siteIndex.withinRadius(seed.location.x, seed.location.y, BUDDING_DISTANCE_THRESHOLD)) {
                     if (i == parentCell) continue;
-                    if (seed.location.distance(sites.get(i)) < BUDDING_DISTANCE_THRESHOLD
-                        && !cellOccupied(i)
+                    if (!cellOccupied(i)
                         && getTerrainForSite(sites.get(i)) != Terrain.SEA) {
                         newSeeds.add(new CivSeed(sites.get(i)));
                         break;
@@ -448,12 +458,10 @@ public class TerrainVoronoiDiagram extends JPanel {
         }
         civSeeds.addAll(newSeeds);
         for (CivSeed seed : civSeeds) {
-            for (int i = 0; i < sites.size(); i++) {
-                if (seed.location.distance(sites.get(i)) < FARMLAND_CONVERSION_DISTANCE) {
-                    Terrain current = terrains.get(i);
-                    if (current == Terrain.PLAINS || current == Terrain.FOREST) {
-                        terrains.set(i, Terrain.FARMLAND);
-                    }
+            for (int i : siteIndex.withinRadius(seed.location.x, seed.location.y, FARMLAND_CONVERSION_DISTANCE)) {
+                Terrain current = terrains.get(i);
+                if (current == Terrain.PLAINS || current == Terrain.FOREST) {
+                    terrains.set(i, Terrain.FARMLAND);
                 }
             }
         }
@@ -493,17 +501,7 @@ public class TerrainVoronoiDiagram extends JPanel {
             public void mouseMoved(MouseEvent e) {
                 int diagramX = (int)((e.getX() - offsetX) / scale);
                 int diagramY = (int)((e.getY() - offsetY) / scale);
-                double minDist = Double.MAX_VALUE;
-                int nearestIndex = -1;
-                for (int i = 0; i < sites.size(); i++) {
-                    Point site = sites.get(i);
-                    double d2 = Math.pow(diagramX - site.x, 2) + Math.pow(diagramY - site.y, 2);
-                    if (d2 < minDist) {
-                        minDist = d2;
-                        nearestIndex = i;
-                    }
-                }
-                hoveredSiteIndex = nearestIndex;
+                hoveredSiteIndex = siteIndex.nearest(diagramX, diagramY);
                 if (infoLabel != null && hoveredSiteIndex != -1) {
                     Polygon cell = getVoronoiCell(sites.get(hoveredSiteIndex));
                     double areaPixels = computeArea(cell);
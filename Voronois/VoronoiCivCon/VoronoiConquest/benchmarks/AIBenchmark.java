@@ -0,0 +1,49 @@
+// File: benchmarks/AIBenchmark.java
+package benchmarks;
+
+import main.GameEngine;
+import main.Move;
+import mods.DumbAI;
+import mods.SmartAI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Move generation of the built-in AIs; the chosen move is not applied. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AIBenchmark {
+    @Param({"512", "2048"})
+    public int mapSize;
+
+    @Param({"500", "5000"})
+    public int numRegions;
+
+    @Param({"2", "5"})
+    public int numTeams;
+
+    private GameEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = BenchmarkMaps.newEngine(mapSize, numRegions, numTeams);
+    }
+
+    @Benchmark
+    public Move dumbMove() {
+        return DumbAI.chooseMove(engine);
+    }
+
+    @Benchmark
+    public Move smartMove() {
+        return SmartAI.chooseMove(engine);
+    }
+}
@@ -0,0 +1,27 @@
+// File: benchmarks/BenchmarkMaps.java
+package benchmarks;
+
+import main.GameEngine;
+import main.TeamControl;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** Shared setup: seeded engines on a built map, with per-move logging turned off. */
+final class BenchmarkMaps {
+    static final long SEED = 42L;
+
+    // Held so the level is not lost when the logger is collected.
+    private static final Logger ENGINE_LOGGER = Logger.getLogger(GameEngine.class.getName());
+
+    private BenchmarkMaps() {
+    }
+
+    static GameEngine newEngine(int mapSize, int numRegions, int numTeams) {
+        ENGINE_LOGGER.setLevel(Level.WARNING);
+        TeamControl[] controls = new TeamControl[numTeams];
+        Arrays.fill(controls, TeamControl.HOTSEAT);
+        return GameEngine.withVoronoiMap(mapSize, mapSize, numRegions, controls, 0.5, SEED);
+    }
+}
@@ -0,0 +1,74 @@
+// File: benchmarks/EngineBenchmark.java
+package benchmarks;
+
+import main.GameEngine;
+import main.GameState;
+import main.RegionGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine work done every turn or on every map change. With the gc profiler,
+ * gc.alloc.rate.norm on {@link #endTurn} is the bytes allocated per turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EngineBenchmark {
+    @Param({"512", "2048"})
+    public int mapSize;
+
+    @Param({"500", "5000"})
+    public int numRegions;
+
+    @Param({"2", "5"})
+    public int numTeams;
+
+    private GameEngine engine;
+    private int[] startTroops;
+    private boolean oddTurn;
+
+    @Setup
+    public void setUp() {
+        engine = BenchmarkMaps.newEngine(mapSize, numRegions, numTeams);
+        startTroops = engine.getState().troopsSnapshot();
+    }
+
+    // endTurn adds 5 troops everywhere. Restoring the start troops, offset by
+    // 5 on every other call, keeps brightness changing as it does in a real
+    // game instead of saturating after a few dozen turns.
+    @Setup(Level.Invocation)
+    public void resetTroops() {
+        GameState state = engine.getState();
+        int offset = oddTurn ? 5 : 0;
+        for (int i = 0; i < startTroops.length; i++) {
+            state.setTroops(i, startTroops[i] + offset);
+        }
+        oddTurn = !oddTurn;
+    }
+
+    /** What GameEngine.computeAdjacency does on every new region assignment. */
+    @Benchmark
+    public RegionGraph computeAdjacency() {
+        return RegionGraph.fromRaster(engine.getRegionAssignment(), numRegions);
+    }
+
+    @Benchmark
+    public void updateVoronoiImage() {
+        engine.updateVoronoiImage();
+    }
+
+    @Benchmark
+    public void endTurn() {
+        engine.endTurn();
+    }
+}
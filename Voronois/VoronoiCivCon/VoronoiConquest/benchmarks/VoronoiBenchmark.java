@@ -0,0 +1,44 @@
+// File: benchmarks/VoronoiBenchmark.java
+package benchmarks;
+
+import main.FortuneVoronoi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Full diagram construction: sweep, cell scan-conversion and the initial image. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VoronoiBenchmark {
+    @Param({"512", "2048"})
+    public int mapSize;
+
+    @Param({"500", "5000"})
+    public int numRegions;
+
+    private Point[] sites;
+
+    @Setup
+    public void setUp() {
+        Random rand = new Random(BenchmarkMaps.SEED);
+        sites = new Point[numRegions];
+        for (int i = 0; i < numRegions; i++) {
+            sites[i] = new Point(rand.nextInt(mapSize), rand.nextInt(mapSize));
+        }
+    }
+
+    @Benchmark
+    public FortuneVoronoi buildDiagram() {
+        return new FortuneVoronoi(sites, mapSize, mapSize);
+    }
+}
@@ -5,10 +5,9 @@ import java.util.Random;
 
 public interface AIContext {
     int getNumRegions();
-    int[] getRegionTeam();
-    int[] getTroops();
-    boolean[][] getAdjacent();
-    double[] getCombatPower();
+    /** The live game state; read it, but change it only through the rule methods below. */
+    GameState getState();
+    RegionGraph getRegionGraph();
     String[] getTeamNames();
     int getCurrentTeam();
     Random getRand();
@@ -17,6 +16,44 @@ public interface AIContext {
     // New generalized method for current team's control type.
     TeamControl getTeamControl();
     
+    /**
+     * Dense adjacency matrix for mods written before {@link #getRegionGraph()}.
+     * It takes N^2 bytes, so new code should walk the neighbour ranges instead.
+     */
+    @Deprecated
+    default boolean[][] getAdjacent() {
+        return getRegionGraph().toMatrix();
+    }
+
+    /** Copy of every region's team, for mods written before {@link #getState()}. */
+    default int[] getRegionTeam() {
+        return getState().teamSnapshot();
+    }
+
+    /** Copy of every region's troops, for mods written before {@link #getState()}. */
+    default int[] getTroops() {
+        return getState().troopsSnapshot();
+    }
+
+    /** Copy of every region's combat power, for mods written before {@link #getState()}. */
+    default double[] getCombatPower() {
+        return getState().combatPowerSnapshot();
+    }
+
+    /** This thread's reusable move list; see {@link MoveGenerator}. */
+    default MoveGenerator getMoveGenerator() {
+        return MoveGenerator.forCurrentThread();
+    }
+
+    /** Plays {@code move} for the current team; the turn still has to be ended. */
+    default void apply(Move move) {
+        if (move.getKind() == Move.Kind.REINFORCE) {
+            executeReinforce(move.getSource(), move.getDest());
+        } else {
+            executeMove(move.getSource(), move.getDest());
+        }
+    }
+
     void executeReinforce(int source, int dest);
     void executeMove(int source, int dest);
     void endTurn();
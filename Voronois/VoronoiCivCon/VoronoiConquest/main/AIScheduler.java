@@ -0,0 +1,140 @@
+// File: main/AIScheduler.java
+package main;
+
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs AI turns for every open game on one small pool of daemon threads.
+ *
+ * A turn waits out the think delay, which is only there so people can follow
+ * the AI, then computes its move and hands it on. The delay defaults to
+ * 500 ms with a screen and 0 when headless. Cancelling the returned future
+ * removes a waiting turn from the queue at once; a turn that is already
+ * thinking finishes, and its game is expected to ignore the result.
+ *
+ * The scheduler counts queued and finished turns and how long the AIs take
+ * to choose a move, not counting the delay.
+ */
+public final class AIScheduler {
+    private static final Logger logger = Logger.getLogger(AIScheduler.class.getName());
+    private static final int SHARED_THREADS = 2;
+    private static AIScheduler shared;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile long thinkDelayMillis;
+
+    private final AtomicLong completedTurns = new AtomicLong();
+    private final AtomicLong failedTurns = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public AIScheduler(int threads, long thinkDelayMillis) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one AI thread");
+        setThinkDelayMillis(thinkDelayMillis);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "ai-scheduler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ScheduledThreadPoolExecutor(threads, factory);
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /** The scheduler games use unless given another; recreated if it was shut down. */
+    public static synchronized AIScheduler getShared() {
+        if (shared == null || shared.isShutdown()) {
+            shared = new AIScheduler(SHARED_THREADS, GraphicsEnvironment.isHeadless() ? 0 : 500);
+        }
+        return shared;
+    }
+
+    /**
+     * After the think delay, runs {@code think} on a scheduler thread and passes
+     * its result to {@code then} on the same thread. If {@code think} throws,
+     * the failure is logged and {@code then} gets null, so the game can pass
+     * the turn instead of waiting forever. Returns the turn's future so the
+     * caller can cancel it.
+     */
+    public <T> Future<?> schedule(Supplier<T> think, Consumer<? super T> then) {
+        return executor.schedule(() -> {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = think.get();
+            } catch (RuntimeException ex) {
+                failedTurns.incrementAndGet();
+                logger.log(Level.WARNING, "AI turn failed", ex);
+                then.accept(null);
+                return;
+            }
+            recordLatency(System.nanoTime() - start);
+            then.accept(result);
+        }, thinkDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void recordLatency(long nanos) {
+        completedTurns.incrementAndGet();
+        totalLatencyNanos.addAndGet(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Cancels waiting turns and stops the threads; later schedules are rejected. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    public long getThinkDelayMillis() {
+        return thinkDelayMillis;
+    }
+
+    /** Delay before each later turn starts thinking; 0 plays as fast as the AIs can. */
+    public void setThinkDelayMillis(long thinkDelayMillis) {
+        if (thinkDelayMillis < 0) throw new IllegalArgumentException("Negative think delay: " + thinkDelayMillis);
+        this.thinkDelayMillis = thinkDelayMillis;
+    }
+
+    // --- Metrics ---
+
+    /** Turns waiting for their delay or for a free thread. */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /** Turns currently thinking. */
+    public int getActiveTurns() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedTurns() {
+        return completedTurns.get();
+    }
+
+    public long getFailedTurns() {
+        return failedTurns.get();
+    }
+
+    /** Mean time the AIs took to choose a move, in milliseconds. */
+    public double getMeanLatencyMillis() {
+        long n = completedTurns.get();
+        return n == 0 ? 0 : totalLatencyNanos.get() / 1e6 / n;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+}
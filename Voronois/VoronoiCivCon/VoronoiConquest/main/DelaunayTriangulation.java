@@ -0,0 +1,803 @@
+package main;
+
+import java.awt.*;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Incremental Delaunay triangulation of the region sites (the dual of the
+ * Voronoi map), supporting insertion, deletion and movement of single sites.
+ *
+ * Insertion is Bowyer-Watson: walk to the triangle containing the new point,
+ * grow the cavity of triangles whose circumcircle contains it, and fan the
+ * cavity from the new point. Deletion re-triangulates the hole left by a site
+ * with Delaunay ears. Both touch only the triangles around the change, so with
+ * a good starting hint (for example the site that currently owns the pixel)
+ * each operation costs expected O(log N) or better. Every mutation returns the
+ * sites whose Voronoi cells changed, so callers can redraw just those cells.
+ *
+ * The convex hull is closed with a single symbolic vertex at infinity, and all
+ * predicates are evaluated exactly on the integer coordinates. Sites that share
+ * coordinates are stacked: only the lowest index is in the mesh and owns the
+ * cell, matching the tie-breaking of {@link FortuneVoronoi}.
+ */
+public class DelaunayTriangulation {
+    private static final int INFINITE = -1;
+
+    private static final class Triangle {
+        final int[] v = new int[3];
+        // n[i] is the triangle across the edge opposite v[i].
+        final Triangle[] n = new Triangle[3];
+        boolean dead;
+        int mark;
+
+        Triangle(int a, int b, int c) {
+            v[0] = a;
+            v[1] = b;
+            v[2] = c;
+        }
+
+        boolean isInfinite() {
+            return v[0] == INFINITE || v[1] == INFINITE || v[2] == INFINITE;
+        }
+
+        int indexOf(int vertex) {
+            return v[0] == vertex ? 0 : v[1] == vertex ? 1 : v[2] == vertex ? 2 : -1;
+        }
+    }
+
+    private int[] xs = new int[16], ys = new int[16];
+    private boolean[] alive = new boolean[16];
+    private boolean[] inMesh = new boolean[16];
+    private Triangle[] vertexTriangle = new Triangle[16];
+    private final Map<Long, TreeSet<Integer>> stacks = new HashMap<>();
+
+    private Triangle last;
+    private boolean planar;
+    private int finiteTriangles;
+    private int markCounter;
+
+    /** Builds the triangulation of {@code sites}; site i gets index i. */
+    public DelaunayTriangulation(Point[] sites) {
+        ensureCapacity(sites.length);
+        Integer[] order = new Integer[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            order[i] = i;
+            xs[i] = sites[i].x;
+            ys[i] = sites[i].y;
+        }
+        // Insert in a snake order over coarse rows so each walk starts close by.
+        int band = 64;
+        Arrays.sort(order, (a, b) -> {
+            int ra = ys[a] / band, rb = ys[b] / band;
+            if (ra != rb) return Integer.compare(ra, rb);
+            int xa = (ra & 1) == 0 ? xs[a] : -xs[a];
+            int xb = (rb & 1) == 0 ? xs[b] : -xs[b];
+            if (xa != xb) return Integer.compare(xa, xb);
+            return Integer.compare(a, b);
+        });
+
+        List<Integer> deferred = new ArrayList<>();
+        for (int site : order) {
+            if (!planar) {
+                deferred.add(site);
+                alive[site] = true;
+                tryStart(deferred);
+            } else {
+                insert(site, xs[site], ys[site], -1);
+            }
+        }
+        if (!planar) {
+            Arrays.fill(alive, false);
+        }
+    }
+
+    /** False when the sites are all collinear (or fewer than three); nothing else works then. */
+    public boolean isPlanar() {
+        return planar;
+    }
+
+    public boolean contains(int site) {
+        return site >= 0 && site < alive.length && alive[site];
+    }
+
+    // Looks for three non-collinear points among the deferred ones and seeds the mesh.
+    private void tryStart(List<Integer> deferred) {
+        int a = deferred.get(0);
+        int b = -1;
+        for (int candidate : deferred) {
+            if (xs[candidate] != xs[a] || ys[candidate] != ys[a]) {
+                b = candidate;
+                break;
+            }
+        }
+        if (b == -1) return;
+        int c = -1;
+        for (int candidate : deferred) {
+            if (orient(a, b, candidate) != 0) {
+                c = candidate;
+                break;
+            }
+        }
+        if (c == -1) return;
+        if (orient(a, b, c) < 0) {
+            int swap = b;
+            b = c;
+            c = swap;
+        }
+
+        Triangle inner = newTriangle(a, b, c);
+        Triangle ab = newTriangle(b, a, INFINITE);
+        Triangle bc = newTriangle(c, b, INFINITE);
+        Triangle ca = newTriangle(a, c, INFINITE);
+        inner.n[0] = bc;
+        inner.n[1] = ca;
+        inner.n[2] = ab;
+        ab.n[2] = inner;
+        bc.n[2] = inner;
+        ca.n[2] = inner;
+        // Infinite triangles meet each other along the edges to the infinite vertex.
+        ab.n[0] = ca;
+        ab.n[1] = bc;
+        bc.n[0] = ab;
+        bc.n[1] = ca;
+        ca.n[0] = bc;
+        ca.n[1] = ab;
+        for (int site : new int[]{a, b, c}) {
+            inMesh[site] = true;
+        }
+        vertexTriangle[a] = vertexTriangle[b] = vertexTriangle[c] = inner;
+        last = inner;
+        planar = true;
+
+        for (int site : deferred) {
+            if (site != a && site != b && site != c) {
+                alive[site] = false;
+                insert(site, xs[site], ys[site], a);
+            }
+        }
+        deferred.clear();
+    }
+
+    // ----- Mutations -----
+
+    /**
+     * Inserts {@code site} at (x, y), starting the point location at
+     * {@code hint} (any site near the point, or -1), and returns the sites whose
+     * cells changed, including the new one.
+     */
+    public int[] insert(int site, int x, int y, int hint) {
+        requirePlanar();
+        ensureCapacity(site + 1);
+        if (alive[site]) throw new IllegalArgumentException("Site " + site + " is already in the triangulation");
+        xs[site] = x;
+        ys[site] = y;
+        alive[site] = true;
+
+        Triangle start = startTriangle(hint);
+        Triangle found = locate(start, site);
+        for (int vertex : found.v) {
+            if (vertex != INFINITE && xs[vertex] == x && ys[vertex] == y) {
+                return stack(vertex, site);
+            }
+        }
+
+        int mark = ++markCounter;
+        List<Triangle> cavity = new ArrayList<>();
+        found.mark = mark;
+        cavity.add(found);
+        for (int i = 0; i < cavity.size(); i++) {
+            Triangle t = cavity.get(i);
+            for (Triangle nb : t.n) {
+                if (nb.mark != mark && conflicts(nb, site)) {
+                    nb.mark = mark;
+                    cavity.add(nb);
+                }
+            }
+        }
+
+        TreeSet<Integer> changed = new TreeSet<>();
+        changed.add(site);
+        Map<Integer, Triangle> byFirst = new HashMap<>();
+        Map<Integer, Triangle> bySecond = new HashMap<>();
+        List<Triangle> created = new ArrayList<>();
+        for (Triangle t : cavity) {
+            for (int k = 0; k < 3; k++) {
+                if (t.v[k] != INFINITE) changed.add(t.v[k]);
+                Triangle nb = t.n[k];
+                if (nb.mark == mark) continue;
+                int a = t.v[(k + 1) % 3], b = t.v[(k + 2) % 3];
+                Triangle fan = newTriangle(a, b, site);
+                fan.n[2] = nb;
+                nb.n[nb.indexOf(otherThan(nb, a, b))] = fan;
+                byFirst.put(a, fan);
+                bySecond.put(b, fan);
+                created.add(fan);
+            }
+        }
+        for (Triangle fan : created) {
+            fan.n[0] = byFirst.get(fan.v[1]);
+            fan.n[1] = bySecond.get(fan.v[0]);
+        }
+        for (Triangle t : cavity) {
+            killTriangle(t);
+        }
+        inMesh[site] = true;
+        for (Triangle fan : created) {
+            for (int vertex : fan.v) {
+                if (vertex != INFINITE) vertexTriangle[vertex] = fan;
+            }
+        }
+        // Tie pixels on a circle the new site only touches may change owner as well.
+        addCocircular(created, changed);
+        last = created.get(0);
+        return toArray(changed);
+    }
+
+    /** Removes {@code site} and returns the sites whose cells changed, including it. */
+    public int[] remove(int site) {
+        requirePlanar();
+        if (!contains(site)) throw new IllegalArgumentException("Site " + site + " is not in the triangulation");
+        alive[site] = false;
+        TreeSet<Integer> stack = stacks.get(key(site));
+        if (stack != null) {
+            return unstack(stack, site);
+        }
+
+        // Collect the star of the site counter-clockwise; its outer edges bound the hole.
+        List<Integer> polygon = new ArrayList<>();
+        List<Triangle> outside = new ArrayList<>();
+        List<Triangle> star = new ArrayList<>();
+        Triangle t = vertexTriangle[site];
+        do {
+            int i = t.indexOf(site);
+            polygon.add(t.v[(i + 1) % 3]);
+            outside.add(t.n[i]);
+            star.add(t);
+            t = t.n[(i + 1) % 3];
+        } while (t != vertexTriangle[site]);
+
+        TreeSet<Integer> changed = new TreeSet<>();
+        changed.add(site);
+        for (int vertex : polygon) {
+            if (vertex != INFINITE) changed.add(vertex);
+        }
+        for (Triangle s : star) {
+            killTriangle(s);
+        }
+        inMesh[site] = false;
+        vertexTriangle[site] = null;
+
+        List<Triangle> created = new ArrayList<>();
+        while (polygon.size() > 3) {
+            int size = polygon.size();
+            int ear = -1;
+            for (int j = 0; j < size && ear == -1; j++) {
+                if (isEar(polygon, j)) ear = j;
+            }
+            if (ear == -1) throw new IllegalStateException("No Delaunay ear while removing site " + site);
+            int j1 = (ear + 1) % size, j2 = (ear + 2) % size;
+            int a = polygon.get(ear), b = polygon.get(j1), c = polygon.get(j2);
+            Triangle earTriangle = newTriangle(a, b, c);
+            join(earTriangle, a, b, outside.get(ear));
+            join(earTriangle, b, c, outside.get(j1));
+            outside.set(ear, earTriangle);
+            polygon.remove(j1);
+            outside.remove(j1);
+            created.add(earTriangle);
+        }
+        Triangle lastTriangle = newTriangle(polygon.get(0), polygon.get(1), polygon.get(2));
+        for (int j = 0; j < 3; j++) {
+            join(lastTriangle, polygon.get(j), polygon.get((j + 1) % 3), outside.get(j));
+        }
+        created.add(lastTriangle);
+        for (Triangle c : created) {
+            for (int vertex : c.v) {
+                if (vertex != INFINITE) vertexTriangle[vertex] = c;
+            }
+        }
+        last = lastTriangle;
+        if (finiteTriangles == 0) {
+            // Only collinear sites remain.
+            planar = false;
+        }
+        return toArray(changed);
+    }
+
+    /**
+     * Moves {@code site} to (x, y) and returns the sites whose cells changed.
+     * If taking the site out leaves the others collinear, the site is not
+     * re-inserted and the triangulation stops being planar; callers rebuild.
+     */
+    public int[] move(int site, int x, int y) {
+        int[] removed = remove(site);
+        if (!planar) return removed;
+        int hint = -1;
+        for (int s : removed) {
+            if (s != site && contains(s)) {
+                hint = s;
+                break;
+            }
+        }
+        int[] inserted = insert(site, x, y, hint);
+        TreeSet<Integer> changed = new TreeSet<>();
+        for (int s : removed) changed.add(s);
+        for (int s : inserted) changed.add(s);
+        return toArray(changed);
+    }
+
+    /**
+     * Gives the site {@code from} the index {@code to}, which must be unused, and
+     * returns the sites whose pixels change owner id.
+     */
+    public int[] relabel(int from, int to) {
+        if (!contains(from)) throw new IllegalArgumentException("Site " + from + " is not in the triangulation");
+        ensureCapacity(to + 1);
+        if (alive[to]) throw new IllegalArgumentException("Site " + to + " is in use");
+        xs[to] = xs[from];
+        ys[to] = ys[from];
+        alive[to] = true;
+        alive[from] = false;
+        TreeSet<Integer> changed = new TreeSet<>();
+        changed.add(from);
+        changed.add(to);
+        TreeSet<Integer> stack = stacks.get(key(to));
+        if (stack == null) {
+            replaceVertex(from, to);
+        } else {
+            // A stacked cell belongs to the lowest index, which may now be a different site.
+            int owner = meshOwner(stack);
+            stack.remove(from);
+            stack.add(to);
+            if (owner != stack.first()) {
+                replaceVertex(owner, stack.first());
+            }
+            changed.add(owner);
+        }
+        addTouching(meshVertex(to), changed);
+        return toArray(changed);
+    }
+
+    // A new index on a cell changes who wins ties along its border, so every cell touching it changes too.
+    private void addTouching(int vertex, TreeSet<Integer> changed) {
+        List<Triangle> star = new ArrayList<>();
+        Triangle t = vertexTriangle[vertex];
+        do {
+            star.add(t);
+            for (int v : t.v) {
+                if (v != INFINITE) changed.add(v);
+            }
+            t = t.n[(t.indexOf(vertex) + 1) % 3];
+        } while (t != vertexTriangle[vertex]);
+        addCocircular(star, changed);
+    }
+
+    // Adds the vertices of triangles that share a circumcircle with any of the given ones.
+    private void addCocircular(List<Triangle> triangles, TreeSet<Integer> changed) {
+        int mark = ++markCounter;
+        List<Triangle> pending = new ArrayList<>();
+        for (Triangle t : triangles) {
+            if (!t.isInfinite()) {
+                t.mark = mark;
+                pending.add(t);
+            }
+        }
+        while (!pending.isEmpty()) {
+            Triangle t = pending.remove(pending.size() - 1);
+            for (int k = 0; k < 3; k++) {
+                Triangle nb = t.n[k];
+                if (nb.mark == mark || nb.isInfinite()) continue;
+                int opposite = otherThan(nb, t.v[(k + 1) % 3], t.v[(k + 2) % 3]);
+                if (inCircle(t.v[0], t.v[1], t.v[2], opposite) == 0) {
+                    nb.mark = mark;
+                    changed.add(opposite);
+                    pending.add(nb);
+                }
+            }
+        }
+    }
+
+    private int meshOwner(TreeSet<Integer> stack) {
+        for (int site : stack) {
+            if (inMesh[site]) return site;
+        }
+        throw new IllegalStateException("Stacked sites without a mesh vertex");
+    }
+
+    // ----- Queries -----
+
+    /**
+     * Returns the site owning pixel (x, y): the nearest site, ties going to the
+     * lowest index. The search walks the mesh starting at {@code start}.
+     */
+    public int nearest(int start, int x, int y) {
+        requirePlanar();
+        int current = meshVertex(start);
+        while (true) {
+            long dist = distanceSq(current, x, y);
+            int best = current;
+            boolean tie = false;
+            Triangle t = vertexTriangle[current];
+            do {
+                int i = t.indexOf(current);
+                int u = t.v[(i + 1) % 3];
+                if (u != INFINITE) {
+                    long d = distanceSq(u, x, y);
+                    tie |= d == dist;
+                    if (closer(u, best, x, y)) best = u;
+                }
+                t = t.n[(i + 1) % 3];
+            } while (t != vertexTriangle[current]);
+            if (best == current) {
+                return tie ? resolveTie(current, x, y, new int[16]) : current;
+            }
+            current = best;
+        }
+    }
+
+    /** Returns the sites sharing a Delaunay edge with {@code site}. */
+    public int[] neighbors(int site) {
+        if (!contains(site) || !inMesh[site]) return new int[0];
+        int[] buffer = neighbors(site, new int[16]);
+        return Arrays.copyOf(buffer, buffer[buffer.length - 1]);
+    }
+
+    /**
+     * Returns the pixel bounds of the cell of {@code site} within a map of the
+     * given size, or null if the site owns no cell. The cell is clipped to the
+     * map, so hull cells do not spill over the whole border.
+     */
+    public Rectangle cellBounds(int site, int width, int height) {
+        if (!contains(site) || !inMesh[site]) return null;
+        double[] box = {xs[site], ys[site], xs[site], ys[site]};
+        double maxX = width - 1, maxY = height - 1;
+        Triangle t = vertexTriangle[site];
+        do {
+            // t and next share the Delaunay edge whose dual is one edge of the cell.
+            Triangle next = t.n[(t.indexOf(site) + 1) % 3];
+            if (!t.isInfinite() && !next.isInfinite()) {
+                clipInto(circumcenter(t), circumcenter(next), maxX, maxY, box);
+            } else if (t.isInfinite() != next.isInfinite()) {
+                Triangle inner = t.isInfinite() ? next : t;
+                Triangle outer = t.isInfinite() ? t : next;
+                int i = outer.indexOf(INFINITE);
+                int a = outer.v[(i + 1) % 3], b = outer.v[(i + 2) % 3];
+                // A hull edge's dual is a ray pointing away from the hull.
+                double dx = -(ys[b] - ys[a]), dy = xs[b] - xs[a];
+                double[] from = circumcenter(inner);
+                double reach = (Math.abs(from[0]) + Math.abs(from[1]) + 2.0 * (width + height)) / Math.hypot(dx, dy);
+                clipInto(from, new double[]{from[0] + dx * reach, from[1] + dy * reach}, maxX, maxY, box);
+            }
+            t = next;
+        } while (t != vertexTriangle[site]);
+
+        int[] neighbors = neighbors(site);
+        for (int corner = 0; corner < 4; corner++) {
+            int cx = (corner & 1) == 0 ? 0 : width - 1;
+            int cy = (corner & 2) == 0 ? 0 : height - 1;
+            boolean inside = true;
+            for (int u : neighbors) {
+                if (distanceSq(u, cx, cy) < distanceSq(site, cx, cy)) {
+                    inside = false;
+                    break;
+                }
+            }
+            if (inside) {
+                include(box, cx, cy);
+            }
+        }
+        int x0 = Math.max(0, (int) Math.floor(box[0]) - 1);
+        int y0 = Math.max(0, (int) Math.floor(box[1]) - 1);
+        int x1 = Math.min(width - 1, (int) Math.ceil(box[2]) + 1);
+        int y1 = Math.min(height - 1, (int) Math.ceil(box[3]) + 1);
+        if (x1 < x0 || y1 < y0) return null;
+        return new Rectangle(x0, y0, x1 - x0 + 1, y1 - y0 + 1);
+    }
+
+    // Liang-Barsky: grows box by the part of segment p-q inside [0, maxX] x [0, maxY].
+    private static void clipInto(double[] p, double[] q, double maxX, double maxY, double[] box) {
+        double dx = q[0] - p[0], dy = q[1] - p[1];
+        double t0 = 0, t1 = 1;
+        double[] edgeP = {-dx, dx, -dy, dy};
+        double[] edgeQ = {p[0], maxX - p[0], p[1], maxY - p[1]};
+        for (int i = 0; i < 4; i++) {
+            if (edgeP[i] == 0) {
+                if (edgeQ[i] < 0) return;
+                continue;
+            }
+            double r = edgeQ[i] / edgeP[i];
+            if (edgeP[i] < 0) {
+                if (r > t1) return;
+                t0 = Math.max(t0, r);
+            } else {
+                if (r < t0) return;
+                t1 = Math.min(t1, r);
+            }
+        }
+        include(box, p[0] + t0 * dx, p[1] + t0 * dy);
+        include(box, p[0] + t1 * dx, p[1] + t1 * dy);
+    }
+
+    private static void include(double[] box, double x, double y) {
+        box[0] = Math.min(box[0], x);
+        box[1] = Math.min(box[1], y);
+        box[2] = Math.max(box[2], x);
+        box[3] = Math.max(box[3], y);
+    }
+
+    // ----- Internals -----
+
+    private void requirePlanar() {
+        if (!planar) throw new IllegalStateException("Triangulation needs three non-collinear sites");
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= xs.length) return;
+        int capacity = Math.max(size, xs.length * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        inMesh = Arrays.copyOf(inMesh, capacity);
+        vertexTriangle = Arrays.copyOf(vertexTriangle, capacity);
+    }
+
+    private Triangle newTriangle(int a, int b, int c) {
+        Triangle t = new Triangle(a, b, c);
+        if (!t.isInfinite()) finiteTriangles++;
+        return t;
+    }
+
+    private void killTriangle(Triangle t) {
+        t.dead = true;
+        if (!t.isInfinite()) finiteTriangles--;
+    }
+
+    private Triangle startTriangle(int hint) {
+        if (contains(hint)) {
+            Triangle t = vertexTriangle[meshVertex(hint)];
+            if (t != null && !t.dead) return t;
+        }
+        return last;
+    }
+
+    private int meshVertex(int site) {
+        if (contains(site)) {
+            if (inMesh[site]) return site;
+            TreeSet<Integer> stack = stacks.get(key(site));
+            if (stack != null) return stack.first();
+        }
+        for (int vertex : last.v) {
+            if (vertex != INFINITE) return vertex;
+        }
+        throw new IllegalStateException("Empty triangulation");
+    }
+
+    // Visibility walk to a triangle that contains the point or, outside the hull, conflicts with it.
+    private Triangle locate(Triangle t, int p) {
+        int steps = 0;
+        int rotation = 0;
+        while (true) {
+            if (++steps > 4 * (finiteTriangles + 8)) {
+                throw new IllegalStateException("Point location did not converge");
+            }
+            if (t.isInfinite()) {
+                if (conflicts(t, p) || touchesVertex(t, p)) return t;
+                t = t.n[t.indexOf(INFINITE)];
+                continue;
+            }
+            Triangle next = null;
+            rotation = (rotation + 1) % 3;
+            for (int j = 0; j < 3; j++) {
+                int k = (j + rotation) % 3;
+                if (orient(t.v[(k + 1) % 3], t.v[(k + 2) % 3], p) < 0) {
+                    next = t.n[k];
+                    break;
+                }
+            }
+            if (next == null) return t;
+            t = next;
+        }
+    }
+
+    private boolean touchesVertex(Triangle t, int p) {
+        for (int vertex : t.v) {
+            if (vertex != INFINITE && xs[vertex] == xs[p] && ys[vertex] == ys[p]) return true;
+        }
+        return false;
+    }
+
+    private boolean conflicts(Triangle t, int p) {
+        int i = t.indexOf(INFINITE);
+        if (i == -1) {
+            return inCircle(t.v[0], t.v[1], t.v[2], p) > 0;
+        }
+        int a = t.v[(i + 1) % 3], b = t.v[(i + 2) % 3];
+        long o = orient(a, b, p);
+        return o > 0 || (o == 0 && strictlyBetween(a, b, p));
+    }
+
+    // A hole corner is an ear when its triangle is correctly oriented and no other hole vertex conflicts with it.
+    private boolean isEar(List<Integer> polygon, int j) {
+        int size = polygon.size();
+        int a = polygon.get(j), b = polygon.get((j + 1) % size), c = polygon.get((j + 2) % size);
+        if (a != INFINITE && b != INFINITE && c != INFINITE && orient(a, b, c) <= 0) return false;
+        Triangle candidate = new Triangle(a, b, c);
+        for (int k = 3; k < size; k++) {
+            int s = polygon.get((j + k) % size);
+            if (s != INFINITE && conflicts(candidate, s)) return false;
+        }
+        return true;
+    }
+
+    // Makes t and other neighbours across the edge from -> to of t.
+    private static void join(Triangle t, int from, int to, Triangle other) {
+        for (int k = 0; k < 3; k++) {
+            if (t.v[(k + 1) % 3] == from && t.v[(k + 2) % 3] == to) t.n[k] = other;
+            if (other.v[(k + 1) % 3] == to && other.v[(k + 2) % 3] == from) other.n[k] = t;
+        }
+    }
+
+    private static int otherThan(Triangle t, int a, int b) {
+        for (int vertex : t.v) {
+            if (vertex != a && vertex != b) return vertex;
+        }
+        throw new IllegalStateException("Degenerate triangle");
+    }
+
+    private void replaceVertex(int from, int to) {
+        Triangle start = vertexTriangle[from];
+        Triangle t = start;
+        do {
+            int i = t.indexOf(from);
+            t.v[i] = to;
+            t = t.n[(i + 1) % 3];
+        } while (t != start);
+        vertexTriangle[to] = start;
+        vertexTriangle[from] = null;
+        inMesh[to] = true;
+        inMesh[from] = false;
+    }
+
+    private int[] stack(int vertex, int site) {
+        TreeSet<Integer> stack = stacks.computeIfAbsent(key(vertex), k -> new TreeSet<>());
+        stack.add(vertex);
+        stack.add(site);
+        if (site < vertex) {
+            replaceVertex(vertex, site);
+            TreeSet<Integer> changed = new TreeSet<>();
+            changed.add(vertex);
+            addTouching(site, changed);
+            return toArray(changed);
+        }
+        return new int[]{site};
+    }
+
+    private int[] unstack(TreeSet<Integer> stack, int site) {
+        boolean owner = inMesh[site];
+        stack.remove(site);
+        int heir = stack.first();
+        if (stack.size() == 1) {
+            stacks.remove(key(heir));
+        }
+        if (owner) {
+            replaceVertex(site, heir);
+            TreeSet<Integer> changed = new TreeSet<>();
+            changed.add(site);
+            addTouching(heir, changed);
+            return toArray(changed);
+        }
+        return new int[]{site};
+    }
+
+    private long key(int site) {
+        return ((long) xs[site] << 32) | (ys[site] & 0xFFFFFFFFL);
+    }
+
+    // Fills buffer with the finite neighbours of a mesh vertex; the count goes in the last slot.
+    private int[] neighbors(int site, int[] buffer) {
+        int count = 0;
+        Triangle start = vertexTriangle[site];
+        Triangle t = start;
+        do {
+            int i = t.indexOf(site);
+            int vertex = t.v[(i + 1) % 3];
+            if (vertex != INFINITE) {
+                if (count == buffer.length - 1) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                buffer[count++] = vertex;
+            }
+            t = t.n[(i + 1) % 3];
+        } while (t != start);
+        buffer[buffer.length - 1] = count;
+        return buffer;
+    }
+
+    private int resolveTie(int nearest, int x, int y, int[] buffer) {
+        long dist = distanceSq(nearest, x, y);
+        int best = nearest;
+        List<Integer> pending = new ArrayList<>();
+        List<Integer> seen = new ArrayList<>();
+        int current = nearest;
+        while (true) {
+            buffer = neighbors(current, buffer);
+            int count = buffer[buffer.length - 1];
+            for (int i = 0; i < count; i++) {
+                int t = buffer[i];
+                if (t == nearest || distanceSq(t, x, y) != dist || seen.contains(t)) continue;
+                seen.add(t);
+                pending.add(t);
+                best = Math.min(best, t);
+            }
+            if (pending.isEmpty()) return best;
+            current = pending.remove(pending.size() - 1);
+        }
+    }
+
+    private boolean closer(int a, int b, int x, int y) {
+        long da = distanceSq(a, x, y);
+        long db = distanceSq(b, x, y);
+        return da < db || (da == db && a < b);
+    }
+
+    private long distanceSq(int site, int x, int y) {
+        long dx = x - xs[site];
+        long dy = y - ys[site];
+        return dx * dx + dy * dy;
+    }
+
+    private double[] circumcenter(Triangle t) {
+        double ax = xs[t.v[0]], ay = ys[t.v[0]];
+        double bx = xs[t.v[1]] - ax, by = ys[t.v[1]] - ay;
+        double cx = xs[t.v[2]] - ax, cy = ys[t.v[2]] - ay;
+        double d = 2 * (bx * cy - by * cx);
+        double hb = bx * bx + by * by;
+        double hc = cx * cx + cy * cy;
+        return new double[]{(cy * hb - by * hc) / d + ax, (bx * hc - cx * hb) / d + ay};
+    }
+
+    private boolean strictlyBetween(int a, int b, int p) {
+        long dot = (long) (xs[p] - xs[a]) * (xs[b] - xs[a]) + (long) (ys[p] - ys[a]) * (ys[b] - ys[a]);
+        long length = (long) (xs[b] - xs[a]) * (xs[b] - xs[a]) + (long) (ys[b] - ys[a]) * (ys[b] - ys[a]);
+        return dot > 0 && dot < length;
+    }
+
+    private long orient(int a, int b, int c) {
+        return (long) (xs[b] - xs[a]) * (ys[c] - ys[a]) - (long) (ys[b] - ys[a]) * (xs[c] - xs[a]);
+    }
+
+    // Positive when d lies strictly inside the circle through a, b, c (given orient(a, b, c) > 0).
+    private int inCircle(int a, int b, int c, int d) {
+        long adx = xs[a] - xs[d], ady = ys[a] - ys[d];
+        long bdx = xs[b] - xs[d], bdy = ys[b] - ys[d];
+        long cdx = xs[c] - xs[d], cdy = ys[c] - ys[d];
+        try {
+            long alift = Math.addExact(Math.multiplyExact(adx, adx), Math.multiplyExact(ady, ady));
+            long blift = Math.addExact(Math.multiplyExact(bdx, bdx), Math.multiplyExact(bdy, bdy));
+            long clift = Math.addExact(Math.multiplyExact(cdx, cdx), Math.multiplyExact(cdy, cdy));
+            long det = Math.addExact(Math.addExact(
+                    Math.multiplyExact(alift, Math.subtractExact(bdx * cdy, cdx * bdy)),
+                    Math.multiplyExact(blift, Math.subtractExact(cdx * ady, adx * cdy))),
+                    Math.multiplyExact(clift, Math.subtractExact(adx * bdy, bdx * ady)));
+            return Long.signum(det);
+        } catch (ArithmeticException overflow) {
+            BigInteger[] row = new BigInteger[6];
+            long[] raw = {adx, ady, bdx, bdy, cdx, cdy};
+            for (int i = 0; i < 6; i++) row[i] = BigInteger.valueOf(raw[i]);
+            BigInteger alift = row[0].multiply(row[0]).add(row[1].multiply(row[1]));
+            BigInteger blift = row[2].multiply(row[2]).add(row[3].multiply(row[3]));
+            BigInteger clift = row[4].multiply(row[4]).add(row[5].multiply(row[5]));
+            BigInteger det = alift.multiply(row[2].multiply(row[5]).subtract(row[4].multiply(row[3])))
+                    .add(blift.multiply(row[4].multiply(row[1]).subtract(row[0].multiply(row[5]))))
+                    .add(clift.multiply(row[0].multiply(row[3]).subtract(row[2].multiply(row[1]))));
+            return det.signum();
+        }
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
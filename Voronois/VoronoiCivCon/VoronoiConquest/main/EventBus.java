@@ -1,15 +1,44 @@
 // File: main/EventBus.java
 package main;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Delivers {@link GameEvent}s to subscribers chosen by event class.
+ *
+ * A handler subscribed to a class gets events of that class and its
+ * subclasses, so {@link #register} and {@link #subscribe(EventListener)},
+ * which subscribe to {@code GameEvent}, see everything. Subscriber lists are copy-on-write: firing never locks,
+ * and any thread may subscribe or fire at any time.
+ *
+ * Delivery is synchronous on the firing thread until {@link #startAsync} is
+ * called. After that, events go through a bounded ring buffer to one
+ * dispatcher thread, which takes whatever has queued up as a batch and
+ * delivers it in order. A publisher that finds the ring full waits for room,
+ * so a slow listener slows publishers down instead of using unbounded memory.
+ */
 public class EventBus {
+    private static final Logger logger = Logger.getLogger(EventBus.class.getName());
     private static EventBus instance;
-    private final List<EventListener> listeners;
 
-    private EventBus() {
-        listeners = new ArrayList<>();
+    private final ConcurrentHashMap<Class<?>, List<Consumer<GameEvent>>> subscribers = new ConcurrentHashMap<>();
+    // Non-null while in asynchronous mode.
+    private volatile Dispatcher dispatcher;
+
+    /** A handler's registration; cancel it to stop deliveries. */
+    public interface Subscription {
+        void cancel();
+    }
+
+    /** A separate bus; the game itself uses {@link #getInstance()}. */
+    public EventBus() {
     }
 
     public static synchronized EventBus getInstance() {
@@ -19,13 +48,194 @@ public class EventBus {
         return instance;
     }
 
+    /** Calls {@code handler} for every event of class {@code type} or a subclass of it. */
+    public <E extends GameEvent> Subscription subscribe(Class<E> type, Consumer<? super E> handler) {
+        @SuppressWarnings("unchecked")
+        Consumer<GameEvent> cast = (Consumer<GameEvent>) handler;
+        // Wrapped so that cancelling removes this subscription even if the handler was added twice.
+        Consumer<GameEvent> entry = cast::accept;
+        List<Consumer<GameEvent>> list = subscribers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        list.add(entry);
+        return () -> list.remove(entry);
+    }
+
+    /** Listens to every event, for good; see {@link #subscribe(EventListener)} to be able to stop. */
     public void register(EventListener listener) {
-        listeners.add(listener);
+        subscribe(listener);
+    }
+
+    /** Listens to every event until the returned subscription is cancelled. */
+    public Subscription subscribe(EventListener listener) {
+        return subscribe(GameEvent.class, listener::onEvent);
     }
 
     public void fireEvent(GameEvent event) {
-        for (EventListener listener : listeners) {
-            listener.onEvent(event);
+        Dispatcher d = dispatcher;
+        if (d == null || !d.enqueue(event)) {
+            deliver(event);
+        }
+    }
+
+    // Walks from the event's class up to GameEvent, so no listener needs an instanceof check.
+    private void deliver(GameEvent event) {
+        for (Class<?> type = event.getClass(); type != null && GameEvent.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            List<Consumer<GameEvent>> list = subscribers.get(type);
+            if (list == null) continue;
+            for (Consumer<GameEvent> handler : list) {
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException ex) {
+                    logger.log(Level.WARNING, "Event listener failed on " + event.getEventType(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches to asynchronous delivery through a ring of {@code capacity}
+     * events (rounded up to a power of two). Does nothing if already async.
+     */
+    public synchronized void startAsync(int capacity) {
+        if (dispatcher != null) return;
+        dispatcher = new Dispatcher(Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    /** Delivers whatever is queued, stops the dispatcher and goes back to synchronous delivery. */
+    public synchronized void stopAsync() {
+        Dispatcher d = dispatcher;
+        if (d == null) return;
+        dispatcher = null;
+        d.stop();
+    }
+
+    public boolean isAsync() {
+        return dispatcher != null;
+    }
+
+    /** Waits until every event fired before this call has been delivered. */
+    public void flush() {
+        Dispatcher d = dispatcher;
+        if (d != null) d.flush();
+    }
+
+    /** Events waiting in the ring; always 0 in synchronous mode. */
+    public int getQueuedEvents() {
+        Dispatcher d = dispatcher;
+        return d == null ? 0 : d.size();
+    }
+
+    private final class Dispatcher implements Runnable {
+        private final GameEvent[] ring;
+        private final GameEvent[] batch;
+        private final int mask;
+        // Sequence numbers: head is the next event to take, tail the next free slot.
+        private long head, tail, delivered;
+        private boolean running = true;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Condition progress = lock.newCondition();
+        private final Thread thread;
+
+        Dispatcher(int capacity) {
+            ring = new GameEvent[capacity];
+            batch = new GameEvent[capacity];
+            mask = capacity - 1;
+            thread = new Thread(this, "event-dispatcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // Returns false when the caller should deliver the event itself.
+        boolean enqueue(GameEvent event) {
+            // A listener firing from the dispatcher could wait on itself forever.
+            if (Thread.currentThread() == thread) return false;
+            lock.lock();
+            try {
+                if (!running) return false;
+                while (tail - head == ring.length) {
+                    notFull.awaitUninterruptibly();
+                }
+                ring[(int) tail & mask] = event;
+                tail++;
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int count;
+                lock.lock();
+                try {
+                    while (head == tail) {
+                        if (!running) return;
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    count = (int) (tail - head);
+                    for (int i = 0; i < count; i++) {
+                        int slot = (int) (head + i) & mask;
+                        batch[i] = ring[slot];
+                        ring[slot] = null;
+                    }
+                    head += count;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                for (int i = 0; i < count; i++) {
+                    deliver(batch[i]);
+                    batch[i] = null;
+                }
+                lock.lock();
+                try {
+                    delivered += count;
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void flush() {
+            if (Thread.currentThread() == thread) return;
+            lock.lock();
+            try {
+                long target = tail;
+                while (delivered < target) {
+                    progress.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return (int) (tail - head);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void stop() {
+            lock.lock();
+            try {
+                running = false;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (Thread.currentThread() == thread) return;
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 }
@@ -1,17 +1,44 @@
 package main;
 
 import java.awt.*;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
 
+/**
+ * Voronoi diagram built with Fortune's sweep-line algorithm.
+ *
+ * The sweep produces a half-edge structure (vertices, edges and one closed cell
+ * polygon per site, clipped to the map) in O(N log N). The region assignment is
+ * then derived by scan-converting the cells in parallel row bands (see
+ * {@link RegionRasterizer}); the raster is identical to a brute-force
+ * nearest-site search, with ties going to the lower site index.
+ */
 public class FortuneVoronoi {
-    private int[][] regionAssignment;
+    private static final double EPSILON = 1e-9;
+
+    private RegionRaster regionAssignment;
     private BufferedImage voronoiImage;
     private List<Point> sites;
     private int mapWidth, mapHeight;
 
+    // Sweep output.
+    private Cell[] cells;
+    private List<Edge> edges;
+    private int[][] siteNeighbors;
+
+    // Sweep state.
+    private double[] siteX, siteY;
+    private Arc beachline;
+    private TreeSet<CircleEvent> circleEvents;
+    private int circleEventCount;
+
     public FortuneVoronoi(Point[] siteArray, int mapWidth, int mapHeight) {
         this.sites = new ArrayList<>(Arrays.asList(siteArray));
         this.mapWidth = mapWidth;
@@ -20,32 +47,879 @@ public class FortuneVoronoi {
     }
 
     private void computeVoronoi() {
-        regionAssignment = new int[mapWidth][mapHeight];
-        voronoiImage = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_RGB);
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                int nearestSite = 0;
-                double minDist = Double.MAX_VALUE;
-                for (int i = 0; i < sites.size(); i++) {
-                    double dist = sites.get(i).distance(x, y);
-                    if (dist < minDist) {
-                        minDist = dist;
-                        nearestSite = i;
+        sweep();
+        clipEdges();
+        closeCells();
+        rasterize();
+    }
+
+    public RegionRaster getRegionAssignment() {
+        return regionAssignment;
+    }
+
+    public BufferedImage getVoronoiImage() {
+        return voronoiImage;
+    }
+
+    /**
+     * Returns the cell of every site, indexed like the site array. A site that
+     * repeats the coordinates of an earlier site owns no cell and maps to null.
+     */
+    public Cell[] getCells() {
+        return cells;
+    }
+
+    /** Returns all Voronoi and map-border edges that survived clipping. */
+    public List<Edge> getEdges() {
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Returns, per site, the sites it shares a Voronoi edge with, including
+     * edges that lie outside the map or collapsed to a single vertex.
+     */
+    public int[][] getSiteNeighbors() {
+        return siteNeighbors;
+    }
+
+    // ----- Half-edge structure -----
+
+    public static final class Vertex {
+        public final double x, y;
+
+        Vertex(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final class Edge {
+        private int leftSite, rightSite;
+        private Vertex va, vb;
+
+        Edge(int leftSite, int rightSite) {
+            this.leftSite = leftSite;
+            this.rightSite = rightSite;
+        }
+
+        public int getLeftSite() { return leftSite; }
+        /** Returns the site on the other side, or -1 for a map border edge. */
+        public int getRightSite() { return rightSite; }
+        public Vertex getStart() { return va; }
+        public Vertex getEnd() { return vb; }
+    }
+
+    public static final class HalfEdge {
+        private final int site;
+        private final Edge edge;
+        private final double angle;
+
+        HalfEdge(Edge edge, int site, double angle) {
+            this.edge = edge;
+            this.site = site;
+            this.angle = angle;
+        }
+
+        public Edge getEdge() { return edge; }
+
+        /** Returns the site across this half-edge, or -1 on the map border. */
+        public int getNeighbor() {
+            return edge.leftSite == site ? edge.rightSite : edge.leftSite;
+        }
+
+        public Vertex getStartpoint() {
+            return edge.leftSite == site ? edge.va : edge.vb;
+        }
+
+        public Vertex getEndpoint() {
+            return edge.leftSite == site ? edge.vb : edge.va;
+        }
+    }
+
+    public static final class Cell {
+        private final int site;
+        private final List<HalfEdge> halfEdges = new ArrayList<>();
+        private boolean closeMe;
+
+        Cell(int site) {
+            this.site = site;
+        }
+
+        public int getSite() { return site; }
+
+        /** Half-edges in counter-clockwise order (screen coordinates: y down). */
+        public List<HalfEdge> getHalfEdges() {
+            return Collections.unmodifiableList(halfEdges);
+        }
+
+        public Path2D.Double toPath() {
+            Path2D.Double path = new Path2D.Double();
+            for (int i = 0; i < halfEdges.size(); i++) {
+                Vertex v = halfEdges.get(i).getStartpoint();
+                if (i == 0) {
+                    path.moveTo(v.x, v.y);
+                } else {
+                    path.lineTo(v.x, v.y);
+                }
+            }
+            path.closePath();
+            return path;
+        }
+
+        // Drops half-edges that were clipped away and sorts the rest by angle.
+        private int prepareHalfEdges() {
+            halfEdges.removeIf(h -> h.edge.va == null || h.edge.vb == null);
+            halfEdges.sort((a, b) -> Double.compare(b.angle, a.angle));
+            return halfEdges.size();
+        }
+    }
+
+    // ----- Sweep -----
+
+    private static final class Arc {
+        int site;
+        Edge edge;
+        CircleEvent circleEvent;
+        Arc rbParent, rbLeft, rbRight, rbPrevious, rbNext;
+        boolean rbRed;
+
+        Arc(int site) {
+            this.site = site;
+        }
+    }
+
+    private static final class CircleEvent implements Comparable<CircleEvent> {
+        final Arc arc;
+        final double x, y, ycenter;
+        final int order;
+
+        CircleEvent(Arc arc, double x, double y, double ycenter, int order) {
+            this.arc = arc;
+            this.x = x;
+            this.y = y;
+            this.ycenter = ycenter;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(CircleEvent o) {
+            if (y != o.y) return y < o.y ? -1 : 1;
+            if (x != o.x) return x < o.x ? -1 : 1;
+            return Integer.compare(order, o.order);
+        }
+    }
+
+    private void sweep() {
+        int n = sites.size();
+        siteX = new double[n];
+        siteY = new double[n];
+        for (int i = 0; i < n; i++) {
+            siteX[i] = sites.get(i).x;
+            siteY[i] = sites.get(i).y;
+        }
+        cells = new Cell[n];
+        edges = new ArrayList<>();
+        beachline = null;
+        circleEvents = new TreeSet<>();
+        circleEventCount = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            if (siteY[a] != siteY[b]) return Double.compare(siteY[a], siteY[b]);
+            if (siteX[a] != siteX[b]) return Double.compare(siteX[a], siteX[b]);
+            return Integer.compare(a, b);
+        });
+
+        int next = 0;
+        double lastX = Double.NaN, lastY = Double.NaN;
+        while (true) {
+            CircleEvent circle = circleEvents.isEmpty() ? null : circleEvents.first();
+            if (next < n) {
+                int site = order[next];
+                double x = siteX[site], y = siteY[site];
+                if (circle == null || y < circle.y || (y == circle.y && x < circle.x)) {
+                    // Duplicate sites keep only the lowest index, which wins every tie anyway.
+                    if (x != lastX || y != lastY) {
+                        cells[site] = new Cell(site);
+                        addBeachsection(site);
+                        lastX = x;
+                        lastY = y;
                     }
+                    next++;
+                    continue;
                 }
-                regionAssignment[x][y] = nearestSite;
-                float hue = (float) nearestSite / sites.size();
-                int rgb = Color.HSBtoRGB(hue, 1.0f, 0.8f);
-                voronoiImage.setRGB(x, y, rgb);
             }
+            if (circle == null) break;
+            removeBeachsection(circle.arc);
+        }
+
+        List<List<Integer>> lists = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) lists.add(new ArrayList<>());
+        for (Edge edge : edges) {
+            lists.get(edge.leftSite).add(edge.rightSite);
+            lists.get(edge.rightSite).add(edge.leftSite);
+        }
+        siteNeighbors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            siteNeighbors[i] = lists.get(i).stream().mapToInt(Integer::intValue).distinct().toArray();
         }
     }
 
-    public int[][] getRegionAssignment() {
-        return regionAssignment;
+    private double leftBreakPoint(Arc arc, double directrix) {
+        double rfocx = siteX[arc.site], rfocy = siteY[arc.site];
+        double pby2 = rfocy - directrix;
+        if (pby2 == 0) return rfocx;
+        Arc lArc = arc.rbPrevious;
+        if (lArc == null) return Double.NEGATIVE_INFINITY;
+        double lfocx = siteX[lArc.site], lfocy = siteY[lArc.site];
+        double plby2 = lfocy - directrix;
+        if (plby2 == 0) return lfocx;
+        double hl = lfocx - rfocx;
+        double aby2 = 1 / pby2 - 1 / plby2;
+        double b = hl / plby2;
+        if (aby2 != 0) {
+            return (-b + Math.sqrt(b * b - 2 * aby2 * (hl * hl / (-2 * plby2) - lfocy + plby2 / 2 + rfocy - pby2 / 2))) / aby2 + rfocx;
+        }
+        return (rfocx + lfocx) / 2;
     }
 
-    public BufferedImage getVoronoiImage() {
-        return voronoiImage;
+    private double rightBreakPoint(Arc arc, double directrix) {
+        if (arc.rbNext != null) return leftBreakPoint(arc.rbNext, directrix);
+        return siteY[arc.site] == directrix ? siteX[arc.site] : Double.POSITIVE_INFINITY;
+    }
+
+    private void addBeachsection(int site) {
+        double x = siteX[site], directrix = siteY[site];
+        Arc lArc = null, rArc = null;
+        Arc node = beachline;
+        while (node != null) {
+            double dxl = leftBreakPoint(node, directrix) - x;
+            if (dxl > EPSILON) {
+                node = node.rbLeft;
+            } else {
+                double dxr = x - rightBreakPoint(node, directrix);
+                if (dxr > EPSILON) {
+                    if (node.rbRight == null) {
+                        lArc = node;
+                        break;
+                    }
+                    node = node.rbRight;
+                } else {
+                    if (dxl > -EPSILON) {
+                        lArc = node.rbPrevious;
+                        rArc = node;
+                    } else if (dxr > -EPSILON) {
+                        lArc = node;
+                        rArc = node.rbNext;
+                    } else {
+                        lArc = rArc = node;
+                    }
+                    break;
+                }
+            }
+        }
+
+        Arc newArc = new Arc(site);
+        rbInsertSuccessor(lArc, newArc);
+        if (lArc == null && rArc == null) return;
+
+        if (lArc == rArc) {
+            // The new site splits an existing arc in two.
+            detachCircleEvent(lArc);
+            rArc = new Arc(lArc.site);
+            rbInsertSuccessor(newArc, rArc);
+            newArc.edge = rArc.edge = createEdge(lArc.site, newArc.site, null, null);
+            attachCircleEvent(lArc);
+            attachCircleEvent(rArc);
+            return;
+        }
+
+        if (rArc == null) {
+            // The new site lies right of the whole beachline (same y as its last arc).
+            newArc.edge = createEdge(lArc.site, newArc.site, null, null);
+            return;
+        }
+
+        // The new site falls exactly on the breakpoint between two arcs.
+        detachCircleEvent(lArc);
+        detachCircleEvent(rArc);
+        int lSite = lArc.site, rSite = rArc.site;
+        double ax = siteX[lSite], ay = siteY[lSite];
+        double bx = x - ax, by = directrix - ay;
+        double cx = siteX[rSite] - ax, cy = siteY[rSite] - ay;
+        double d = 2 * (bx * cy - by * cx);
+        double hb = bx * bx + by * by;
+        double hc = cx * cx + cy * cy;
+        Vertex vertex = new Vertex((cy * hb - by * hc) / d + ax, (bx * hc - cx * hb) / d + ay);
+        setEdgeStartpoint(rArc.edge, lSite, rSite, vertex);
+        newArc.edge = createEdge(lSite, site, null, vertex);
+        rArc.edge = createEdge(site, rSite, null, vertex);
+        attachCircleEvent(lArc);
+        attachCircleEvent(rArc);
+    }
+
+    private void removeBeachsection(Arc arc) {
+        CircleEvent circle = arc.circleEvent;
+        double x = circle.x, y = circle.ycenter;
+        Vertex vertex = new Vertex(x, y);
+        Arc previous = arc.rbPrevious;
+        Arc next = arc.rbNext;
+        List<Arc> disappearing = new ArrayList<>();
+        disappearing.add(arc);
+        detachBeachsection(arc);
+
+        // Collapse every neighbouring arc that vanishes at the same vertex.
+        Arc lArc = previous;
+        while (lArc.circleEvent != null && Math.abs(x - lArc.circleEvent.x) < EPSILON
+                && Math.abs(y - lArc.circleEvent.ycenter) < EPSILON) {
+            previous = lArc.rbPrevious;
+            disappearing.add(0, lArc);
+            detachBeachsection(lArc);
+            lArc = previous;
+        }
+        disappearing.add(0, lArc);
+        detachCircleEvent(lArc);
+
+        Arc rArc = next;
+        while (rArc.circleEvent != null && Math.abs(x - rArc.circleEvent.x) < EPSILON
+                && Math.abs(y - rArc.circleEvent.ycenter) < EPSILON) {
+            next = rArc.rbNext;
+            disappearing.add(rArc);
+            detachBeachsection(rArc);
+            rArc = next;
+        }
+        disappearing.add(rArc);
+        detachCircleEvent(rArc);
+
+        int count = disappearing.size();
+        for (int i = 1; i < count; i++) {
+            Arc right = disappearing.get(i);
+            Arc left = disappearing.get(i - 1);
+            setEdgeStartpoint(right.edge, left.site, right.site, vertex);
+        }
+        lArc = disappearing.get(0);
+        rArc = disappearing.get(count - 1);
+        rArc.edge = createEdge(lArc.site, rArc.site, null, vertex);
+        attachCircleEvent(lArc);
+        attachCircleEvent(rArc);
+    }
+
+    private void detachBeachsection(Arc arc) {
+        detachCircleEvent(arc);
+        rbRemoveNode(arc);
+    }
+
+    private void attachCircleEvent(Arc arc) {
+        Arc lArc = arc.rbPrevious, rArc = arc.rbNext;
+        if (lArc == null || rArc == null) return;
+        int lSite = lArc.site, cSite = arc.site, rSite = rArc.site;
+        if (lSite == rSite) return;
+        double bx = siteX[cSite], by = siteY[cSite];
+        double ax = siteX[lSite] - bx, ay = siteY[lSite] - by;
+        double cx = siteX[rSite] - bx, cy = siteY[rSite] - by;
+        // Only converging breakpoints (clockwise triple) produce a circle event.
+        double d = 2 * (ax * cy - ay * cx);
+        if (d >= -2e-12) return;
+        double ha = ax * ax + ay * ay;
+        double hc = cx * cx + cy * cy;
+        double ex = (cy * ha - ay * hc) / d;
+        double ey = (ax * hc - cx * ha) / d;
+        double ycenter = ey + by;
+        CircleEvent event = new CircleEvent(arc, ex + bx, ycenter + Math.sqrt(ex * ex + ey * ey), ycenter, circleEventCount++);
+        arc.circleEvent = event;
+        circleEvents.add(event);
+    }
+
+    private void detachCircleEvent(Arc arc) {
+        if (arc.circleEvent != null) {
+            circleEvents.remove(arc.circleEvent);
+            arc.circleEvent = null;
+        }
+    }
+
+    private Edge createEdge(int lSite, int rSite, Vertex va, Vertex vb) {
+        Edge edge = new Edge(lSite, rSite);
+        edges.add(edge);
+        if (va != null) setEdgeStartpoint(edge, lSite, rSite, va);
+        if (vb != null) setEdgeStartpoint(edge, rSite, lSite, vb);
+        cells[lSite].halfEdges.add(new HalfEdge(edge, lSite,
+                Math.atan2(siteY[rSite] - siteY[lSite], siteX[rSite] - siteX[lSite])));
+        cells[rSite].halfEdges.add(new HalfEdge(edge, rSite,
+                Math.atan2(siteY[lSite] - siteY[rSite], siteX[lSite] - siteX[rSite])));
+        return edge;
+    }
+
+    private void setEdgeStartpoint(Edge edge, int lSite, int rSite, Vertex vertex) {
+        if (edge.va == null && edge.vb == null) {
+            edge.va = vertex;
+            edge.leftSite = lSite;
+            edge.rightSite = rSite;
+        } else if (edge.leftSite == rSite) {
+            edge.vb = vertex;
+        } else {
+            edge.va = vertex;
+        }
+    }
+
+    // ----- Beachline red-black tree (ordered left to right, threaded) -----
+
+    private void rbInsertSuccessor(Arc node, Arc successor) {
+        Arc parent;
+        if (node != null) {
+            successor.rbPrevious = node;
+            successor.rbNext = node.rbNext;
+            if (node.rbNext != null) node.rbNext.rbPrevious = successor;
+            node.rbNext = successor;
+            if (node.rbRight != null) {
+                node = node.rbRight;
+                while (node.rbLeft != null) node = node.rbLeft;
+                node.rbLeft = successor;
+            } else {
+                node.rbRight = successor;
+            }
+            parent = node;
+        } else if (beachline != null) {
+            node = rbFirst(beachline);
+            successor.rbPrevious = null;
+            successor.rbNext = node;
+            node.rbPrevious = successor;
+            node.rbLeft = successor;
+            parent = node;
+        } else {
+            successor.rbPrevious = successor.rbNext = null;
+            beachline = successor;
+            parent = null;
+        }
+        successor.rbLeft = successor.rbRight = null;
+        successor.rbParent = parent;
+        successor.rbRed = true;
+
+        node = successor;
+        while (parent != null && parent.rbRed) {
+            Arc grandpa = parent.rbParent;
+            if (parent == grandpa.rbLeft) {
+                Arc uncle = grandpa.rbRight;
+                if (uncle != null && uncle.rbRed) {
+                    parent.rbRed = uncle.rbRed = false;
+                    grandpa.rbRed = true;
+                    node = grandpa;
+                } else {
+                    if (node == parent.rbRight) {
+                        rbRotateLeft(parent);
+                        node = parent;
+                        parent = node.rbParent;
+                    }
+                    parent.rbRed = false;
+                    grandpa.rbRed = true;
+                    rbRotateRight(grandpa);
+                }
+            } else {
+                Arc uncle = grandpa.rbLeft;
+                if (uncle != null && uncle.rbRed) {
+                    parent.rbRed = uncle.rbRed = false;
+                    grandpa.rbRed = true;
+                    node = grandpa;
+                } else {
+                    if (node == parent.rbLeft) {
+                        rbRotateRight(parent);
+                        node = parent;
+                        parent = node.rbParent;
+                    }
+                    parent.rbRed = false;
+                    grandpa.rbRed = true;
+                    rbRotateLeft(grandpa);
+                }
+            }
+            parent = node.rbParent;
+        }
+        beachline.rbRed = false;
+    }
+
+    private void rbRemoveNode(Arc node) {
+        if (node.rbNext != null) node.rbNext.rbPrevious = node.rbPrevious;
+        if (node.rbPrevious != null) node.rbPrevious.rbNext = node.rbNext;
+        node.rbNext = node.rbPrevious = null;
+        Arc parent = node.rbParent;
+        Arc left = node.rbLeft;
+        Arc right = node.rbRight;
+        Arc next;
+        if (left == null) {
+            next = right;
+        } else if (right == null) {
+            next = left;
+        } else {
+            next = rbFirst(right);
+        }
+        if (parent != null) {
+            if (parent.rbLeft == node) {
+                parent.rbLeft = next;
+            } else {
+                parent.rbRight = next;
+            }
+        } else {
+            beachline = next;
+        }
+
+        boolean isRed;
+        if (left != null && right != null) {
+            isRed = next.rbRed;
+            next.rbRed = node.rbRed;
+            next.rbLeft = left;
+            left.rbParent = next;
+            if (next != right) {
+                parent = next.rbParent;
+                next.rbParent = node.rbParent;
+                node = next.rbRight;
+                parent.rbLeft = node;
+                next.rbRight = right;
+                right.rbParent = next;
+            } else {
+                next.rbParent = parent;
+                parent = next;
+                node = next.rbRight;
+            }
+        } else {
+            isRed = node.rbRed;
+            node = next;
+        }
+        if (node != null) node.rbParent = parent;
+        if (isRed) return;
+        if (node != null && node.rbRed) {
+            node.rbRed = false;
+            return;
+        }
+
+        Arc sibling;
+        do {
+            if (node == beachline) break;
+            if (node == parent.rbLeft) {
+                sibling = parent.rbRight;
+                if (sibling.rbRed) {
+                    sibling.rbRed = false;
+                    parent.rbRed = true;
+                    rbRotateLeft(parent);
+                    sibling = parent.rbRight;
+                }
+                if ((sibling.rbLeft != null && sibling.rbLeft.rbRed) || (sibling.rbRight != null && sibling.rbRight.rbRed)) {
+                    if (sibling.rbRight == null || !sibling.rbRight.rbRed) {
+                        sibling.rbLeft.rbRed = false;
+                        sibling.rbRed = true;
+                        rbRotateRight(sibling);
+                        sibling = parent.rbRight;
+                    }
+                    sibling.rbRed = parent.rbRed;
+                    parent.rbRed = sibling.rbRight.rbRed = false;
+                    rbRotateLeft(parent);
+                    node = beachline;
+                    break;
+                }
+            } else {
+                sibling = parent.rbLeft;
+                if (sibling.rbRed) {
+                    sibling.rbRed = false;
+                    parent.rbRed = true;
+                    rbRotateRight(parent);
+                    sibling = parent.rbLeft;
+                }
+                if ((sibling.rbLeft != null && sibling.rbLeft.rbRed) || (sibling.rbRight != null && sibling.rbRight.rbRed)) {
+                    if (sibling.rbLeft == null || !sibling.rbLeft.rbRed) {
+                        sibling.rbRight.rbRed = false;
+                        sibling.rbRed = true;
+                        rbRotateLeft(sibling);
+                        sibling = parent.rbLeft;
+                    }
+                    sibling.rbRed = parent.rbRed;
+                    parent.rbRed = sibling.rbLeft.rbRed = false;
+                    rbRotateRight(parent);
+                    node = beachline;
+                    break;
+                }
+            }
+            sibling.rbRed = true;
+            node = parent;
+            parent = parent.rbParent;
+        } while (!node.rbRed);
+        if (node != null) node.rbRed = false;
+    }
+
+    private void rbRotateLeft(Arc p) {
+        Arc q = p.rbRight;
+        Arc parent = p.rbParent;
+        if (parent != null) {
+            if (parent.rbLeft == p) {
+                parent.rbLeft = q;
+            } else {
+                parent.rbRight = q;
+            }
+        } else {
+            beachline = q;
+        }
+        q.rbParent = parent;
+        p.rbParent = q;
+        p.rbRight = q.rbLeft;
+        if (p.rbRight != null) p.rbRight.rbParent = p;
+        q.rbLeft = p;
+    }
+
+    private void rbRotateRight(Arc p) {
+        Arc q = p.rbLeft;
+        Arc parent = p.rbParent;
+        if (parent != null) {
+            if (parent.rbLeft == p) {
+                parent.rbLeft = q;
+            } else {
+                parent.rbRight = q;
+            }
+        } else {
+            beachline = q;
+        }
+        q.rbParent = parent;
+        p.rbParent = q;
+        p.rbLeft = q.rbRight;
+        if (p.rbLeft != null) p.rbLeft.rbParent = p;
+        q.rbRight = p;
+    }
+
+    private static Arc rbFirst(Arc node) {
+        while (node.rbLeft != null) node = node.rbLeft;
+        return node;
+    }
+
+    // ----- Clipping and closing against the map rectangle -----
+
+    private void clipEdges() {
+        edges.removeIf(edge -> {
+            boolean keep = connectEdge(edge) && clipEdge(edge)
+                    && (Math.abs(edge.va.x - edge.vb.x) >= EPSILON || Math.abs(edge.va.y - edge.vb.y) >= EPSILON);
+            if (!keep) {
+                edge.va = edge.vb = null;
+            }
+            return !keep;
+        });
+    }
+
+    // Gives dangling edges (rays and full lines) a finite end on the map border.
+    private boolean connectEdge(Edge edge) {
+        if (edge.vb != null) return true;
+        Vertex va = edge.va;
+        Vertex vb;
+        double xl = 0, xr = mapWidth, yt = 0, yb = mapHeight;
+        double lx = siteX[edge.leftSite], ly = siteY[edge.leftSite];
+        double rx = siteX[edge.rightSite], ry = siteY[edge.rightSite];
+        double fx = (lx + rx) / 2, fy = (ly + ry) / 2;
+        cells[edge.leftSite].closeMe = true;
+        cells[edge.rightSite].closeMe = true;
+
+        if (ry == ly) {
+            // Vertical bisector.
+            if (fx < xl || fx >= xr) return false;
+            if (lx > rx) {
+                if (va == null || va.y < yt) {
+                    va = new Vertex(fx, yt);
+                } else if (va.y >= yb) {
+                    return false;
+                }
+                vb = new Vertex(fx, yb);
+            } else {
+                if (va == null || va.y > yb) {
+                    va = new Vertex(fx, yb);
+                } else if (va.y < yt) {
+                    return false;
+                }
+                vb = new Vertex(fx, yt);
+            }
+        } else {
+            double fm = (lx - rx) / (ry - ly);
+            double fb = fy - fm * fx;
+            if (fm < -1 || fm > 1) {
+                // Closer to vertical: walk from top to bottom.
+                if (lx > rx) {
+                    if (va == null || va.y < yt) {
+                        va = new Vertex((yt - fb) / fm, yt);
+                    } else if (va.y >= yb) {
+                        return false;
+                    }
+                    vb = new Vertex((yb - fb) / fm, yb);
+                } else {
+                    if (va == null || va.y > yb) {
+                        va = new Vertex((yb - fb) / fm, yb);
+                    } else if (va.y < yt) {
+                        return false;
+                    }
+                    vb = new Vertex((yt - fb) / fm, yt);
+                }
+            } else {
+                // Closer to horizontal: walk from left to right.
+                if (ly < ry) {
+                    if (va == null || va.x < xl) {
+                        va = new Vertex(xl, fm * xl + fb);
+                    } else if (va.x >= xr) {
+                        return false;
+                    }
+                    vb = new Vertex(xr, fm * xr + fb);
+                } else {
+                    if (va == null || va.x > xr) {
+                        va = new Vertex(xr, fm * xr + fb);
+                    } else if (va.x < xl) {
+                        return false;
+                    }
+                    vb = new Vertex(xl, fm * xl + fb);
+                }
+            }
+        }
+        edge.va = va;
+        edge.vb = vb;
+        return true;
+    }
+
+    // Liang-Barsky clipping of a finite edge to the map rectangle.
+    private boolean clipEdge(Edge edge) {
+        double ax = edge.va.x, ay = edge.va.y;
+        double bx = edge.vb.x, by = edge.vb.y;
+        double t0 = 0, t1 = 1;
+        double dx = bx - ax, dy = by - ay;
+
+        double q = ax;
+        if (dx == 0 && q < 0) return false;
+        double r = -q / dx;
+        if (dx < 0) {
+            if (r < t0) return false;
+            if (r < t1) t1 = r;
+        } else if (dx > 0) {
+            if (r > t1) return false;
+            if (r > t0) t0 = r;
+        }
+        q = mapWidth - ax;
+        if (dx == 0 && q < 0) return false;
+        r = q / dx;
+        if (dx < 0) {
+            if (r > t1) return false;
+            if (r > t0) t0 = r;
+        } else if (dx > 0) {
+            if (r < t0) return false;
+            if (r < t1) t1 = r;
+        }
+        q = ay;
+        if (dy == 0 && q < 0) return false;
+        r = -q / dy;
+        if (dy < 0) {
+            if (r < t0) return false;
+            if (r < t1) t1 = r;
+        } else if (dy > 0) {
+            if (r > t1) return false;
+            if (r > t0) t0 = r;
+        }
+        q = mapHeight - ay;
+        if (dy == 0 && q < 0) return false;
+        r = q / dy;
+        if (dy < 0) {
+            if (r > t1) return false;
+            if (r > t0) t0 = r;
+        } else if (dy > 0) {
+            if (r < t0) return false;
+            if (r < t1) t1 = r;
+        }
+
+        if (t0 > 0) edge.va = new Vertex(ax + t0 * dx, ay + t0 * dy);
+        if (t1 < 1) edge.vb = new Vertex(ax + t1 * dx, ay + t1 * dy);
+        if (t0 > 0 || t1 < 1) {
+            cells[edge.leftSite].closeMe = true;
+            cells[edge.rightSite].closeMe = true;
+        }
+        return true;
+    }
+
+    // Walks each open cell's boundary and inserts map-border edges into the gaps.
+    private void closeCells() {
+        double xl = 0, xr = mapWidth, yt = 0, yb = mapHeight;
+        for (Cell cell : cells) {
+            if (cell == null) continue;
+            if (cell.prepareHalfEdges() == 0 || !cell.closeMe) continue;
+            List<HalfEdge> halfEdges = cell.halfEdges;
+            int iLeft = 0;
+            while (iLeft < halfEdges.size()) {
+                Vertex va = halfEdges.get(iLeft).getEndpoint();
+                Vertex vz = halfEdges.get((iLeft + 1) % halfEdges.size()).getStartpoint();
+                if (Math.abs(va.x - vz.x) >= EPSILON || Math.abs(va.y - vz.y) >= EPSILON) {
+                    // Follow the border counter-clockwise (left, bottom, right, top) until vz is reached.
+                    int side;
+                    if (equal(va.x, xl) && va.y < yb - EPSILON) {
+                        side = 0;
+                    } else if (equal(va.y, yb) && va.x < xr - EPSILON) {
+                        side = 1;
+                    } else if (equal(va.x, xr) && va.y > yt + EPSILON) {
+                        side = 2;
+                    } else if (equal(va.y, yt) && va.x > xl + EPSILON) {
+                        side = 3;
+                    } else {
+                        throw new IllegalStateException("Voronoi cell " + cell.site + " cannot be closed");
+                    }
+                    for (int steps = 0; ; steps++) {
+                        if (steps > 4) {
+                            throw new IllegalStateException("Voronoi cell " + cell.site + " cannot be closed");
+                        }
+                        boolean last;
+                        Vertex vb;
+                        switch (side) {
+                            case 0:
+                                last = equal(vz.x, xl);
+                                vb = new Vertex(xl, last ? vz.y : yb);
+                                break;
+                            case 1:
+                                last = equal(vz.y, yb);
+                                vb = new Vertex(last ? vz.x : xr, yb);
+                                break;
+                            case 2:
+                                last = equal(vz.x, xr);
+                                vb = new Vertex(xr, last ? vz.y : yt);
+                                break;
+                            default:
+                                last = equal(vz.y, yt);
+                                vb = new Vertex(last ? vz.x : xl, yt);
+                                break;
+                        }
+                        Edge edge = new Edge(cell.site, -1);
+                        edge.va = va;
+                        edge.vb = vb;
+                        edges.add(edge);
+                        iLeft++;
+                        halfEdges.add(iLeft, new HalfEdge(edge, cell.site, Math.atan2(vb.x - va.x, va.y - vb.y)));
+                        if (last) break;
+                        va = vb;
+                        side = (side + 1) % 4;
+                    }
+                }
+                iLeft++;
+            }
+            cell.closeMe = false;
+        }
+    }
+
+    private static boolean equal(double a, double b) {
+        return Math.abs(a - b) < EPSILON;
+    }
+
+    // ----- Scan conversion -----
+
+    private void rasterize() {
+        Point[] siteArray = sites.toArray(new Point[0]);
+        regionAssignment = new RegionRasterizer(siteArray, siteNeighbors, mapWidth, mapHeight).rasterize();
+
+        int n = siteArray.length;
+        int[] siteRGB = new int[n];
+        for (int i = 0; i < n; i++) {
+            float hue = (float) i / n;
+            siteRGB[i] = Color.HSBtoRGB(hue, 1.0f, 0.8f);
+        }
+        voronoiImage = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_RGB);
+        WritableRaster raster = voronoiImage.getRaster();
+        IntStream.range(0, mapHeight).parallel().forEach(y -> {
+            int[] row = regionAssignment.getRow(y, new int[mapWidth]);
+            for (int x = 0; x < mapWidth; x++) {
+                row[x] = siteRGB[row[x]];
+            }
+            raster.setDataElements(0, y, mapWidth, 1, row);
+        });
     }
 }
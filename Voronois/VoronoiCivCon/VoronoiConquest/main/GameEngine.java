@@ -5,33 +5,36 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 public class GameEngine implements AIContext {
     private static final Logger logger = Logger.getLogger(GameEngine.class.getName());
 
-    private int mapWidth, mapHeight, numRegions, numTeams;
-    double smartRisk;
-    private TeamControl[] teamControls;
+    private int mapWidth, mapHeight;
+
+    // Rules and region state; everything below is map, image and interaction.
+    private final GameSimulation sim;
+    private final long seed;
+    private final TeamControl[] teamControls;
+    // Records every action while non-null; see startRecording.
+    private ReplayJournal replay;
 
     // Region data.
     private Point[] sites;
-    private int[][] regionAssignment;
+    private RegionRaster regionAssignment;
     private BufferedImage voronoiImage;
-    private Color[] siteColors;
-    private int[] troops;
-    private double[] combatPower;
-    private int[] regionTeam;
-    private boolean[] isBastion;
-    private boolean[][] adjacent;
-
-    // Turn and team data.
-    private int currentTeam = 0;
-    private String[] teamNames;
-    private float[] teamHues;
+    private RegionBoundaries boundaries;
+    private RegionSpans spans;
+    // Built on the first map edit; null while the sites are all collinear.
+    private DelaunayTriangulation triangulation;
 
     // Interaction state.
     private int selectedRegion = -1;
@@ -39,62 +42,143 @@ public class GameEngine implements AIContext {
     private int mouseX = 0, mouseY = 0;
     private int lastMoveSource = -1, lastMoveDest = -1;
 
-    private Random rand = new Random();
-
-    // ExecutorService for AI computations.
-    private final ExecutorService aiExecutor = Executors.newFixedThreadPool(2);
-
-    // Game over flag.
-    private boolean gameOver = false;
+    // AI turns run on a scheduler shared by every open game.
+    private AIScheduler aiScheduler = AIScheduler.getShared();
+    private Future<?> pendingAITurn;
+    private boolean disposed;
+    // Thinks ahead for the next AI team while a hot-seat player decides.
+    private final mods.Ponderer ponderer = new mods.Ponderer();
 
     public GameEngine(int mapWidth, int mapHeight, int numRegions, int numTeams, TeamControl[] teamControls, double smartRisk) {
+        this(mapWidth, mapHeight, numRegions, numTeams, teamControls, smartRisk, new Random().nextLong());
+    }
+
+    /** Same as the main constructor, but sites, troops and AI choices all come from {@code seed}. */
+    public GameEngine(int mapWidth, int mapHeight, int numRegions, int numTeams, TeamControl[] teamControls, double smartRisk, long seed) {
         this.mapWidth = mapWidth;
         this.mapHeight = mapHeight;
-        this.numRegions = numRegions;
-        this.numTeams = numTeams;
-        this.teamControls = teamControls;
-        this.smartRisk = smartRisk;
-        initTeams();
-        initRegions();
-    }
-
-    private void initTeams() {
-        teamNames = new String[numTeams];
-        teamHues = new float[numTeams];
-        String[] availableNames = {"Red", "Blue", "Green", "Yellow", "Purple"};
-        float[] availableHues = {0.0f, 0.67f, 0.33f, 0.15f, 0.83f};
-        for (int i = 0; i < numTeams; i++) {
-            teamNames[i] = availableNames[i];
-            teamHues[i] = availableHues[i];
-        }
+        this.seed = seed;
+        this.teamControls = teamControls.clone();
+        Random rand = new Random(seed);
+        sim = new GameSimulation(numRegions, numTeams, teamControls, smartRisk, rand);
+        initRegions(rand);
+    }
+
+    /**
+     * A seeded game with its Voronoi map, adjacency and image already built,
+     * as {@link GamePanel} has them once its background work is done. For
+     * tests, benchmarks and tools that need a playable engine at once.
+     */
+    public static GameEngine withVoronoiMap(int mapWidth, int mapHeight, int numRegions, TeamControl[] teamControls,
+                                            double smartRisk, long seed) {
+        GameEngine engine = new GameEngine(mapWidth, mapHeight, numRegions, teamControls.length, teamControls, smartRisk, seed);
+        FortuneVoronoi voronoi = new FortuneVoronoi(engine.getSites(), mapWidth, mapHeight);
+        engine.setRegionAssignment(voronoi.getRegionAssignment());
+        engine.setVoronoiImage(voronoi.getVoronoiImage());
+        engine.refreshVoronoiImage();
+        return engine;
+    }
+
+    // Restores a saved game; see load.
+    private GameEngine(SaveGame save) {
+        mapWidth = save.getMapWidth();
+        mapHeight = save.getMapHeight();
+        seed = save.getSeed();
+        teamControls = save.getTeamControls();
+        sim = new GameSimulation(save.getState().getNumRegions(), teamControls.length, teamControls,
+                save.getSmartRisk(), new Random(seed));
+        sim.setState(save.getState());
+        sim.setRegionGraph(save.getRegionGraph());
+        sites = save.getSites();
+        regionAssignment = save.getRaster();
+        boundaries = save.getRegionBoundaries();
+        spans = save.getRegionSpans();
+    }
+
+    /**
+     * Opens a game written by {@link #save}. The Voronoi map, adjacency and
+     * the outline and span indexes come from the file rather than being
+     * recomputed, so loading does not read the raster; the AI random stream
+     * restarts from the game's seed. The caller still has to create an image.
+     */
+    public static GameEngine load(Path file) throws IOException {
+        return new GameEngine(SaveGame.load(file));
+    }
+
+    /** Writes the map, adjacency and region state to {@code file}. */
+    public void save(Path file) throws IOException {
+        requireMap();
+        new SaveGame(mapWidth, mapHeight, seed, teamControls, sim.getSmartRisk(), sites,
+                sim.getState(), sim.getRegionGraph(), regionAssignment, boundaries, spans).write(file);
+    }
+
+    private void initRegions(Random rand) {
+        sites = sim.dealRegions(mapWidth, mapHeight, rand);
     }
 
-    private void initRegions() {
-        sites = new Point[numRegions];
-        siteColors = new Color[numRegions];
-        troops = new int[numRegions];
-        combatPower = new double[numRegions];
-        regionTeam = new int[numRegions];
-        isBastion = new boolean[numRegions];
-        adjacent = new boolean[numRegions][numRegions];
-        for (int i = 0; i < numRegions; i++) {
-            troops[i] = rand.nextInt(41) + 10;
-            isBastion[i] = false;
-            combatPower[i] = troops[i];
-            regionTeam[i] = i % numTeams;
-            float brightness = computeBrightness(troops[i]);
-            sites[i] = new Point(rand.nextInt(mapWidth), rand.nextInt(mapHeight));
-            siteColors[i] = Color.getHSBColor(teamHues[regionTeam[i]], 1.0f, brightness);
+    // --- Replay recording ---
+
+    /**
+     * Starts writing every move, reinforce, bastion, end of turn and map edit
+     * to {@code file}, beginning with the current position. A failed write
+     * stops the recording without stopping the game.
+     */
+    public void startRecording(Path file, int keyframeInterval) throws IOException {
+        stopRecording();
+        replay = ReplayJournal.create(file, seed, mapWidth, mapHeight, teamControls, sim.getSmartRisk(),
+                keyframeInterval, sim.getState(), sites);
+    }
+
+    /** Flushes and closes the recording, if any. */
+    public void stopRecording() throws IOException {
+        if (replay == null) return;
+        ReplayJournal journal = replay;
+        replay = null;
+        journal.close();
+    }
+
+    private interface JournalWrite {
+        void write(ReplayJournal journal) throws IOException;
+    }
+
+    private void record(JournalWrite write) {
+        if (replay == null) return;
+        try {
+            write.write(replay);
+        } catch (IOException ex) {
+            logger.warning("Replay recording stopped: " + ex);
+            try {
+                stopRecording();
+            } catch (IOException ignored) { }
         }
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    /** The Swing-free rules and state behind this engine. */
+    public GameSimulation getSimulation() {
+        return sim;
+    }
+
     public Point[] getSites() {
         return sites;
     }
 
-    public void setRegionAssignment(int[][] assignment) {
+    public void setRegionAssignment(RegionRaster assignment) {
         this.regionAssignment = assignment;
         computeAdjacency();
+        boundaries = RegionBoundaries.build(assignment, sim.getNumRegions());
+        spans = RegionSpans.build(assignment, sim.getNumRegions());
+    }
+
+    public RegionRaster getRegionAssignment() {
+        return regionAssignment;
+    }
+
+    public BufferedImage getVoronoiImage() {
+        return voronoiImage;
     }
 
     public void setVoronoiImage(BufferedImage image) {
@@ -105,86 +189,314 @@ public class GameEngine implements AIContext {
         updateVoronoiImage();
     }
 
-    // AI turn initiation uses the generalized AIManager.
+    // AI turns: the move is chosen on the AI scheduler from a snapshot taken
+    // here, then applied on the EDT. A hot-seat turn ponders instead.
     public void startTurnIfAI() {
-        if (gameOver) return;
-        if (teamControls[currentTeam] != TeamControl.HOTSEAT) {
-            aiExecutor.submit(() -> {
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException ex) { }
-                mods.AIManager.doMove(this);
-            });
+        if (disposed || sim.isGameOver()) return;
+        int team = sim.getCurrentTeam();
+        if (sim.getTeamControl() != TeamControl.HOTSEAT) {
+            cancelAITurn();
+            GameSimulation position = snapshot();
+            pendingAITurn = aiScheduler.schedule(() -> ponderer.chooseMove(position),
+                    move -> SwingUtilities.invokeLater(() -> playAIMove(team, move)));
+        } else {
+            ponderer.ponder(sim);
+        }
+    }
+
+    // A headless copy of the game for the AI thread, so nothing the EDT does
+    // meanwhile can tear what the AI reads. It shares the game's random stream.
+    private GameSimulation snapshot() {
+        GameSimulation copy = new GameSimulation(sim.getNumRegions(), teamControls.length, teamControls,
+                sim.getSmartRisk(), sim.getRand());
+        copy.setRegionGraph(sim.getRegionGraph());
+        copy.setState(sim.getState());
+        return copy;
+    }
+
+    private void cancelAITurn() {
+        if (pendingAITurn != null) {
+            pendingAITurn.cancel(false);
+            pendingAITurn = null;
+        }
+    }
+
+    /** Background thinking for this game's AI teams, with its budget and hit counts. */
+    public mods.Ponderer getPonderer() {
+        return ponderer;
+    }
+
+    /** Uses {@code scheduler} for later AI turns, e.g. one with no think delay. */
+    public void setAIScheduler(AIScheduler scheduler) {
+        this.aiScheduler = scheduler;
+    }
+
+    /**
+     * Ends this game: cancels a pending AI turn and any pondering, ignores the
+     * move of a turn that is already thinking and closes any recording. Safe
+     * to call again.
+     */
+    public void dispose() {
+        disposed = true;
+        cancelAITurn();
+        ponderer.cancel();
+        try {
+            stopRecording();
+        } catch (IOException ex) {
+            logger.warning("Could not close the replay recording: " + ex);
         }
     }
 
-    private float computeBrightness(int troopCount) {
-        float brightness = 0.8f - (troopCount - 10) * 0.004f;
-        return Math.max(0.3f, brightness);
+    private void playAIMove(int team, Move move) {
+        if (disposed || sim.isGameOver() || sim.getCurrentTeam() != team) return;
+        pendingAITurn = null;
+        String name = sim.getTeamNames()[team] + " (" + sim.getTeamControl() + ")";
+        if (move == null) {
+            logger.info(name + " has no move. Skipping turn.");
+        } else {
+            logger.info(name + " plays " + move);
+            apply(move);
+        }
+        endTurn();
     }
 
     private void computeAdjacency() {
         if (regionAssignment == null) return;
-        int width = regionAssignment.length;
-        int height = regionAssignment[0].length;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                int region = regionAssignment[x][y];
-                if (x < width - 1) {
-                    int neighbor = regionAssignment[x + 1][y];
-                    if (region != neighbor) {
-                        adjacent[region][neighbor] = true;
-                        adjacent[neighbor][region] = true;
+        sim.setRegionGraph(RegionGraph.fromRaster(regionAssignment, sim.getNumRegions()));
+    }
+
+    // --- Map editing ---
+
+    /** Founds a new region at (x, y) for {@code team} and returns its index. */
+    public int addRegion(int x, int y, int team, int troopCount) {
+        requireMap();
+        if (!isValidCoordinate(x, y)) throw new IllegalArgumentException("Site outside the map: " + x + ", " + y);
+        if (team < 0 || team >= sim.getNumTeams()) throw new IllegalArgumentException("No such team: " + team);
+        DelaunayTriangulation mesh = triangulation();
+        int region = sim.getNumRegions();
+        int hint = regionAssignment.at(x, y);
+        resizeRegions(region + 1);
+        sites[region] = new Point(x, y);
+        sim.initRegion(region, team, troopCount);
+        regionAssignment = regionAssignment.widenedFor(region + 1);
+        if (mesh == null) {
+            rebuildMap();
+        } else {
+            refreshCells(mesh.insert(region, x, y, hint));
+        }
+        record(journal -> journal.recordAddRegion(x, y, team, troopCount));
+        return region;
+    }
+
+    /** Moves the site of {@code region} to (x, y), redrawing only the cells that change. */
+    public void moveRegion(int region, int x, int y) {
+        requireMap();
+        requireRegion(region);
+        if (!isValidCoordinate(x, y)) throw new IllegalArgumentException("Site outside the map: " + x + ", " + y);
+        DelaunayTriangulation mesh = triangulation();
+        int[] changed = mesh == null ? null : mesh.move(region, x, y);
+        sites[region] = new Point(x, y);
+        if (mesh == null || !mesh.isPlanar()) {
+            rebuildMap();
+        } else {
+            refreshCells(changed);
+        }
+        record(journal -> journal.recordMoveSite(region, x, y));
+    }
+
+    /**
+     * Removes {@code region} from the map; its pixels go to the neighbouring
+     * regions. The last region takes over the freed index so the arrays stay dense.
+     */
+    public void removeRegion(int region) {
+        requireMap();
+        requireRegion(region);
+        if (sim.getNumRegions() <= 1) throw new IllegalStateException("Cannot remove the last region");
+        int last = sim.getNumRegions() - 1;
+        int[] removed = triangulation() == null ? null : triangulation.remove(region);
+        if (removed == null || !triangulation.isPlanar()) {
+            moveRegionData(last, region);
+            resizeRegions(last);
+            rebuildMap();
+        } else {
+            int[] relabelled = region == last ? new int[0] : triangulation.relabel(last, region);
+            moveRegionData(last, region);
+            int[] changed = Arrays.copyOf(removed, removed.length + relabelled.length);
+            System.arraycopy(relabelled, 0, changed, removed.length, relabelled.length);
+            refreshCells(changed);
+            resizeRegions(last);
+        }
+        record(journal -> journal.recordRemoveRegion(region));
+    }
+
+    private void requireMap() {
+        if (regionAssignment == null) throw new IllegalStateException("The map has not been built yet");
+    }
+
+    private void requireRegion(int region) {
+        if (region < 0 || region >= sim.getNumRegions()) throw new IllegalArgumentException("No such region: " + region);
+    }
+
+    private DelaunayTriangulation triangulation() {
+        if (triangulation == null || !triangulation.isPlanar()) {
+            triangulation = new DelaunayTriangulation(sites);
+            if (!triangulation.isPlanar()) {
+                triangulation = null;
+            }
+        }
+        return triangulation;
+    }
+
+    // Rebuilds everything from scratch; only used while the sites are degenerate.
+    private void rebuildMap() {
+        triangulation = null;
+        regionAssignment = new FortuneVoronoi(sites, mapWidth, mapHeight).getRegionAssignment();
+        computeAdjacency();
+        boundaries = RegionBoundaries.build(regionAssignment, sim.getNumRegions());
+        spans = RegionSpans.build(regionAssignment, sim.getNumRegions());
+        updateVoronoiImage();
+    }
+
+    // Copies the data of region from into region to, fixing up interaction state that refers to either.
+    private void moveRegionData(int from, int to) {
+        if (selectedRegion == to) selectedRegion = -1;
+        if (highlightedRegion == to) highlightedRegion = -1;
+        if (lastMoveSource == to || lastMoveDest == to) lastMoveSource = lastMoveDest = -1;
+        if (from == to) return;
+        sites[to] = sites[from];
+        sim.copyRegion(from, to);
+        if (selectedRegion == from) selectedRegion = to;
+        if (highlightedRegion == from) highlightedRegion = to;
+        if (lastMoveSource == from) lastMoveSource = to;
+        if (lastMoveDest == from) lastMoveDest = to;
+    }
+
+    private void resizeRegions(int count) {
+        sites = Arrays.copyOf(sites, count);
+        sim.resizeRegions(count);
+        boundaries.resize(count);
+        spans.resize(count);
+    }
+
+    /**
+     * Recomputes the pixels, colours and adjacency of the given regions after a
+     * site edit. Only pixels currently owned by a changed region can change
+     * owner, and their new owners are changed regions too, so the changed cells'
+     * bounds cover every pixel that needs work. Each cell is handled on its own
+     * so a move across the map does not sweep everything in between.
+     */
+    private void refreshCells(int[] changed) {
+        int numRegions = sim.getNumRegions();
+        boolean[] dirty = new boolean[numRegions];
+        List<Rectangle> cells = new ArrayList<>();
+        Rectangle[] cellOf = new Rectangle[numRegions];
+        int hint = -1;
+        for (int region : changed) {
+            dirty[region] = true;
+            Rectangle cell = triangulation.cellBounds(region, mapWidth, mapHeight);
+            if (cell != null) {
+                cells.add(cell);
+                hint = region;
+            }
+            cellOf[region] = cell;
+        }
+        int[] regionRGB = sim.getRegionColors();
+        int[] row = new int[mapWidth];
+        int[] rgb = new int[mapWidth];
+        for (Rectangle cell : cells) {
+            int x0 = cell.x, x1 = cell.x + cell.width;
+            for (int y = cell.y; y < cell.y + cell.height; y++) {
+                regionAssignment.getRow(y, row);
+                for (int x = x0; x < x1; x++) {
+                    if (dirty[row[x]]) {
+                        hint = triangulation.nearest(hint, x, y);
+                        row[x] = hint;
                     }
+                    rgb[x - x0] = regionRGB[row[x]];
                 }
-                if (y < height - 1) {
-                    int neighbor = regionAssignment[x][y + 1];
-                    if (region != neighbor) {
-                        adjacent[region][neighbor] = true;
-                        adjacent[neighbor][region] = true;
-                    }
+                regionAssignment.setRow(y, row);
+                if (voronoiImage != null) {
+                    voronoiImage.setRGB(x0, y, cell.width, 1, rgb, 0, cell.width);
+                }
+            }
+        }
+        RegionGraph.PairSet pairs = new RegionGraph.PairSet();
+        for (Rectangle cell : cells) {
+            collectAdjacency(cell, dirty, pairs);
+        }
+        sim.setRegionGraph(sim.getRegionGraph().replaceEdges(dirty, pairs.toArray(), numRegions));
+        // Pixels of the other regions kept their owners, so their outlines still hold.
+        for (int region : changed) {
+            boundaries.update(regionAssignment, region, cellOf[region]);
+            spans.update(regionAssignment, region, cellOf[region]);
+        }
+    }
+
+    // Collects pairs touching a changed region, one pixel past the cell bounds.
+    private void collectAdjacency(Rectangle cell, boolean[] dirty, RegionGraph.PairSet pairs) {
+        int x0 = Math.max(0, cell.x - 1), x1 = Math.min(mapWidth, cell.x + cell.width + 1);
+        int y0 = Math.max(0, cell.y - 1), y1 = Math.min(mapHeight, cell.y + cell.height + 1);
+        int[] row = regionAssignment.getRow(y0, new int[mapWidth]);
+        int[] nextRow = new int[mapWidth];
+        for (int y = y0; y < y1; y++) {
+            if (y < mapHeight - 1) {
+                regionAssignment.getRow(y + 1, nextRow);
+            }
+            for (int x = x0; x < x1; x++) {
+                int region = row[x];
+                if (x < mapWidth - 1) {
+                    addPair(region, row[x + 1], dirty, pairs);
+                }
+                if (y < mapHeight - 1) {
+                    addPair(region, nextRow[x], dirty, pairs);
                 }
             }
+            int[] swap = row;
+            row = nextRow;
+            nextRow = swap;
+        }
+    }
+
+    private static void addPair(int a, int b, boolean[] dirty, RegionGraph.PairSet pairs) {
+        if (a != b && (dirty[a] || dirty[b])) {
+            pairs.add(a, b);
         }
     }
 
     public void handleMouseClick(int worldX, int worldY, MouseEvent e) {
-        if (gameOver) return;
+        if (sim.isGameOver()) return;
         if (regionAssignment == null) return;
+        // The board is the AI's while it thinks.
+        if (sim.getTeamControl() != TeamControl.HOTSEAT) return;
         int x = worldX;
         int y = worldY;
         if (!isValidCoordinate(x, y)) return;
-        int clickedRegion = regionAssignment[x][y];
+        int clickedRegion = regionAssignment.at(x, y);
+        int currentTeam = sim.getCurrentTeam();
+        GameState state = sim.getState();
 
         if (SwingUtilities.isRightMouseButton(e)) {
-            if (regionTeam[clickedRegion] == currentTeam && troops[clickedRegion] >= 10) {
+            if (state.getTeam(clickedRegion) == currentTeam && state.getTroops(clickedRegion) >= 10) {
                 executeReinforce(clickedRegion, clickedRegion);
                 logger.info("Player reinforced region " + clickedRegion + " with 100% bonus.");
-                if (teamControls[currentTeam] == TeamControl.HOTSEAT) {
-                    endTurn();
-                }
+                endTurn();
             }
             return;
         }
 
         if (e.getClickCount() >= 2) {
-            if (!isBastion[clickedRegion]) {
-                isBastion[clickedRegion] = true;
-                combatPower[clickedRegion] = troops[clickedRegion] * 1.5;
+            if (makeBastion(clickedRegion)) {
                 logger.info("Region " + clickedRegion + " turned into a bastion.");
-                updateRegionStats(clickedRegion);
-                updateVoronoiImage();
             }
             return;
         }
 
-        if (teamControls[currentTeam] != TeamControl.HOTSEAT) return;
         if (selectedRegion == -1) {
-            if (regionTeam[clickedRegion] != currentTeam) {
-                logger.info("Not your region. Current turn: " + teamNames[currentTeam]);
+            if (state.getTeam(clickedRegion) != currentTeam) {
+                logger.info("Not your region. Current turn: " + sim.getTeamNames()[currentTeam]);
                 return;
             }
-            if (troops[clickedRegion] <= 0) {
+            if (state.getTroops(clickedRegion) <= 0) {
                 logger.info("Region " + clickedRegion + " has no troops.");
                 return;
             }
@@ -195,11 +507,11 @@ public class GameEngine implements AIContext {
                 selectedRegion = -1;
                 return;
             }
-            if (!adjacent[selectedRegion][clickedRegion]) {
+            if (!sim.getRegionGraph().isAdjacent(selectedRegion, clickedRegion)) {
                 logger.info("Region " + clickedRegion + " is not adjacent to region " + selectedRegion);
                 return;
             }
-            if (regionTeam[selectedRegion] == regionTeam[clickedRegion]) {
+            if (state.getTeam(selectedRegion) == state.getTeam(clickedRegion)) {
                 executeReinforce(selectedRegion, clickedRegion);
                 selectedRegion = -1;
                 logger.info("Player reinforced region " + clickedRegion);
@@ -213,12 +525,12 @@ public class GameEngine implements AIContext {
     }
 
     public void handleMouseMove(int worldX, int worldY, MouseEvent e) {
-        if (gameOver) return;
+        if (sim.isGameOver()) return;
         if (regionAssignment == null) return;
         mouseX = worldX;
         mouseY = worldY;
         if (isValidCoordinate(mouseX, mouseY)) {
-            highlightedRegion = regionAssignment[mouseX][mouseY];
+            highlightedRegion = regionAssignment.at(mouseX, mouseY);
         } else {
             highlightedRegion = -1;
         }
@@ -233,9 +545,11 @@ public class GameEngine implements AIContext {
             g2d.drawImage(voronoiImage, 0, 0, null);
         }
         g2d.setColor(Color.BLACK);
-        g2d.drawString("Current Turn: " + teamNames[currentTeam] + " (" + teamControls[currentTeam] + ")", 10, 20);
+        int team = sim.getCurrentTeam();
+        g2d.drawString("Current Turn: " + sim.getTeamNames()[team] + " (" + sim.getTeamControl() + ") | Regions: "
+                + sim.getState().getTeamRegions(team) + " | Troops: " + sim.getState().getTeamTroops(team), 10, 20);
         if (highlightedRegion != -1) {
-            String text = "Troops: " + troops[highlightedRegion] + " | Power: " + String.format("%.1f", combatPower[highlightedRegion]);
+            String text = "Troops: " + sim.getState().getTroops(highlightedRegion) + " | Power: " + String.format("%.1f", sim.getState().getCombatPower(highlightedRegion));
             Font originalFont = g2d.getFont();
             g2d.setFont(new Font("SansSerif", Font.BOLD, 14));
             FontMetrics fm = g2d.getFontMetrics();
@@ -247,21 +561,9 @@ public class GameEngine implements AIContext {
             g2d.drawString(text, mouseX + 10, mouseY + 10);
             g2d.setFont(originalFont);
         }
-        if (selectedRegion != -1) {
+        if (selectedRegion != -1 && boundaries != null) {
             g2d.setColor(Color.BLACK);
-            for (int x = 0; x < mapWidth; x++) {
-                for (int y = 0; y < mapHeight; y++) {
-                    if (regionAssignment[x][y] == selectedRegion) {
-                        boolean isBoundary = (x == 0 || regionAssignment[x - 1][y] != selectedRegion) ||
-                                             (x == mapWidth - 1 || regionAssignment[x + 1][y] != selectedRegion) ||
-                                             (y == 0 || regionAssignment[x][y - 1] != selectedRegion) ||
-                                             (y == mapHeight - 1 || regionAssignment[x][y + 1] != selectedRegion);
-                        if (isBoundary) {
-                            g2d.drawRect(x, y, 1, 1);
-                        }
-                    }
-                }
-            }
+            boundaries.draw(g2d, selectedRegion);
         }
         if (lastMoveSource != -1 && lastMoveDest != -1) {
             g2d.setColor(Color.MAGENTA);
@@ -288,136 +590,103 @@ public class GameEngine implements AIContext {
         logger.info("Moving troops from region " + source + " to region " + dest);
         lastMoveSource = source;
         lastMoveDest = dest;
-        if (siteColors[source].equals(siteColors[dest])) {
-            troops[dest] += troops[source];
-            troops[source] = 0;
-        } else {
-            double sourcePower = combatPower[source];
-            double destPower = combatPower[dest];
-            if (sourcePower > destPower) {
-                double multiplier = isBastion[source] ? 1.5 : 1.0;
-                int newTroops = (int) Math.floor((sourcePower - destPower) / multiplier);
-                troops[dest] = newTroops;
-                regionTeam[dest] = regionTeam[source];
-                siteColors[dest] = siteColors[source];
-                isBastion[dest] = isBastion[source];
-                troops[source] = 0;
-            } else {
-                double multiplier = isBastion[dest] ? 1.5 : 1.0;
-                int newTroops = (int) Math.floor((destPower - sourcePower) / multiplier);
-                troops[dest] = newTroops;
-                troops[source] = 0;
-            }
-        }
-        updateRegionStats(source);
-        updateRegionStats(dest);
-        updateVoronoiImage();
+        sim.executeMove(source, dest);
+        record(journal -> journal.recordMove(source, dest));
+        recolorDirtyRegions();
+        fireRegionsChanged(source, dest);
     }
 
     public void executeReinforce(int source, int dest) {
         lastMoveSource = source;
         lastMoveDest = dest;
-        troops[dest] += 2 * troops[source];
-        troops[source] = 0;
-        updateRegionStats(source);
-        updateRegionStats(dest);
-        updateVoronoiImage();
+        sim.executeReinforce(source, dest);
+        record(journal -> journal.recordReinforce(source, dest));
+        recolorDirtyRegions();
+        fireRegionsChanged(source, dest);
         logger.info("Reinforced region " + dest + " with a 100% bonus.");
     }
 
-    private void updateRegionStats(int regionIndex) {
-        float brightness = computeBrightness(troops[regionIndex]);
-        int team = regionTeam[regionIndex];
-        siteColors[regionIndex] = Color.getHSBColor(teamHues[team], 1.0f, brightness);
-        double baseMultiplier = isBastion[regionIndex] ? 1.5 : 1.0;
-        combatPower[regionIndex] = troops[regionIndex] * baseMultiplier;
-    }
-
     public void updateVoronoiImage() {
         if (voronoiImage == null || regionAssignment == null) return;
-        int width = regionAssignment.length;
-        int height = regionAssignment[0].length;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                int region = regionAssignment[x][y];
-                voronoiImage.setRGB(x, y, siteColors[region].getRGB());
+        int width = regionAssignment.getWidth();
+        int height = regionAssignment.getHeight();
+        int[] regionRGB = sim.getRegionColors();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            regionAssignment.getRow(y, row);
+            for (int x = 0; x < width; x++) {
+                row[x] = regionRGB[row[x]];
             }
+            voronoiImage.setRGB(0, y, width, 1, row, 0, width);
         }
+        sim.getRecolored().clear();
     }
 
-    public void endTurn() {
-        if (gameOver) return;
-        for (int i = 0; i < numRegions; i++) {
-            troops[i] += 5;
-            updateRegionStats(i);
+    // Repaints only the regions whose colour changed, span by span.
+    private void recolorDirtyRegions() {
+        if (voronoiImage == null || spans == null) return;
+        BitSet recolored = sim.getRecolored();
+        int[] regionRGB = sim.getRegionColors();
+        for (int i = recolored.nextSetBit(0); i >= 0; i = recolored.nextSetBit(i + 1)) {
+            spans.fill(voronoiImage, i, regionRGB[i]);
         }
-        updateVoronoiImage();
+        recolored.clear();
+    }
+
+    /** Turns {@code region} into a bastion; returns false if it already was one. */
+    public boolean makeBastion(int region) {
+        if (!sim.makeBastion(region)) return false;
+        record(journal -> journal.recordBastion(region));
+        recolorDirtyRegions();
+        EventBus.getInstance().fireEvent(new RegionChangedEvent(region));
+        return true;
+    }
+
+    private static void fireRegionsChanged(int source, int dest) {
+        EventBus bus = EventBus.getInstance();
+        bus.fireEvent(new RegionChangedEvent(source));
+        if (dest != source) bus.fireEvent(new RegionChangedEvent(dest));
+    }
+
+    /** Ends the turn in the simulation, then repaints, reports and starts the next AI turn. */
+    public void endTurn() {
+        if (sim.isGameOver()) return;
+        sim.endTurn();
+        record(journal -> journal.recordEndTurn(sim.getState(), sites));
+        recolorDirtyRegions();
         selectedRegion = -1;
-        currentTeam = (currentTeam + 1) % numTeams;
-        while (!teamHasTiles(currentTeam)) {
-            logger.info("Skipping turn for " + teamNames[currentTeam] + " (no tiles).");
-            currentTeam = (currentTeam + 1) % numTeams;
-        }
-        if (checkVictory()) {
-            gameOver = true;
-            int winningTeam = regionTeam[0];
-            JOptionPane.showMessageDialog(null, teamNames[winningTeam] + " wins!");
+        int currentTeam = sim.getCurrentTeam();
+        String[] teamNames = sim.getTeamNames();
+        if (sim.isGameOver()) {
+            int winningTeam = sim.getWinner();
+            if (!GraphicsEnvironment.isHeadless()) {
+                JOptionPane.showMessageDialog(null, teamNames[winningTeam] + " wins!");
+            }
             logger.info(teamNames[winningTeam] + " wins!");
             // Fire turn ended event with victory info
             EventBus.getInstance().fireEvent(new TurnEndedEvent(currentTeam));
             return;
         }
-        logger.info("Turn ended. Current turn: " + teamNames[currentTeam] + " (" + teamControls[currentTeam] + ")");
+        logger.info("Turn ended. Current turn: " + teamNames[currentTeam] + " (" + sim.getTeamControl() + ")");
         // Fire event indicating turn has ended
         EventBus.getInstance().fireEvent(new TurnEndedEvent(currentTeam));
-        if (teamControls[currentTeam] != TeamControl.HOTSEAT) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException ex) { }
-                SwingUtilities.invokeLater(() -> {
-                    mods.AIManager.doMove(this);
-                });
-            }).start();
-        }
-    }
-
-    private boolean teamHasTiles(int team) {
-        for (int i = 0; i < numRegions; i++) {
-            if (regionTeam[i] == team) return true;
-        }
-        return false;
-    }
-
-    private boolean checkVictory() {
-        int firstTeam = regionTeam[0];
-        for (int i = 1; i < numRegions; i++) {
-            if (regionTeam[i] != firstTeam) return false;
-        }
-        return true;
-    }
-
-    private void doDumbAIMove() {
-        // Now delegated via AIManager in startTurnIfAI
-    }
-
-    private void doSmartAIMove() {
-        // Now delegated via AIManager in startTurnIfAI
+        startTurnIfAI();
     }
 
     // --- AIContext Getters ---
-    public int getNumRegions() { return numRegions; }
-    public int[] getRegionTeam() { return regionTeam; }
-    public int[] getTroops() { return troops; }
-    public boolean[][] getAdjacent() { return adjacent; }
-    public double[] getCombatPower() { return combatPower; }
-    public String[] getTeamNames() { return teamNames; }
-    public int getCurrentTeam() { return currentTeam; }
-    public Random getRand() { return rand; }
-    public double getSmartRisk() { return smartRisk; }
+    public int getNumRegions() { return sim.getNumRegions(); }
+    public GameState getState() { return sim.getState(); }
+    public RegionGraph getRegionGraph() { return sim.getRegionGraph(); }
+    public RegionBoundaries getRegionBoundaries() { return boundaries; }
+    public RegionSpans getRegionSpans() { return spans; }
+    public String[] getTeamNames() { return sim.getTeamNames(); }
+    public int getCurrentTeam() { return sim.getCurrentTeam(); }
+    public Random getRand() { return sim.getRand(); }
+    public double getSmartRisk() { return sim.getSmartRisk(); }
+    public boolean isGameOver() { return sim.isGameOver(); }
     
     // New method to return current team's control type.
     public TeamControl getTeamControl() {
-        return teamControls[currentTeam];
+        return sim.getTeamControl();
     }
 }
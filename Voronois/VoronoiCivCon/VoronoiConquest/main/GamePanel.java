@@ -83,6 +83,11 @@ public class GamePanel extends JPanel {
         });
     }
 
+    /** Stops the game shown by this panel; see {@link GameEngine#dispose()}. */
+    public void disposeGame() {
+        engine.dispose();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -0,0 +1,355 @@
+// File: main/GameSimulation.java
+package main;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * The game rules and region state, with no rendering, dialogs or threads.
+ *
+ * Play is driven by explicit {@link #apply(Move)} and {@link #endTurn()}
+ * calls, so AI-vs-AI games can run in a loop on a machine without a display.
+ * {@link GameEngine} wraps one of these and adds the map, the image and the
+ * Swing side. The map only reaches the simulation as a {@link RegionGraph}.
+ *
+ * Everything the rules read or write lives in one {@link GameState}; the
+ * simulation adds the fixed setup (teams, controls, graph) and a colour cache
+ * for the renderer.
+ */
+public class GameSimulation implements AIContext {
+    static final String[] TEAM_NAMES = {"Red", "Blue", "Green", "Yellow", "Purple"};
+    private static final float[] TEAM_HUES = {0.0f, 0.67f, 0.33f, 0.15f, 0.83f};
+    // Troops every region gains at the end of each turn.
+    static final int TURN_GROWTH = 5;
+    // Brightness bottoms out by 136 troops, so one ARGB entry per team and
+    // troop count below that covers every colour a region can have.
+    private static final int PALETTE_TROOPS = 137;
+    private static final int[][] PALETTE = buildPalette();
+
+    private final int numTeams;
+    private final String[] teamNames;
+    private final TeamControl[] teamControls;
+    private final double smartRisk;
+    private final Random rand;
+
+    private final GameState state;
+    // Packed ARGB colour of each region as last drawn; always regionColor(state, i).
+    private int[] regionColors;
+    private RegionGraph adjacency;
+    // Regions whose colour changed since the renderer last cleared this set.
+    private final BitSet recolored = new BitSet();
+    // Set when troops grew everywhere and regionColors has not caught up yet.
+    private boolean colorsStale;
+
+    // Undo journal for make/unmake, JOURNAL_FRAME ints per ply:
+    // source (-1 for a pass), dest, source troops, dest troops,
+    // source team | dest team << 8 | source bastion << 16 | dest bastion << 17,
+    // current team | game over << 8, troops grown at the end of the turn.
+    private static final int JOURNAL_FRAME = 7;
+    private int[] journal = new int[16 * JOURNAL_FRAME];
+    private int journalSize;
+
+    public GameSimulation(int numRegions, int numTeams, TeamControl[] teamControls, double smartRisk, Random rand) {
+        if (numTeams > TEAM_NAMES.length) throw new IllegalArgumentException("At most " + TEAM_NAMES.length + " teams");
+        this.numTeams = numTeams;
+        this.teamControls = teamControls;
+        this.smartRisk = smartRisk;
+        this.rand = rand;
+        teamNames = Arrays.copyOf(TEAM_NAMES, numTeams);
+        state = new GameState(numRegions, numTeams);
+        regionColors = new int[numRegions];
+        adjacency = RegionGraph.empty(numRegions);
+    }
+
+    /**
+     * A new game on a random Voronoi map of {@code width} by {@code height}:
+     * one team per control, regions dealt as {@link #dealRegions} does, and
+     * {@code rand} kept for the AIs. Tournaments, tests and demos all build
+     * their games this way, so one seed gives one map everywhere.
+     */
+    public static GameSimulation withVoronoiMap(int numRegions, TeamControl[] controls, double smartRisk,
+                                                int width, int height, Random rand) {
+        GameSimulation sim = new GameSimulation(numRegions, controls.length, controls, smartRisk, rand);
+        Point[] sites = sim.dealRegions(width, height, rand);
+        sim.setRegionGraph(RegionGraph.fromRaster(new FortuneVoronoi(sites, width, height).getRegionAssignment(), numRegions));
+        return sim;
+    }
+
+    /**
+     * Deals region {@code i} to team {@code i % teams} with 10 to 50 troops and
+     * places its site at random in the map; returns the sites.
+     */
+    Point[] dealRegions(int width, int height, Random rand) {
+        Point[] sites = new Point[getNumRegions()];
+        for (int i = 0; i < sites.length; i++) {
+            initRegion(i, i % numTeams, rand.nextInt(41) + 10);
+            sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+        }
+        return sites;
+    }
+
+    /** Sets up a region at the start of the game or when the map gains one. */
+    public void initRegion(int region, int team, int troopCount) {
+        state.setTroops(region, troopCount);
+        state.setTeam(region, team);
+        state.setBastion(region, false);
+        updateRegionStats(region);
+    }
+
+    // --- Map changes ---
+
+    public void setRegionGraph(RegionGraph graph) {
+        if (graph.getNumRegions() != state.getNumRegions()) {
+            throw new IllegalArgumentException("Graph has " + graph.getNumRegions() + " regions, expected " + state.getNumRegions());
+        }
+        adjacency = graph;
+    }
+
+    /** Grows or truncates every per-region array; new regions are empty until {@link #initRegion}. */
+    public void resizeRegions(int count) {
+        state.resize(count);
+        regionColors = Arrays.copyOf(regionColors, count);
+        adjacency = adjacency.resize(count);
+        recolored.clear(count, Math.max(count, recolored.length()));
+    }
+
+    /**
+     * Replaces the whole state with a copy of {@code source}, resizing to its
+     * region count; used to restore a saved or recorded position. Plies that
+     * were made but not unmade are dropped.
+     */
+    public void setState(GameState source) {
+        resizeRegions(source.getNumRegions());
+        source.copyInto(state);
+        journalSize = 0;
+        refreshColors();
+    }
+
+    /** Copies the state of region {@code from} into region {@code to}. */
+    public void copyRegion(int from, int to) {
+        state.copyRegion(from, to);
+        regionColors[to] = regionColors[from];
+    }
+
+    // --- Rules ---
+
+    public void executeMove(int source, int dest) {
+        moveTroops(source, dest);
+        updateRegionStats(source);
+        updateRegionStats(dest);
+    }
+
+    public void executeReinforce(int source, int dest) {
+        reinforceTroops(source, dest);
+        updateRegionStats(source);
+        updateRegionStats(dest);
+    }
+
+    /** Turns {@code region} into a bastion; returns false if it already was one. */
+    public boolean makeBastion(int region) {
+        if (state.isBastion(region)) return false;
+        state.setBastion(region, true);
+        updateRegionStats(region);
+        return true;
+    }
+
+    /**
+     * Gives every region 5 troops and passes the turn to the next team that
+     * still holds a region. The game is over once one team holds them all.
+     */
+    public void endTurn() {
+        if (state.isGameOver()) return;
+        advanceTurn();
+        // Every region's brightness may have changed; the renderer catches up when it asks.
+        colorsStale = true;
+    }
+
+    // --- Make / unmake ---
+
+    /**
+     * Plays one ply for the current team, {@code move} (null to pass) and then
+     * the end of the turn, recording just enough to take it back with
+     * {@link #unmake()}. Plies nest, so a search can walk down a line and
+     * back up it without copying the state.
+     *
+     * Neither method touches the colour cache: a balanced make/unmake leaves
+     * it correct, and {@link #refreshColors()} catches it up otherwise.
+     */
+    public void make(Move move) {
+        if (journalSize + JOURNAL_FRAME > journal.length) {
+            journal = Arrays.copyOf(journal, 2 * journal.length);
+        }
+        GameState st = state;
+        int at = journalSize;
+        int source = move == null ? -1 : move.getSource();
+        int dest = move == null ? -1 : move.getDest();
+        journal[at] = source;
+        journal[at + 1] = dest;
+        if (move != null) {
+            journal[at + 2] = st.getTroops(source);
+            journal[at + 3] = st.getTroops(dest);
+            journal[at + 4] = st.getTeam(source) | st.getTeam(dest) << 8
+                    | (st.isBastion(source) ? 1 << 16 : 0) | (st.isBastion(dest) ? 1 << 17 : 0);
+        }
+        journal[at + 5] = st.getCurrentTeam() | (st.isGameOver() ? 1 << 8 : 0);
+        journalSize += JOURNAL_FRAME;
+
+        if (move != null) {
+            if (move.getKind() == Move.Kind.REINFORCE) {
+                reinforceTroops(source, dest);
+            } else {
+                moveTroops(source, dest);
+            }
+        }
+        journal[at + 6] = st.isGameOver() ? 0 : TURN_GROWTH;
+        if (!st.isGameOver()) advanceTurn();
+    }
+
+    /** Takes back the last {@link #make}. */
+    public void unmake() {
+        if (journalSize == 0) throw new IllegalStateException("Nothing to unmake");
+        journalSize -= JOURNAL_FRAME;
+        GameState st = state;
+        int at = journalSize;
+        int growth = journal[at + 6];
+        st.grow(-growth);
+        int turn = journal[at + 5];
+        st.setCurrentTeam(turn & 0xFF);
+        st.setGameOver((turn >>> 8) != 0);
+        int source = journal[at];
+        if (source >= 0) {
+            int dest = journal[at + 1], flags = journal[at + 4];
+            // Dest first, so a self-reinforce ends with the source's values, which are the same.
+            st.setTroops(dest, journal[at + 3]);
+            st.setTeam(dest, (flags >>> 8) & 0xFF);
+            st.setBastion(dest, (flags & 1 << 17) != 0);
+            st.setTroops(source, journal[at + 2]);
+            st.setTeam(source, flags & 0xFF);
+            st.setBastion(source, (flags & 1 << 16) != 0);
+        }
+    }
+
+    /** Number of plies {@link #make} has recorded that have not been unmade. */
+    public int getMakeDepth() {
+        return journalSize / JOURNAL_FRAME;
+    }
+
+    /** Recomputes every region's colour from the state, marking the ones that changed. */
+    public void refreshColors() {
+        for (int i = 0; i < state.getNumRegions(); i++) {
+            updateRegionStats(i);
+        }
+        colorsStale = false;
+    }
+
+    // --- Rules on the state alone ---
+
+    private void moveTroops(int source, int dest) {
+        GameState st = state;
+        if (st.getTeam(source) == st.getTeam(dest)) {
+            st.setTroops(dest, st.getTroops(dest) + st.getTroops(source));
+            st.setTroops(source, 0);
+        } else {
+            double sourcePower = st.getCombatPower(source);
+            double destPower = st.getCombatPower(dest);
+            if (sourcePower > destPower) {
+                double multiplier = st.isBastion(source) ? 1.5 : 1.0;
+                int newTroops = (int) Math.floor((sourcePower - destPower) / multiplier);
+                st.setTroops(dest, newTroops);
+                st.setTeam(dest, st.getTeam(source));
+                st.setBastion(dest, st.isBastion(source));
+                st.setTroops(source, 0);
+            } else {
+                double multiplier = st.isBastion(dest) ? 1.5 : 1.0;
+                int newTroops = (int) Math.floor((destPower - sourcePower) / multiplier);
+                st.setTroops(dest, newTroops);
+                st.setTroops(source, 0);
+            }
+        }
+    }
+
+    private void reinforceTroops(int source, int dest) {
+        state.setTroops(dest, state.getTroops(dest) + 2 * state.getTroops(source));
+        state.setTroops(source, 0);
+    }
+
+    private void advanceTurn() {
+        state.grow(TURN_GROWTH);
+        int currentTeam = (state.getCurrentTeam() + 1) % numTeams;
+        while (state.isEliminated(currentTeam)) {
+            currentTeam = (currentTeam + 1) % numTeams;
+        }
+        state.setCurrentTeam(currentTeam);
+        if (state.getSoleOwner() >= 0) {
+            state.setGameOver(true);
+        }
+    }
+
+    /** The colour a region is drawn in: its team's hue, darker as troops grow. */
+    static int regionColor(GameState state, int region) {
+        int troops = state.getTroops(region);
+        return PALETTE[state.getTeam(region)][Math.max(0, Math.min(troops, PALETTE_TROOPS - 1))];
+    }
+
+    // Refreshes the colour cache after the state of regionIndex changed.
+    private void updateRegionStats(int regionIndex) {
+        int color = regionColor(state, regionIndex);
+        if (color != regionColors[regionIndex]) {
+            regionColors[regionIndex] = color;
+            recolored.set(regionIndex);
+        }
+    }
+
+    private static float computeBrightness(int troopCount) {
+        float brightness = 0.8f - (troopCount - 10) * 0.004f;
+        return Math.max(0.3f, brightness);
+    }
+
+    private static int[][] buildPalette() {
+        int[][] palette = new int[TEAM_HUES.length][PALETTE_TROOPS];
+        for (int team = 0; team < TEAM_HUES.length; team++) {
+            for (int troops = 0; troops < PALETTE_TROOPS; troops++) {
+                palette[team][troops] = Color.HSBtoRGB(TEAM_HUES[team], 1.0f, computeBrightness(troops));
+            }
+        }
+        return palette;
+    }
+
+    // --- Getters ---
+    public GameState getState() { return state; }
+    public int getNumRegions() { return state.getNumRegions(); }
+    public int getNumTeams() { return numTeams; }
+
+    /** Colour of every region, brought up to date first if turns have ended since the last call. */
+    public int[] getRegionColors() {
+        if (colorsStale) refreshColors();
+        return regionColors;
+    }
+
+    /** Regions whose colour changed since this set was last cleared, after the same catch-up. */
+    public BitSet getRecolored() {
+        if (colorsStale) refreshColors();
+        return recolored;
+    }
+
+    public RegionGraph getRegionGraph() { return adjacency; }
+    public String[] getTeamNames() { return teamNames; }
+    public int getCurrentTeam() { return state.getCurrentTeam(); }
+    public Random getRand() { return rand; }
+    public double getSmartRisk() { return smartRisk; }
+    public boolean isGameOver() { return state.isGameOver(); }
+
+    /** The team holding every region once the game is over, otherwise -1. */
+    public int getWinner() { return state.isGameOver() ? state.getTeam(0) : -1; }
+
+    public TeamControl getTeamControl() {
+        return teamControls[state.getCurrentTeam()];
+    }
+
+    public TeamControl getTeamControl(int team) {
+        return teamControls[team];
+    }
+}
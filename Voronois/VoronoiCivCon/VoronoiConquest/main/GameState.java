@@ -0,0 +1,340 @@
+// File: main/GameState.java
+package main;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Everything that decides the game, as a few primitive arrays: troops, team
+ * and bastion flag per region, plus whose turn it is. Combat power is derived
+ * from troops and the bastion flag rather than stored.
+ *
+ * Troops are kept as a per-region base plus one growth offset shared by all
+ * regions, so {@link #grow} (every region gains troops at the end of a turn)
+ * is O(1). The getters always return the sum.
+ *
+ * There are no AWT or engine references, so search code can keep a pool of
+ * states and refill them with {@link #copyInto} instead of allocating.
+ *
+ * Every write goes through a setter, which also keeps the number of regions,
+ * the troop total and the set of regions of each team up to date, so victory
+ * and elimination checks never have to scan the map, and move generation
+ * visits only the mover's regions.
+ *
+ * The setters also maintain a 64-bit position hash for search code; see
+ * {@link #getPositionHash()}.
+ */
+public final class GameState {
+    private final int numTeams;
+    private int numRegions;
+    // Troops of region r are troops[r] + growth.
+    private int[] troops;
+    private int growth;
+    private byte[] team;
+    // One bit per region.
+    private long[] bastions;
+    private final int[] teamRegions;
+    // The regions each team holds; bits past numRegions are always clear.
+    private final BitSet[] teamMembers;
+    // Sum of troops[r] over the team's regions, so without growth.
+    private final long[] teamTroops;
+    private int currentTeam;
+    private boolean gameOver;
+
+    // Position hash parts. keyHash XORs a Zobrist key per region team (team 0
+    // has key 0), bastion flag, current team and the game-over flag. Troops
+    // enter linearly: troopHash is the sum of troopKey(r) * troops[r] and
+    // troopKeySum the sum of troopKey(r), so growth needs no update.
+    private long keyHash;
+    private long troopHash;
+    private long troopKeySum;
+
+    public GameState(int numRegions, int numTeams) {
+        if (numTeams > Byte.MAX_VALUE) throw new IllegalArgumentException("Too many teams: " + numTeams);
+        this.numTeams = numTeams;
+        this.numRegions = numRegions;
+        troops = new int[numRegions];
+        team = new byte[numRegions];
+        bastions = new long[wordsFor(numRegions)];
+        teamRegions = new int[numTeams];
+        teamTroops = new long[numTeams];
+        teamMembers = new BitSet[numTeams];
+        for (int t = 0; t < numTeams; t++) {
+            teamMembers[t] = new BitSet(numRegions);
+        }
+        if (numTeams > 0) {
+            teamRegions[0] = numRegions;
+            teamMembers[0].set(0, numRegions);
+        }
+        for (int r = 0; r < numRegions; r++) {
+            troopKeySum += troopKey(r);
+        }
+    }
+
+    // SplitMix64 finalizer; every key is derived from its slot, so there are no key tables to size.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // The low three bits keep the key families apart.
+    private static long troopKey(int region) {
+        return mix((long) region << 3 | 1);
+    }
+
+    private static long teamKey(int region, int team) {
+        return team == 0 ? 0 : mix((long) region << 11 | team << 3 | 2);
+    }
+
+    private static long bastionKey(int region) {
+        return mix((long) region << 3 | 3);
+    }
+
+    private static long turnKey(int team) {
+        return team == 0 ? 0 : mix((long) team << 3 | 4);
+    }
+
+    private static final long GAME_OVER_KEY = mix(5);
+
+    private static int wordsFor(int numRegions) {
+        return (numRegions + 63) >>> 6;
+    }
+
+    public int getNumRegions() { return numRegions; }
+    public int getNumTeams() { return numTeams; }
+
+    public int getTroops(int region) {
+        return troops[region] + growth;
+    }
+
+    public void setTroops(int region, int count) {
+        int base = count - growth;
+        teamTroops[team[region]] += base - troops[region];
+        troopHash += troopKey(region) * (base - troops[region]);
+        troops[region] = base;
+    }
+
+    /** Adds {@code amount} troops to every region. */
+    public void grow(int amount) {
+        growth += amount;
+    }
+
+    public int getTeam(int region) {
+        return team[region];
+    }
+
+    public void setTeam(int region, int newTeam) {
+        int oldTeam = team[region];
+        if (oldTeam == newTeam) return;
+        teamRegions[oldTeam]--;
+        teamRegions[newTeam]++;
+        teamTroops[oldTeam] -= troops[region];
+        teamTroops[newTeam] += troops[region];
+        keyHash ^= teamKey(region, oldTeam) ^ teamKey(region, newTeam);
+        teamMembers[oldTeam].clear(region);
+        teamMembers[newTeam].set(region);
+        team[region] = (byte) newTeam;
+    }
+
+    /**
+     * The lowest region at or after {@code from} that {@code team} holds, or
+     * -1 if there is none; walks a team's regions in index order without
+     * looking at anyone else's.
+     */
+    public int nextRegionOf(int team, int from) {
+        return teamMembers[team].nextSetBit(from);
+    }
+
+    /** Number of regions {@code team} holds. */
+    public int getTeamRegions(int team) {
+        return teamRegions[team];
+    }
+
+    /** Troops over all regions {@code team} holds. */
+    public long getTeamTroops(int team) {
+        return teamTroops[team] + (long) teamRegions[team] * growth;
+    }
+
+    /** True once {@code team} holds no region. */
+    public boolean isEliminated(int team) {
+        return teamRegions[team] == 0;
+    }
+
+    /** The team holding every region, or -1 while two or more teams remain. */
+    public int getSoleOwner() {
+        if (numRegions == 0) return -1;
+        int owner = team[0];
+        return teamRegions[owner] == numRegions ? owner : -1;
+    }
+
+    public boolean isBastion(int region) {
+        return (bastions[region >>> 6] & (1L << region)) != 0;
+    }
+
+    public void setBastion(int region, boolean bastion) {
+        if (bastion == isBastion(region)) return;
+        keyHash ^= bastionKey(region);
+        if (bastion) {
+            bastions[region >>> 6] |= 1L << region;
+        } else {
+            bastions[region >>> 6] &= ~(1L << region);
+        }
+    }
+
+    /** Troops, times 1.5 for a bastion. */
+    public double getCombatPower(int region) {
+        return getTroops(region) * (isBastion(region) ? 1.5 : 1.0);
+    }
+
+    public int getCurrentTeam() { return currentTeam; }
+    public boolean isGameOver() { return gameOver; }
+
+    public void setCurrentTeam(int currentTeam) {
+        keyHash ^= turnKey(this.currentTeam) ^ turnKey(currentTeam);
+        this.currentTeam = currentTeam;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        if (gameOver != this.gameOver) keyHash ^= GAME_OVER_KEY;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * A 64-bit hash of exactly what {@link #equals} compares, for transposition
+     * tables: states that are equal hash the same however they were reached,
+     * and different ones collide with chance about 2^-64. It is kept up to
+     * date by the setters, so reading it is O(1).
+     *
+     * Teams, bastions and the turn use Zobrist keys. Troops are a sum of a
+     * per-region key times the troop count, which stays exact for any count
+     * and lets {@link #grow} leave it alone; the sum is mixed before it is
+     * combined with the rest.
+     */
+    public long getPositionHash() {
+        return keyHash ^ mix(troopHash + growth * troopKeySum);
+    }
+
+    /**
+     * Makes {@code target} an exact copy of this state in O(N). Nothing is
+     * allocated unless the target has room for fewer regions than this state.
+     */
+    public void copyInto(GameState target) {
+        if (target.numTeams != numTeams) throw new IllegalArgumentException("Team counts differ");
+        if (target.troops.length < numRegions) {
+            target.troops = new int[troops.length];
+            target.team = new byte[team.length];
+        }
+        if (target.bastions.length < wordsFor(numRegions)) {
+            target.bastions = new long[bastions.length];
+        }
+        System.arraycopy(troops, 0, target.troops, 0, numRegions);
+        System.arraycopy(team, 0, target.team, 0, numRegions);
+        int words = wordsFor(numRegions);
+        System.arraycopy(bastions, 0, target.bastions, 0, words);
+        System.arraycopy(teamRegions, 0, target.teamRegions, 0, numTeams);
+        System.arraycopy(teamTroops, 0, target.teamTroops, 0, numTeams);
+        for (int t = 0; t < numTeams; t++) {
+            target.teamMembers[t].clear();
+            target.teamMembers[t].or(teamMembers[t]);
+        }
+        target.numRegions = numRegions;
+        target.growth = growth;
+        target.keyHash = keyHash;
+        target.troopHash = troopHash;
+        target.troopKeySum = troopKeySum;
+        target.currentTeam = currentTeam;
+        target.gameOver = gameOver;
+    }
+
+    public GameState copy() {
+        GameState copy = new GameState(numRegions, numTeams);
+        copyInto(copy);
+        return copy;
+    }
+
+    /** Grows or truncates to {@code count} regions; new regions have no troops and team 0. */
+    public void resize(int count) {
+        for (int r = count; r < numRegions; r++) {
+            teamMembers[team[r]].clear(r);
+            teamRegions[team[r]]--;
+            teamTroops[team[r]] -= troops[r];
+            keyHash ^= teamKey(r, team[r]) ^ (isBastion(r) ? bastionKey(r) : 0);
+            troopHash -= troopKey(r) * troops[r];
+            troopKeySum -= troopKey(r);
+        }
+        if (count > numRegions) {
+            if (count > troops.length) {
+                troops = Arrays.copyOf(troops, count);
+                team = Arrays.copyOf(team, count);
+                bastions = Arrays.copyOf(bastions, wordsFor(count));
+            }
+            // Slots past the old size may hold leftovers from a shrink or a copyInto.
+            Arrays.fill(troops, numRegions, count, -growth);
+            Arrays.fill(team, numRegions, count, (byte) 0);
+            for (int r = numRegions; r < count; r++) {
+                // Cleared directly: a leftover bit is not part of the hash.
+                bastions[r >>> 6] &= ~(1L << r);
+                troopHash -= troopKey(r) * growth;
+                troopKeySum += troopKey(r);
+            }
+            teamRegions[0] += count - numRegions;
+            teamMembers[0].set(numRegions, count);
+            teamTroops[0] -= (long) (count - numRegions) * growth;
+        }
+        numRegions = count;
+    }
+
+    /** Copies troops, team and bastion flag of {@code from} onto {@code to}. */
+    public void copyRegion(int from, int to) {
+        setTeam(to, team[from]);
+        setTroops(to, getTroops(from));
+        setBastion(to, isBastion(from));
+    }
+
+    /** Fresh arrays for code that wants the old parallel-array view. */
+    public int[] troopsSnapshot() {
+        int[] copy = new int[numRegions];
+        for (int r = 0; r < numRegions; r++) {
+            copy[r] = troops[r] + growth;
+        }
+        return copy;
+    }
+
+    public int[] teamSnapshot() {
+        int[] copy = new int[numRegions];
+        for (int r = 0; r < numRegions; r++) {
+            copy[r] = team[r];
+        }
+        return copy;
+    }
+
+    public double[] combatPowerSnapshot() {
+        double[] copy = new double[numRegions];
+        for (int r = 0; r < numRegions; r++) {
+            copy[r] = getCombatPower(r);
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GameState)) return false;
+        GameState other = (GameState) o;
+        if (numRegions != other.numRegions || numTeams != other.numTeams
+                || currentTeam != other.currentTeam || gameOver != other.gameOver) {
+            return false;
+        }
+        for (int r = 0; r < numRegions; r++) {
+            if (getTroops(r) != other.getTroops(r) || team[r] != other.team[r] || isBastion(r) != other.isBastion(r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getPositionHash());
+    }
+}
@@ -4,6 +4,8 @@ import java.awt.*;
 import javax.swing.*;
 
 public class GameWindow extends JFrame {
+    private final GamePanel gamePanel;
+
     public GameWindow(int mapWidth, int mapHeight, int numRegions, int numTeams, TeamControl[] teamControls, double smartRisk) {
         super("Voronoi Conquest - Battle");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -37,8 +39,14 @@ public class GameWindow extends JFrame {
         setJMenuBar(menuBar);
 
         // Add the GamePanel to the window.
-        GamePanel gamePanel = new GamePanel(mapWidth, mapHeight, numRegions, numTeams, teamControls, smartRisk);
+        gamePanel = new GamePanel(mapWidth, mapHeight, numRegions, numTeams, teamControls, smartRisk);
         add(gamePanel, BorderLayout.CENTER);
         pack();
     }
+
+    @Override
+    public void dispose() {
+        gamePanel.disposeGame();
+        super.dispose();
+    }
 }
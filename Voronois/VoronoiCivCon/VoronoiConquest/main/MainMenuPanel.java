@@ -17,7 +17,7 @@ public class MainMenuPanel extends JPanel {
     private JFrame parentFrame;
 
     private final String[] availableNames = {"Red", "Blue", "Green", "Yellow", "Purple"};
-    private final String[] controlOptions = {"Hotseat", "Dumb AI", "Smart AI"};
+    private final String[] controlOptions = {"Hotseat", "Dumb AI", "Smart AI", "MCTS AI", "Alpha-beta AI"};
 
     public MainMenuPanel(JFrame frame) {
         this.parentFrame = frame;
@@ -96,6 +96,12 @@ public class MainMenuPanel extends JPanel {
                         case 2:
                             teamControls[i] = TeamControl.SMART;
                             break;
+                        case 3:
+                            teamControls[i] = TeamControl.MCTS;
+                            break;
+                        case 4:
+                            teamControls[i] = TeamControl.ALPHABETA;
+                            break;
                         default:
                             teamControls[i] = TeamControl.DUMB;
                             break;
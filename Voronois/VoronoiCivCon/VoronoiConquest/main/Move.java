@@ -0,0 +1,49 @@
+// File: main/Move.java
+package main;
+
+/**
+ * One player action: troops go from {@code source} to {@code dest}. A MOVE
+ * transfers to a friendly region or attacks an enemy one; a REINFORCE
+ * doubles the troops it sends.
+ */
+public final class Move {
+    public enum Kind { MOVE, REINFORCE }
+
+    private final Kind kind;
+    private final int source, dest;
+
+    public Move(Kind kind, int source, int dest) {
+        this.kind = kind;
+        this.source = source;
+        this.dest = dest;
+    }
+
+    public static Move move(int source, int dest) {
+        return new Move(Kind.MOVE, source, dest);
+    }
+
+    public static Move reinforce(int source, int dest) {
+        return new Move(Kind.REINFORCE, source, dest);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getSource() { return source; }
+    public int getDest() { return dest; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Move)) return false;
+        Move other = (Move) o;
+        return kind == other.kind && source == other.source && dest == other.dest;
+    }
+
+    @Override
+    public int hashCode() {
+        return (kind.ordinal() * 31 + source) * 31 + dest;
+    }
+
+    @Override
+    public String toString() {
+        return (kind == Kind.MOVE ? "move " : "reinforce ") + source + " -> " + dest;
+    }
+}
@@ -0,0 +1,131 @@
+// File: main/MoveGenerator.java
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Lists the current team's moves into a reusable buffer of packed longs,
+ * without allocating once the buffer has grown to fit.
+ *
+ * A move goes from a region the team holds with troops to one of its
+ * neighbours in the {@link RegionGraph}: a reinforce if the neighbour is
+ * friendly, an attack otherwise. Only the team's own regions are visited,
+ * through {@link GameState#nextRegionOf}. Moves are listed by source region,
+ * then in neighbour order, so a seeded random pick is reproducible.
+ *
+ * Each thread gets its own generator from {@link #forCurrentThread()} (and
+ * {@link AIContext#getMoveGenerator()}); the listed moves stay valid until
+ * the next generate call on that thread.
+ */
+public final class MoveGenerator {
+    public static final int MOVE = 0, REINFORCE = 1;
+    /** Not a move; returned when there is nothing to pick. */
+    public static final long NONE = -1L;
+
+    private static final ThreadLocal<MoveGenerator> POOL = ThreadLocal.withInitial(MoveGenerator::new);
+
+    /**
+     * Scores a listed move; higher is better. The risk is handed through from
+     * {@link #best}, so a scorer need not capture it and can be a constant.
+     */
+    public interface Scorer {
+        double score(GameState state, double risk, int source, int dest, int type);
+    }
+
+    private long[] moves = new long[64];
+    private int count;
+    private double bestScore;
+
+    public static MoveGenerator forCurrentThread() {
+        return POOL.get();
+    }
+
+    // Layout: source in bits 0-31, dest in bits 32-62, type in bit 63.
+    public static long pack(int source, int dest, int type) {
+        return (long) type << 63 | (long) dest << 32 | (source & 0xFFFFFFFFL);
+    }
+
+    public static int source(long move) {
+        return (int) move;
+    }
+
+    public static int dest(long move) {
+        return (int) (move >>> 32) & 0x7FFFFFFF;
+    }
+
+    public static int type(long move) {
+        return (int) (move >>> 63);
+    }
+
+    /** The packed move as a {@link Move}, or null for {@link #NONE}. */
+    public static Move toMove(long move) {
+        if (move == NONE) return null;
+        return type(move) == REINFORCE ? Move.reinforce(source(move), dest(move)) : Move.move(source(move), dest(move));
+    }
+
+    /** Lists every move of the context's current team and returns how many there are. */
+    public int generate(AIContext context) {
+        return generate(context.getState(), context.getRegionGraph(), false);
+    }
+
+    /** Lists only attacks, which come from the team's frontier regions. */
+    public int generateAttacks(AIContext context) {
+        return generate(context.getState(), context.getRegionGraph(), true);
+    }
+
+    public int generate(GameState state, RegionGraph graph, boolean attacksOnly) {
+        int team = state.getCurrentTeam();
+        int[] neighbors = graph.getNeighbors();
+        int n = 0;
+        for (int r = state.nextRegionOf(team, 0); r >= 0; r = state.nextRegionOf(team, r + 1)) {
+            if (state.getTroops(r) <= 0) continue;
+            int end = graph.getNeighborEnd(r);
+            if (n + end - graph.getNeighborStart(r) > moves.length) {
+                moves = Arrays.copyOf(moves, Math.max(2 * moves.length, n + end - graph.getNeighborStart(r)));
+            }
+            for (int k = graph.getNeighborStart(r); k < end; k++) {
+                int dest = neighbors[k];
+                boolean friendly = state.getTeam(dest) == team;
+                if (attacksOnly && friendly) continue;
+                moves[n++] = pack(r, dest, friendly ? REINFORCE : MOVE);
+            }
+        }
+        count = n;
+        return n;
+    }
+
+    /** Number of moves from the last generate call. */
+    public int size() {
+        return count;
+    }
+
+    public long get(int index) {
+        if (index >= count) throw new IndexOutOfBoundsException("Move " + index + " of " + count);
+        return moves[index];
+    }
+
+    /**
+     * The highest-scoring listed move, the first one on ties, or {@link #NONE}
+     * if the list is empty; {@link #getBestScore()} then holds its score.
+     * {@code risk} is passed to every score call.
+     */
+    public long best(GameState state, double risk, Scorer scorer) {
+        long best = NONE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            long move = moves[i];
+            double score = scorer.score(state, risk, source(move), dest(move), type(move));
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+            }
+        }
+        this.bestScore = bestScore;
+        return best;
+    }
+
+    /** Score of the move the last {@link #best} call returned. */
+    public double getBestScore() {
+        return bestScore;
+    }
+}
@@ -0,0 +1,137 @@
+package main;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Boundary pixels of every region, stored as horizontal runs.
+ *
+ * A pixel is on the boundary when it touches the map edge or a 4-neighbour
+ * owned by another region, which is what the selection outline has always
+ * drawn. Each region keeps a packed {@code x, y, length} list of its runs, so
+ * outlining a region costs time in its perimeter rather than in the map size.
+ */
+public final class RegionBoundaries {
+    private int[][] runs;
+    private int[] runCounts;
+
+    private RegionBoundaries(int numRegions) {
+        runs = new int[numRegions][];
+        runCounts = new int[numRegions];
+        Arrays.fill(runs, new int[0]);
+    }
+
+    /** Scans the whole raster once. */
+    public static RegionBoundaries build(RegionRaster raster, int numRegions) {
+        RegionBoundaries boundaries = new RegionBoundaries(numRegions);
+        boundaries.scan(raster, new Rectangle(0, 0, raster.getWidth(), raster.getHeight()), -1);
+        return boundaries;
+    }
+
+    /**
+     * Restores an index saved as CSR: region {@code r} owns triples
+     * {@code offsets[r]} up to {@code offsets[r + 1]} of {@code packed}.
+     */
+    static RegionBoundaries fromCsr(int[] offsets, int[] packed) {
+        int numRegions = offsets.length - 1;
+        RegionBoundaries index = new RegionBoundaries(numRegions);
+        for (int r = 0; r < numRegions; r++) {
+            index.runs[r] = Arrays.copyOfRange(packed, 3 * offsets[r], 3 * offsets[r + 1]);
+            index.runCounts[r] = offsets[r + 1] - offsets[r];
+        }
+        return index;
+    }
+
+    /**
+     * Rescans {@code region} inside {@code area}, which must hold all of its
+     * pixels; a null area means the region no longer owns any. Regions whose
+     * pixels did not change keep their runs, since their boundary pixels are
+     * still the same.
+     */
+    public void update(RegionRaster raster, int region, Rectangle area) {
+        runCounts[region] = 0;
+        if (area == null) return;
+        scan(raster, area.intersection(new Rectangle(0, 0, raster.getWidth(), raster.getHeight())), region);
+    }
+
+    /** Grows or truncates to {@code numRegions}; new regions start with no pixels. */
+    public void resize(int numRegions) {
+        int old = runs.length;
+        runs = Arrays.copyOf(runs, numRegions);
+        runCounts = Arrays.copyOf(runCounts, numRegions);
+        if (old < numRegions) Arrays.fill(runs, old, numRegions, new int[0]);
+    }
+
+    // Appends runs found inside area for region "only", or for every region when it is -1.
+    private void scan(RegionRaster raster, Rectangle area, int only) {
+        if (area.isEmpty()) return;
+        int width = raster.getWidth(), height = raster.getHeight();
+        int x0 = area.x, x1 = area.x + area.width;
+        int[] above = new int[width], row = new int[width], below = new int[width];
+        raster.getRow(area.y, row);
+        if (area.y > 0) raster.getRow(area.y - 1, above);
+        for (int y = area.y; y < area.y + area.height; y++) {
+            boolean hasAbove = y > 0, hasBelow = y < height - 1;
+            if (hasBelow) raster.getRow(y + 1, below);
+            int runRegion = -1, runStart = 0;
+            for (int x = x0; x < x1; x++) {
+                int region = row[x];
+                boolean edge = only < 0 || region == only;
+                if (edge) {
+                    edge = x == 0 || x == width - 1 || !hasAbove || !hasBelow
+                            || row[x - 1] != region || row[x + 1] != region
+                            || above[x] != region || below[x] != region;
+                }
+                if (runRegion != -1 && (!edge || region != runRegion)) {
+                    addRun(runRegion, runStart, y, x - runStart);
+                    runRegion = -1;
+                }
+                if (edge && runRegion == -1) {
+                    runRegion = region;
+                    runStart = x;
+                }
+            }
+            if (runRegion != -1) addRun(runRegion, runStart, y, x1 - runStart);
+            int[] swap = above;
+            above = row;
+            row = below;
+            below = swap;
+        }
+    }
+
+    private void addRun(int region, int x, int y, int length) {
+        int at = 3 * runCounts[region];
+        if (at + 3 > runs[region].length) {
+            runs[region] = Arrays.copyOf(runs[region], Math.max(24, 2 * runs[region].length));
+        }
+        runs[region][at] = x;
+        runs[region][at + 1] = y;
+        runs[region][at + 2] = length;
+        runCounts[region]++;
+    }
+
+    public int getNumRegions() {
+        return runs.length;
+    }
+
+    /** Number of boundary runs of {@code region}. */
+    public int getRunCount(int region) {
+        return runCounts[region];
+    }
+
+    /** Packed {@code x, y, length} triples; only the first {@code 3 * getRunCount(region)} entries are used. */
+    public int[] getRuns(int region) {
+        return runs[region];
+    }
+
+    /**
+     * Outlines {@code region} the way the old per-pixel loop did: each boundary
+     * pixel gets a 1x1 {@code drawRect}, so a run of them is one wider rectangle.
+     */
+    public void draw(Graphics2D g2d, int region) {
+        int[] packed = runs[region];
+        for (int i = 0, end = 3 * runCounts[region]; i < end; i += 3) {
+            g2d.drawRect(packed[i], packed[i + 1], packed[i + 2], 1);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// File: main/RegionChangedEvent.java
+package main;
+
+/**
+ * Fired after a move, reinforcement or new bastion changes a region. The
+ * growth every region gets at the end of a turn comes as a {@link TurnEndedEvent}.
+ */
+public class RegionChangedEvent extends GameEvent {
+    private final int regionIndex;
+    
+    public RegionChangedEvent(int regionIndex) {
+        super("RegionChanged");
+        this.regionIndex = regionIndex;
+    }
+    
+    public int getRegionIndex() {
+        return regionIndex;
+    }
+}
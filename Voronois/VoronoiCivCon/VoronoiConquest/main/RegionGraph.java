@@ -0,0 +1,243 @@
+package main;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Region adjacency in compressed sparse row form.
+ *
+ * The neighbours of region r are {@code getNeighbors()[getNeighborStart(r)]}
+ * up to (but not including) {@code getNeighborEnd(r)}, sorted ascending. Two
+ * regions are adjacent when they own 4-connected pixels, which is the rule the
+ * game has always used. The graph is immutable; edits produce a new graph.
+ */
+public final class RegionGraph {
+    private static final AtomicLong versions = new AtomicLong();
+
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final long version = versions.incrementAndGet();
+    private boolean[][] matrix;
+
+    private RegionGraph(int[] offsets, int[] neighbors) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Tells this graph apart from every other one built in this run, so
+     * anything cached for a map can be keyed by it. Every edit makes a graph
+     * with a new version, even if its edges come out the same.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /** A graph with {@code numRegions} regions and no edges. */
+    public static RegionGraph empty(int numRegions) {
+        return new RegionGraph(new int[numRegions + 1], new int[0]);
+    }
+
+    /** Wraps CSR arrays read back from a save, laid out as the class comment describes. */
+    static RegionGraph fromCsr(int[] offsets, int[] neighbors) {
+        if (offsets.length == 0 || offsets[offsets.length - 1] != neighbors.length) {
+            throw new IllegalArgumentException("Offsets do not match the neighbour array");
+        }
+        return new RegionGraph(offsets, neighbors);
+    }
+
+    /** Builds the graph with one parallel pass over the pixel rows. */
+    public static RegionGraph fromRaster(RegionRaster raster, int numRegions) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int bands = Math.max(1, Math.min(height, Runtime.getRuntime().availableProcessors() * 4));
+        long[][] bandPairs = IntStream.range(0, bands).parallel().mapToObj(band -> {
+            PairSet pairs = new PairSet();
+            int from = (int) ((long) height * band / bands);
+            int to = (int) ((long) height * (band + 1) / bands);
+            int[] row = new int[width];
+            int[] nextRow = new int[width];
+            if (from < to) raster.getRow(from, row);
+            for (int y = from; y < to; y++) {
+                boolean hasNext = y < height - 1;
+                if (hasNext) raster.getRow(y + 1, nextRow);
+                for (int x = 0; x < width; x++) {
+                    int region = row[x];
+                    if (x < width - 1 && row[x + 1] != region) pairs.add(region, row[x + 1]);
+                    if (hasNext && nextRow[x] != region) pairs.add(region, nextRow[x]);
+                }
+                int[] swap = row;
+                row = nextRow;
+                nextRow = swap;
+            }
+            return pairs.toArray();
+        }).toArray(long[][]::new);
+        return fromPairs(numRegions, bandPairs);
+    }
+
+    /**
+     * Returns a copy with {@code numRegions} regions in which every edge touching
+     * a dirty region is replaced by {@code pairs} (packed with {@link #pack}).
+     * Regions beyond the new count must have no edges left.
+     */
+    public RegionGraph replaceEdges(boolean[] dirty, long[] pairs, int numRegions) {
+        int kept = 0;
+        int oldRegions = getNumRegions();
+        long[] old = new long[neighbors.length / 2];
+        for (int r = 0; r < oldRegions; r++) {
+            if (dirty[r]) continue;
+            for (int k = offsets[r]; k < offsets[r + 1]; k++) {
+                int n = neighbors[k];
+                if (r < n && !dirty[n]) old[kept++] = pack(r, n);
+            }
+        }
+        return fromPairs(numRegions, new long[][]{Arrays.copyOf(old, kept), pairs});
+    }
+
+    /** Returns a copy with {@code numRegions} regions; dropped regions must have no edges. */
+    public RegionGraph resize(int numRegions) {
+        int[] resized = Arrays.copyOf(offsets, numRegions + 1);
+        for (int r = offsets.length; r <= numRegions; r++) {
+            resized[r] = offsets[offsets.length - 1];
+        }
+        return new RegionGraph(resized, Arrays.copyOf(neighbors, resized[numRegions]));
+    }
+
+    /** Packs an unordered region pair into one long, smaller id first. */
+    public static long pack(int a, int b) {
+        int lo = Math.min(a, b), hi = Math.max(a, b);
+        return ((long) lo << 32) | hi;
+    }
+
+    private static RegionGraph fromPairs(int numRegions, long[][] parts) {
+        int total = 0;
+        for (long[] part : parts) total += part.length;
+        long[] pairs = new long[total];
+        int at = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, pairs, at, part.length);
+            at += part.length;
+        }
+        Arrays.parallelSort(pairs);
+        int unique = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) pairs[unique++] = pairs[i];
+        }
+        int[] offsets = new int[numRegions + 1];
+        for (int i = 0; i < unique; i++) {
+            offsets[(int) (pairs[i] >>> 32) + 1]++;
+            offsets[(int) pairs[i] + 1]++;
+        }
+        for (int r = 0; r < numRegions; r++) {
+            offsets[r + 1] += offsets[r];
+        }
+        int[] fill = Arrays.copyOf(offsets, numRegions);
+        int[] neighbors = new int[2 * unique];
+        // Pairs are sorted by (lo, hi), so both directions come out in ascending order.
+        for (int i = 0; i < unique; i++) {
+            int lo = (int) (pairs[i] >>> 32), hi = (int) pairs[i];
+            neighbors[fill[hi]++] = lo;
+        }
+        for (int i = 0; i < unique; i++) {
+            int lo = (int) (pairs[i] >>> 32), hi = (int) pairs[i];
+            neighbors[fill[lo]++] = hi;
+        }
+        return new RegionGraph(offsets, neighbors);
+    }
+
+    public int getNumRegions() {
+        return offsets.length - 1;
+    }
+
+    /** Index of the first neighbour of {@code region} in {@link #getNeighbors()}. */
+    public int getNeighborStart(int region) {
+        return offsets[region];
+    }
+
+    /** One past the last neighbour of {@code region} in {@link #getNeighbors()}. */
+    public int getNeighborEnd(int region) {
+        return offsets[region + 1];
+    }
+
+    public int getDegree(int region) {
+        return offsets[region + 1] - offsets[region];
+    }
+
+    /** The shared neighbour array; read it through the ranges above and do not modify it. */
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    public boolean isAdjacent(int a, int b) {
+        return Arrays.binarySearch(neighbors, offsets[a], offsets[a + 1], b) >= 0;
+    }
+
+    /**
+     * Dense N x N view for code written against the old {@code boolean[][]}.
+     * Built once per graph; it costs N^2 bytes, so avoid it on large maps.
+     */
+    public synchronized boolean[][] toMatrix() {
+        if (matrix == null) {
+            int n = getNumRegions();
+            boolean[][] dense = new boolean[n][n];
+            for (int r = 0; r < n; r++) {
+                for (int k = offsets[r]; k < offsets[r + 1]; k++) {
+                    dense[r][neighbors[k]] = true;
+                }
+            }
+            matrix = dense;
+        }
+        return matrix;
+    }
+
+    // Open-addressing set of packed pairs; a region pair repeats along its whole border.
+    static final class PairSet {
+        private long[] slots = new long[256];
+        private int size;
+        private long last = -1;
+
+        void add(int a, int b) {
+            long key = pack(a, b);
+            if (key == last) return;
+            last = key;
+            if (2 * (size + 1) > slots.length) grow();
+            if (insert(slots, key)) size++;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            // Stored as key + 1 so that zero marks an empty slot.
+            long stored = key + 1;
+            int i = (int) (mix(key) & mask);
+            while (table[i] != 0) {
+                if (table[i] == stored) return false;
+                i = (i + 1) & mask;
+            }
+            table[i] = stored;
+            return true;
+        }
+
+        private void grow() {
+            long[] bigger = new long[slots.length * 2];
+            for (long stored : slots) {
+                if (stored != 0) insert(bigger, stored - 1);
+            }
+            slots = bigger;
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 29);
+        }
+
+        long[] toArray() {
+            long[] out = new long[size];
+            int n = 0;
+            for (long stored : slots) {
+                if (stored != 0) out[n++] = stored - 1;
+            }
+            return out;
+        }
+    }
+}
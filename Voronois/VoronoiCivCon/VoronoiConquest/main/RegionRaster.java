@@ -0,0 +1,290 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Region id for every map pixel, stored row-major in one primitive array.
+ *
+ * The cell type is picked from the region count: a byte per pixel for up to
+ * 256 regions, a short for up to 65536, and an int beyond that. A 16k x 16k map
+ * with fewer than 65536 regions therefore takes 512 MB instead of about 1 GB,
+ * and row-wise loops read memory sequentially.
+ */
+public abstract class RegionRaster {
+    protected final int width, height;
+
+    protected RegionRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public static RegionRaster create(int width, int height, int numRegions) {
+        switch (cellBytesFor(numRegions)) {
+            case 1: return new ByteRaster(width, height);
+            case 2: return new ShortRaster(width, height);
+            default: return new IntRaster(width, height);
+        }
+    }
+
+    /**
+     * A raster over {@code width * height} cells of {@code cellBytes} bytes,
+     * little-endian and row-major, starting at {@code offset} in {@code channel}.
+     * The file is mapped copy-on-write, which needs a channel opened for
+     * writing: pages are read only when a pixel on them is, and {@link #set}
+     * changes memory, never the file.
+     */
+    public static RegionRaster map(FileChannel channel, long offset, int width, int height, int cellBytes)
+            throws IOException {
+        if (cellBytes != 1 && cellBytes != 2 && cellBytes != 4) {
+            throw new IllegalArgumentException("Unsupported cell size " + cellBytes);
+        }
+        return new MappedRaster(channel, offset, width, height, cellBytes, FileChannel.MapMode.PRIVATE);
+    }
+
+    /**
+     * The same cells as {@link #map}, copied into memory, for a channel that
+     * is only open for reading. The whole raster is read up front.
+     */
+    public static RegionRaster read(FileChannel channel, long offset, int width, int height, int cellBytes)
+            throws IOException {
+        RegionRaster copy;
+        switch (cellBytes) {
+            case 1: copy = new ByteRaster(width, height); break;
+            case 2: copy = new ShortRaster(width, height); break;
+            case 4: copy = new IntRaster(width, height); break;
+            default: throw new IllegalArgumentException("Unsupported cell size " + cellBytes);
+        }
+        RegionRaster mapped = new MappedRaster(channel, offset, width, height, cellBytes, FileChannel.MapMode.READ_ONLY);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            copy.setRow(y, mapped.getRow(y, row));
+        }
+        return copy;
+    }
+
+    private static int cellBytesFor(int numRegions) {
+        return numRegions <= 1 << 8 ? 1 : numRegions <= 1 << 16 ? 2 : 4;
+    }
+
+    /** Returns this raster if its cells can hold {@code numRegions} ids, otherwise a wider copy. */
+    public RegionRaster widenedFor(int numRegions) {
+        if (cellBytesFor(numRegions) <= getCellBytes()) return this;
+        RegionRaster wider = create(width, height, numRegions);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            wider.setRow(y, getRow(y, row));
+        }
+        return wider;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /** Returns the region that owns pixel (x, y). */
+    public abstract int at(int x, int y);
+
+    public abstract void set(int x, int y, int region);
+
+    /** Copies row {@code y} into {@code dst} (at least {@code width} long) and returns it. */
+    public abstract int[] getRow(int y, int[] dst);
+
+    /** Overwrites row {@code y} with the first {@code width} entries of {@code src}. */
+    public abstract void setRow(int y, int[] src);
+
+    /** Bytes used per pixel. */
+    public abstract int getCellBytes();
+
+    private static final class ByteRaster extends RegionRaster {
+        private final byte[] cells;
+
+        ByteRaster(int width, int height) {
+            super(width, height);
+            cells = new byte[Math.multiplyExact(width, height)];
+        }
+
+        @Override
+        public int at(int x, int y) {
+            return cells[y * width + x] & 0xFF;
+        }
+
+        @Override
+        public void set(int x, int y, int region) {
+            cells[y * width + x] = (byte) region;
+        }
+
+        @Override
+        public int[] getRow(int y, int[] dst) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                dst[x] = cells[offset + x] & 0xFF;
+            }
+            return dst;
+        }
+
+        @Override
+        public void setRow(int y, int[] src) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                cells[offset + x] = (byte) src[x];
+            }
+        }
+
+        @Override
+        public int getCellBytes() { return 1; }
+    }
+
+    private static final class ShortRaster extends RegionRaster {
+        private final short[] cells;
+
+        ShortRaster(int width, int height) {
+            super(width, height);
+            cells = new short[Math.multiplyExact(width, height)];
+        }
+
+        @Override
+        public int at(int x, int y) {
+            return cells[y * width + x] & 0xFFFF;
+        }
+
+        @Override
+        public void set(int x, int y, int region) {
+            cells[y * width + x] = (short) region;
+        }
+
+        @Override
+        public int[] getRow(int y, int[] dst) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                dst[x] = cells[offset + x] & 0xFFFF;
+            }
+            return dst;
+        }
+
+        @Override
+        public void setRow(int y, int[] src) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                cells[offset + x] = (short) src[x];
+            }
+        }
+
+        @Override
+        public int getCellBytes() { return 2; }
+    }
+
+    private static final class IntRaster extends RegionRaster {
+        private final int[] cells;
+
+        IntRaster(int width, int height) {
+            super(width, height);
+            cells = new int[Math.multiplyExact(width, height)];
+        }
+
+        @Override
+        public int at(int x, int y) {
+            return cells[y * width + x];
+        }
+
+        @Override
+        public void set(int x, int y, int region) {
+            cells[y * width + x] = region;
+        }
+
+        @Override
+        public int[] getRow(int y, int[] dst) {
+            System.arraycopy(cells, y * width, dst, 0, width);
+            return dst;
+        }
+
+        @Override
+        public void setRow(int y, int[] src) {
+            System.arraycopy(src, 0, cells, y * width, width);
+        }
+
+        @Override
+        public int getCellBytes() { return 4; }
+    }
+
+    // Read through a file mapping. Each chunk is a whole number of rows under
+    // 1 GB, since one buffer cannot address more than 2 GB.
+    private static final class MappedRaster extends RegionRaster {
+        private final ByteBuffer[] chunks;
+        private final int rowsPerChunk;
+        private final int cellBytes;
+
+        MappedRaster(FileChannel channel, long offset, int width, int height, int cellBytes,
+                     FileChannel.MapMode mode) throws IOException {
+            super(width, height);
+            this.cellBytes = cellBytes;
+            long rowBytes = (long) width * cellBytes;
+            rowsPerChunk = (int) Math.max(1, (1L << 30) / Math.max(1, rowBytes));
+            chunks = new ByteBuffer[(height + rowsPerChunk - 1) / rowsPerChunk];
+            for (int c = 0; c < chunks.length; c++) {
+                int rows = Math.min(rowsPerChunk, height - c * rowsPerChunk);
+                chunks[c] = channel.map(mode, offset + c * rowsPerChunk * rowBytes, rows * rowBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        // Absolute index of (0, y) in its chunk; absolute reads keep concurrent row readers safe.
+        private int rowStart(int y) {
+            return (y % rowsPerChunk) * width * cellBytes;
+        }
+
+        @Override
+        public int at(int x, int y) {
+            ByteBuffer chunk = chunks[y / rowsPerChunk];
+            int index = rowStart(y) + x * cellBytes;
+            switch (cellBytes) {
+                case 1: return chunk.get(index) & 0xFF;
+                case 2: return chunk.getShort(index) & 0xFFFF;
+                default: return chunk.getInt(index);
+            }
+        }
+
+        @Override
+        public void set(int x, int y, int region) {
+            ByteBuffer chunk = chunks[y / rowsPerChunk];
+            int index = rowStart(y) + x * cellBytes;
+            switch (cellBytes) {
+                case 1: chunk.put(index, (byte) region); break;
+                case 2: chunk.putShort(index, (short) region); break;
+                default: chunk.putInt(index, region);
+            }
+        }
+
+        @Override
+        public int[] getRow(int y, int[] dst) {
+            ByteBuffer chunk = chunks[y / rowsPerChunk];
+            int index = rowStart(y);
+            switch (cellBytes) {
+                case 1:
+                    for (int x = 0; x < width; x++) dst[x] = chunk.get(index + x) & 0xFF;
+                    break;
+                case 2:
+                    for (int x = 0; x < width; x++) dst[x] = chunk.getShort(index + 2 * x) & 0xFFFF;
+                    break;
+                default:
+                    for (int x = 0; x < width; x++) dst[x] = chunk.getInt(index + 4 * x);
+            }
+            return dst;
+        }
+
+        @Override
+        public void setRow(int y, int[] src) {
+            for (int x = 0; x < width; x++) {
+                set(x, y, src[x]);
+            }
+        }
+
+        @Override
+        public int getCellBytes() { return cellBytes; }
+    }
+}
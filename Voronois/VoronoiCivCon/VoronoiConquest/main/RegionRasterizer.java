@@ -0,0 +1,212 @@
+package main;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills a region assignment from the sites and their Voronoi neighbours.
+ *
+ * The map is split into row bands that run as ForkJoin tasks. Each row is
+ * walked left to right one cell span at a time: the owner of the next pixel is
+ * found by walking from the current owner through its neighbours, so a pixel
+ * only ever looks at a handful of sites. Ownership is decided with exact integer
+ * distances (ties go to the lower site index), which makes the result identical
+ * to a brute-force search no matter how the rows are split across threads.
+ */
+public class RegionRasterizer {
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final int[] siteX, siteY;
+    private final int[][] neighbors;
+    private final int mapWidth, mapHeight;
+    private final SiteIndex siteIndex;
+
+    public RegionRasterizer(Point[] sites, int[][] neighbors, int mapWidth, int mapHeight) {
+        this.siteX = new int[sites.length];
+        this.siteY = new int[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            siteX[i] = sites[i].x;
+            siteY[i] = sites[i].y;
+        }
+        this.neighbors = neighbors;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.siteIndex = new SiteIndex(sites, mapWidth, mapHeight);
+    }
+
+    /** Rasterizes the whole map on the common ForkJoin pool. */
+    public RegionRaster rasterize() {
+        return rasterize(ForkJoinPool.commonPool());
+    }
+
+    public RegionRaster rasterize(ForkJoinPool pool) {
+        RegionRaster assignment = RegionRaster.create(mapWidth, mapHeight, siteX.length);
+        int bandRows = Math.max(MIN_BAND_ROWS, mapHeight / (pool.getParallelism() * 4));
+        pool.invoke(new Band(assignment, 0, mapHeight, bandRows));
+        return assignment;
+    }
+
+    /** Single-threaded reference path; produces the same output as {@link #rasterize()}. */
+    public RegionRaster rasterizeSequential() {
+        RegionRaster assignment = RegionRaster.create(mapWidth, mapHeight, siteX.length);
+        fillRows(assignment, 0, mapHeight);
+        return assignment;
+    }
+
+    private class Band extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RegionRaster assignment;
+        private final int fromRow, toRow, bandRows;
+
+        Band(RegionRaster assignment, int fromRow, int toRow, int bandRows) {
+            this.assignment = assignment;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= bandRows) {
+                fillRows(assignment, fromRow, toRow);
+                return;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new Band(assignment, fromRow, mid, bandRows), new Band(assignment, mid, toRow, bandRows));
+        }
+    }
+
+    private void fillRows(RegionRaster assignment, int fromRow, int toRow) {
+        if (siteX.length == 0) return;
+        int[] row = new int[mapWidth];
+        // Start each band at its own first pixel rather than walking in from site 0.
+        int rowStart = siteIndex.nearest(0, fromRow);
+        for (int y = fromRow; y < toRow; y++) {
+            rowStart = locate(rowStart, 0, y);
+            int current = rowStart;
+            int x = 0;
+            while (x < mapWidth) {
+                int end = fillSpan(current, x, y, row);
+                x = end + 1;
+                if (x < mapWidth) {
+                    current = locate(current, x, y);
+                }
+            }
+            assignment.setRow(y, row);
+        }
+    }
+
+    /**
+     * Writes the run of pixels owned by {@code site} on row {@code y}, starting at
+     * {@code x} (which the site is known to own), and returns the last x written.
+     */
+    private int fillSpan(int site, int x, int y, int[] row) {
+        long hi = mapWidth - 1;
+        int[] adjacent = neighbors[site];
+        for (int t : adjacent) {
+            long a = 2L * (siteX[t] - siteX[site]);
+            if (a > 0) {
+                hi = Math.min(hi, Math.floorDiv(bisectorLimit(site, t, y), a));
+            }
+        }
+        int end = (int) hi;
+        for (int i = x; i <= end; i++) {
+            row[i] = site;
+        }
+        // Pixels exactly on a bisector may tie with sites beyond the direct neighbours.
+        for (int t : adjacent) {
+            long a = 2L * (siteX[t] - siteX[site]);
+            long k = bisectorOffset(site, t, y);
+            if (a == 0) {
+                if (k == 0) {
+                    for (int i = x; i <= end; i++) {
+                        row[i] = resolveTie(site, i, y);
+                    }
+                }
+            } else if (k % a == 0) {
+                long tieX = -k / a;
+                if (tieX >= x && tieX <= end) {
+                    row[(int) tieX] = resolveTie(site, (int) tieX, y);
+                }
+            }
+        }
+        return end;
+    }
+
+    // dist(s)^2 - dist(t)^2 at (x, y) equals a * x + bisectorOffset(s, t, y), with a = 2 * (tx - sx).
+    private long bisectorOffset(int s, int t, int y) {
+        return 2L * y * (siteY[t] - siteY[s])
+                + (long) siteX[s] * siteX[s] - (long) siteX[t] * siteX[t]
+                + (long) siteY[s] * siteY[s] - (long) siteY[t] * siteY[t];
+    }
+
+    // Largest right-hand side c such that a * x <= c keeps s ahead of t.
+    private long bisectorLimit(int s, int t, int y) {
+        return (s < t ? 0 : -1) - bisectorOffset(s, t, y);
+    }
+
+    /** Walks from {@code start} towards the owner of pixel (x, y). */
+    int locate(int start, int x, int y) {
+        int current = start;
+        while (true) {
+            int best = current;
+            for (int t : neighbors[current]) {
+                if (closer(t, best, x, y)) best = t;
+            }
+            if (best == current) break;
+            current = best;
+        }
+        return resolveTie(current, x, y);
+    }
+
+    // Among all sites equidistant with the given nearest site, returns the lowest index.
+    private int resolveTie(int nearest, int x, int y) {
+        long dist = distanceSq(nearest, x, y);
+        int best = nearest;
+        int[] pending = null;
+        int pendingCount = 0;
+        int[] seen = null;
+        int seenCount = 0;
+        int current = nearest;
+        while (true) {
+            for (int t : neighbors[current]) {
+                if (distanceSq(t, x, y) != dist) continue;
+                if (t == nearest || contains(seen, seenCount, t)) continue;
+                if (seen == null) {
+                    seen = new int[8];
+                    pending = new int[8];
+                } else if (seenCount == seen.length) {
+                    seen = Arrays.copyOf(seen, seenCount * 2);
+                    pending = Arrays.copyOf(pending, seenCount * 2);
+                }
+                seen[seenCount++] = t;
+                pending[pendingCount++] = t;
+                if (t < best) best = t;
+            }
+            if (pendingCount == 0) return best;
+            current = pending[--pendingCount];
+        }
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private boolean closer(int a, int b, int x, int y) {
+        long da = distanceSq(a, x, y);
+        long db = distanceSq(b, x, y);
+        return da < db || (da == db && a < b);
+    }
+
+    private long distanceSq(int site, int x, int y) {
+        long dx = x - siteX[site];
+        long dy = y - siteY[site];
+        return dx * dx + dy * dy;
+    }
+}
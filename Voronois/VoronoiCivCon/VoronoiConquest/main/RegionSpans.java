@@ -0,0 +1,129 @@
+package main;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * The pixels of every region as horizontal spans, for recolouring one region
+ * without touching the rest of the map.
+ *
+ * Each region keeps a packed {@code y, startX, endX} list (end exclusive) of
+ * the maximal runs it owns; a Voronoi cell is convex, so that is usually one
+ * span per row.
+ */
+public final class RegionSpans {
+    private int[][] spans;
+    private int[] spanCounts;
+    private int[] scratch = new int[0];
+
+    private RegionSpans(int numRegions) {
+        spans = new int[numRegions][];
+        spanCounts = new int[numRegions];
+        Arrays.fill(spans, new int[0]);
+    }
+
+    /** Scans the whole raster once. */
+    public static RegionSpans build(RegionRaster raster, int numRegions) {
+        RegionSpans index = new RegionSpans(numRegions);
+        index.scan(raster, new Rectangle(0, 0, raster.getWidth(), raster.getHeight()), -1);
+        return index;
+    }
+
+    /**
+     * Restores an index saved as CSR: region {@code r} owns triples
+     * {@code offsets[r]} up to {@code offsets[r + 1]} of {@code packed}.
+     */
+    static RegionSpans fromCsr(int[] offsets, int[] packed) {
+        int numRegions = offsets.length - 1;
+        RegionSpans index = new RegionSpans(numRegions);
+        for (int r = 0; r < numRegions; r++) {
+            index.spans[r] = Arrays.copyOfRange(packed, 3 * offsets[r], 3 * offsets[r + 1]);
+            index.spanCounts[r] = offsets[r + 1] - offsets[r];
+        }
+        return index;
+    }
+
+    /**
+     * Rescans {@code region} inside {@code area}, which must hold all of its
+     * pixels; a null area means the region no longer owns any.
+     */
+    public void update(RegionRaster raster, int region, Rectangle area) {
+        spanCounts[region] = 0;
+        if (area == null) return;
+        scan(raster, area.intersection(new Rectangle(0, 0, raster.getWidth(), raster.getHeight())), region);
+    }
+
+    /** Grows or truncates to {@code numRegions}; new regions start with no pixels. */
+    public void resize(int numRegions) {
+        int old = spans.length;
+        spans = Arrays.copyOf(spans, numRegions);
+        spanCounts = Arrays.copyOf(spanCounts, numRegions);
+        if (old < numRegions) Arrays.fill(spans, old, numRegions, new int[0]);
+    }
+
+    // Appends spans found inside area for region "only", or for every region when it is -1.
+    private void scan(RegionRaster raster, Rectangle area, int only) {
+        if (area.isEmpty()) return;
+        int[] row = new int[raster.getWidth()];
+        int x0 = area.x, x1 = area.x + area.width;
+        for (int y = area.y; y < area.y + area.height; y++) {
+            raster.getRow(y, row);
+            int start = x0;
+            for (int x = x0 + 1; x <= x1; x++) {
+                if (x < x1 && row[x] == row[start]) continue;
+                if (only < 0 || row[start] == only) addSpan(row[start], y, start, x);
+                start = x;
+            }
+        }
+    }
+
+    private void addSpan(int region, int y, int startX, int endX) {
+        int at = 3 * spanCounts[region];
+        if (at + 3 > spans[region].length) {
+            spans[region] = Arrays.copyOf(spans[region], Math.max(24, 2 * spans[region].length));
+        }
+        spans[region][at] = y;
+        spans[region][at + 1] = startX;
+        spans[region][at + 2] = endX;
+        spanCounts[region]++;
+    }
+
+    public int getNumRegions() {
+        return spans.length;
+    }
+
+    public int getSpanCount(int region) {
+        return spanCounts[region];
+    }
+
+    /** Packed {@code y, startX, endX} triples; only the first {@code 3 * getSpanCount(region)} entries are used. */
+    public int[] getSpans(int region) {
+        return spans[region];
+    }
+
+    /**
+     * Paints every pixel of {@code region} in {@code image} with {@code argb}.
+     * Images backed by one int per pixel are written through
+     * {@link WritableRaster#setDataElements}, which marks the buffer dirty
+     * instead of taking its array away from Java2D; others go through setRGB.
+     */
+    public void fill(BufferedImage image, int region, int argb) {
+        WritableRaster raster = image.getRaster();
+        boolean packed = raster.getTransferType() == DataBuffer.TYPE_INT && raster.getNumDataElements() == 1;
+        int pixel = packed ? ((int[]) image.getColorModel().getDataElements(argb, null))[0] : argb;
+        int[] list = spans[region];
+        for (int i = 0, end = 3 * spanCounts[region]; i < end; i += 3) {
+            int y = list[i], x0 = list[i + 1], length = list[i + 2] - x0;
+            if (scratch.length < length) scratch = new int[Math.max(length, image.getWidth())];
+            Arrays.fill(scratch, 0, length, pixel);
+            if (packed) {
+                raster.setDataElements(x0, y, length, 1, scratch);
+            } else {
+                image.setRGB(x0, y, length, 1, scratch, 0, length);
+            }
+        }
+    }
+}
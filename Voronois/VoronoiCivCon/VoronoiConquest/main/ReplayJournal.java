@@ -0,0 +1,162 @@
+// File: main/ReplayJournal.java
+package main;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only binary record of a game, for replaying it headlessly with
+ * {@link Replayer}.
+ *
+ * The file starts with a header (magic, version, seed, map size, team
+ * controls, AI risk and keyframe interval) and a keyframe of the starting
+ * position. After that comes one record per action: a tag byte and its int
+ * arguments. Every {@code keyframeInterval} turns a keyframe of the full
+ * state and sites follows the turn's END_TURN, so a reader can start from
+ * the nearest keyframe instead of the beginning. A keyframe is
+ * length-prefixed so a reader can skip it without decoding it.
+ *
+ * Writes go through a 64 KB buffer to one {@link FileChannel}; a record cut
+ * off by a crash is ignored on reading.
+ */
+public final class ReplayJournal implements Closeable {
+    static final int MAGIC = 0x56435250; // "VCRP"
+    static final int VERSION = 1;
+
+    static final byte MOVE = 1;
+    static final byte REINFORCE = 2;
+    static final byte BASTION = 3;
+    static final byte END_TURN = 4;
+    static final byte ADD_REGION = 5;
+    static final byte MOVE_SITE = 6;
+    static final byte REMOVE_REGION = 7;
+    static final byte KEYFRAME = 8;
+
+    // Bytes per region in a keyframe: site x and y, troops, team, bastion flag.
+    static final int KEYFRAME_REGION_BYTES = 4 + 4 + 4 + 1 + 1;
+    // Bytes of a keyframe after its length field, before the regions.
+    static final int KEYFRAME_HEADER_BYTES = 4 + 4 + 4 + 1;
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1000;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private final int keyframeInterval;
+    private int turn;
+
+    private ReplayJournal(FileChannel channel, int keyframeInterval) {
+        this.channel = channel;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Creates (or truncates) {@code file} and writes the header and a keyframe
+     * of {@code state} and {@code sites} as turn 0.
+     */
+    public static ReplayJournal create(Path file, long seed, int mapWidth, int mapHeight, TeamControl[] controls,
+                                       double smartRisk, int keyframeInterval, GameState state, Point[] sites)
+            throws IOException {
+        if (keyframeInterval <= 0) throw new IllegalArgumentException("Keyframe interval must be positive");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ReplayJournal journal = new ReplayJournal(channel, keyframeInterval);
+        try {
+            ByteBuffer b = journal.reserve(6 * 4 + 2 * 8 + controls.length);
+            b.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(mapWidth).putInt(mapHeight);
+            b.putDouble(smartRisk).putInt(keyframeInterval).putInt(controls.length);
+            for (TeamControl control : controls) {
+                b.put((byte) control.ordinal());
+            }
+            journal.writeKeyframe(state, sites);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    public void recordMove(int source, int dest) throws IOException {
+        reserve(9).put(MOVE).putInt(source).putInt(dest);
+    }
+
+    public void recordReinforce(int source, int dest) throws IOException {
+        reserve(9).put(REINFORCE).putInt(source).putInt(dest);
+    }
+
+    public void recordBastion(int region) throws IOException {
+        reserve(5).put(BASTION).putInt(region);
+    }
+
+    public void recordAddRegion(int x, int y, int team, int troops) throws IOException {
+        reserve(17).put(ADD_REGION).putInt(x).putInt(y).putInt(team).putInt(troops);
+    }
+
+    public void recordMoveSite(int region, int x, int y) throws IOException {
+        reserve(13).put(MOVE_SITE).putInt(region).putInt(x).putInt(y);
+    }
+
+    public void recordRemoveRegion(int region) throws IOException {
+        reserve(5).put(REMOVE_REGION).putInt(region);
+    }
+
+    /**
+     * Records the end of a turn; {@code state} and {@code sites} are the
+     * position after it, written out as a keyframe every interval turns.
+     */
+    public void recordEndTurn(GameState state, Point[] sites) throws IOException {
+        reserve(1).put(END_TURN);
+        turn++;
+        if (turn % keyframeInterval == 0) {
+            writeKeyframe(state, sites);
+        }
+    }
+
+    /** Turns recorded so far. */
+    public int getTurn() {
+        return turn;
+    }
+
+    private void writeKeyframe(GameState state, Point[] sites) throws IOException {
+        int numRegions = state.getNumRegions();
+        int length = KEYFRAME_HEADER_BYTES + numRegions * KEYFRAME_REGION_BYTES;
+        reserve(1 + 4 + KEYFRAME_HEADER_BYTES).put(KEYFRAME).putInt(length)
+                .putInt(turn).putInt(numRegions).putInt(state.getCurrentTeam()).put((byte) (state.isGameOver() ? 1 : 0));
+        for (int r = 0; r < numRegions; r++) {
+            reserve(KEYFRAME_REGION_BYTES).putInt(sites[r].x).putInt(sites[r].y).putInt(state.getTroops(r))
+                    .put((byte) state.getTeam(r)).put((byte) (state.isBastion(r) ? 1 : 0));
+        }
+    }
+
+    // Makes room for n bytes, writing the buffer out first if it is too full.
+    private ByteBuffer reserve(int n) throws IOException {
+        if (buffer.remaining() < n) drain();
+        return buffer;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Writes out everything buffered so far. */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+// File: main/Replayer.java
+package main;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Re-executes a {@link ReplayJournal} on a headless {@link GameSimulation}.
+ *
+ * Opening scans the file once, without executing anything, to find the
+ * keyframes and the end of the last complete record. {@link #seek} then
+ * loads the nearest keyframe at or before the wanted turn and replays only
+ * the records after it.
+ */
+public final class Replayer implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    private final long seed;
+    private final int mapWidth, mapHeight;
+    private final double smartRisk;
+    private final int keyframeInterval;
+    private final TeamControl[] controls;
+
+    // Turn and file offset of every keyframe, in file order.
+    private int[] keyframeTurns = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount;
+    private int turnCount;
+    // End of the last complete record; anything after it was cut off.
+    private long validEnd;
+
+    private Point[] sites;
+
+    private Replayer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        position(0);
+        if (!ensure(6 * 4 + 2 * 8) || buffer.getInt() != ReplayJournal.MAGIC) {
+            throw new IOException("Not a replay journal");
+        }
+        int version = buffer.getInt();
+        if (version != ReplayJournal.VERSION) throw new IOException("Unsupported replay version " + version);
+        seed = buffer.getLong();
+        mapWidth = buffer.getInt();
+        mapHeight = buffer.getInt();
+        smartRisk = buffer.getDouble();
+        keyframeInterval = buffer.getInt();
+        int numTeams = buffer.getInt();
+        if (numTeams < 1 || numTeams > Byte.MAX_VALUE) throw new IOException("Corrupt replay header");
+        if (!ensure(numTeams)) throw new EOFException("Replay header is cut off");
+        TeamControl[] values = TeamControl.values();
+        controls = new TeamControl[numTeams];
+        for (int t = 0; t < numTeams; t++) {
+            int control = buffer.get();
+            if (control < 0 || control >= values.length) throw new IOException("Unknown team control " + control);
+            controls[t] = values[control];
+        }
+        index();
+        if (keyframeCount == 0) throw new EOFException("Replay has no starting keyframe");
+    }
+
+    public static Replayer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new Replayer(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Walks every record once, noting keyframes, turns and where the last whole record ends.
+    private void index() throws IOException {
+        long size = channel.size();
+        validEnd = offset();
+        while (ensure(1)) {
+            long recordStart = offset();
+            byte tag = buffer.get();
+            if (tag == ReplayJournal.KEYFRAME) {
+                if (!ensure(8)) break;
+                int length = buffer.getInt();
+                int turn = buffer.getInt();
+                if (length < ReplayJournal.KEYFRAME_HEADER_BYTES) throw new IOException("Corrupt keyframe length " + length);
+                if (recordStart + 5 + length > size) break;
+                addKeyframe(turn, recordStart);
+                position(recordStart + 5 + length);
+            } else {
+                if (!ensure(argumentBytes(tag))) break;
+                buffer.position(buffer.position() + argumentBytes(tag));
+                if (tag == ReplayJournal.END_TURN) turnCount++;
+            }
+            validEnd = offset();
+        }
+    }
+
+    private void addKeyframe(int turn, long offset) {
+        if (keyframeCount == keyframeTurns.length) {
+            keyframeTurns = Arrays.copyOf(keyframeTurns, 2 * keyframeCount);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, 2 * keyframeCount);
+        }
+        keyframeTurns[keyframeCount] = turn;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    private static int argumentBytes(byte tag) throws IOException {
+        switch (tag) {
+            case ReplayJournal.MOVE:
+            case ReplayJournal.REINFORCE: return 8;
+            case ReplayJournal.BASTION:
+            case ReplayJournal.REMOVE_REGION: return 4;
+            case ReplayJournal.END_TURN: return 0;
+            case ReplayJournal.ADD_REGION: return 16;
+            case ReplayJournal.MOVE_SITE: return 12;
+            default: throw new IOException("Unknown replay record " + tag);
+        }
+    }
+
+    /**
+     * Returns a fresh simulation in the position right after the end of turn
+     * {@code turn} (0 is the start of the recording); {@link #getSites()} then
+     * holds the sites at that point.
+     */
+    public GameSimulation seek(int turn) throws IOException {
+        if (turn < 0 || turn > turnCount) {
+            throw new IllegalArgumentException("Turn " + turn + " is outside 0.." + turnCount);
+        }
+        return replayFrom(turn);
+    }
+
+    /** Replays every complete record, including actions after the last end of turn. */
+    public GameSimulation replayAll() throws IOException {
+        return replayFrom(Integer.MAX_VALUE);
+    }
+
+    private GameSimulation replayFrom(int turn) throws IOException {
+        int k = 0;
+        while (k + 1 < keyframeCount && keyframeTurns[k + 1] <= turn) {
+            k++;
+        }
+        position(keyframeOffsets[k]);
+        ensure(1);
+        buffer.get();
+        GameSimulation sim = readKeyframe();
+        int current = keyframeTurns[k];
+        while (current < turn && offset() < validEnd) {
+            ensure(1);
+            byte tag = buffer.get();
+            if (tag == ReplayJournal.KEYFRAME) {
+                ensure(4);
+                int length = buffer.getInt();
+                position(offset() + length);
+                continue;
+            }
+            ensure(argumentBytes(tag));
+            switch (tag) {
+                case ReplayJournal.MOVE: sim.executeMove(buffer.getInt(), buffer.getInt()); break;
+                case ReplayJournal.REINFORCE: sim.executeReinforce(buffer.getInt(), buffer.getInt()); break;
+                case ReplayJournal.BASTION: sim.makeBastion(buffer.getInt()); break;
+                case ReplayJournal.END_TURN:
+                    sim.endTurn();
+                    current++;
+                    break;
+                case ReplayJournal.ADD_REGION: {
+                    int region = sites.length;
+                    sites = Arrays.copyOf(sites, region + 1);
+                    sites[region] = new Point(buffer.getInt(), buffer.getInt());
+                    sim.resizeRegions(region + 1);
+                    sim.initRegion(region, buffer.getInt(), buffer.getInt());
+                    break;
+                }
+                case ReplayJournal.MOVE_SITE:
+                    sites[buffer.getInt()] = new Point(buffer.getInt(), buffer.getInt());
+                    break;
+                case ReplayJournal.REMOVE_REGION: {
+                    // The engine moves the last region into the freed index.
+                    int region = buffer.getInt(), last = sites.length - 1;
+                    sites[region] = sites[last];
+                    sim.copyRegion(last, region);
+                    sites = Arrays.copyOf(sites, last);
+                    sim.resizeRegions(last);
+                    break;
+                }
+                default: throw new IOException("Unknown replay record " + tag);
+            }
+        }
+        return sim;
+    }
+
+    private GameSimulation readKeyframe() throws IOException {
+        ensure(4 + ReplayJournal.KEYFRAME_HEADER_BYTES);
+        buffer.getInt();
+        buffer.getInt();
+        int numRegions = buffer.getInt();
+        GameState state = new GameState(numRegions, controls.length);
+        state.setCurrentTeam(buffer.getInt());
+        state.setGameOver(buffer.get() != 0);
+        sites = new Point[numRegions];
+        for (int r = 0; r < numRegions; r++) {
+            ensure(ReplayJournal.KEYFRAME_REGION_BYTES);
+            sites[r] = new Point(buffer.getInt(), buffer.getInt());
+            int troops = buffer.getInt();
+            state.setTeam(r, buffer.get());
+            state.setTroops(r, troops);
+            state.setBastion(r, buffer.get() != 0);
+        }
+        GameSimulation sim = new GameSimulation(numRegions, controls.length, controls, smartRisk, new Random(seed));
+        sim.setState(state);
+        return sim;
+    }
+
+    /**
+     * Region graph of the sites from the last seek, for running the AIs on a
+     * replayed position. It rebuilds the Voronoi map, so it is not cheap.
+     */
+    public RegionGraph buildRegionGraph() {
+        RegionRaster raster = new FortuneVoronoi(sites, mapWidth, mapHeight).getRegionAssignment();
+        return RegionGraph.fromRaster(raster, sites.length);
+    }
+
+    // --- Buffered reading ---
+
+    private void position(long offset) throws IOException {
+        channel.position(offset);
+        buffer.clear().limit(0);
+    }
+
+    private long offset() throws IOException {
+        return channel.position() - buffer.remaining();
+    }
+
+    // Makes n bytes available in the buffer; false at the end of the file.
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) return true;
+        if (n > buffer.capacity()) throw new IOException("Replay record of " + n + " bytes does not fit the buffer");
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    // --- Getters ---
+    public long getSeed() { return seed; }
+    public int getMapWidth() { return mapWidth; }
+    public int getMapHeight() { return mapHeight; }
+    public double getSmartRisk() { return smartRisk; }
+    public int getKeyframeInterval() { return keyframeInterval; }
+    public TeamControl[] getTeamControls() { return controls.clone(); }
+    /** Number of complete turns in the journal. */
+    public int getTurnCount() { return turnCount; }
+    /** Sites as of the last {@link #seek} or {@link #replayAll}. */
+    public Point[] getSites() { return sites; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Replays the journal named by the first argument at full speed and prints the outcome. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) throw new IllegalArgumentException("Usage: Replayer <journal>");
+        try (Replayer replayer = open(Paths.get(args[0]))) {
+            long start = System.nanoTime();
+            GameSimulation sim = replayer.replayAll();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d turns, %d keyframes, replayed in %.3f s%n",
+                    replayer.getTurnCount(), replayer.keyframeCount, seconds);
+            int winner = sim.getWinner();
+            System.out.println(winner >= 0 ? GameSimulation.TEAM_NAMES[winner] + " wins" : "No winner yet");
+        }
+    }
+}
@@ -0,0 +1,349 @@
+// File: main/SaveGame.java
+package main;
+
+import java.awt.Point;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A saved game: map, adjacency and region state, in a file laid out to be
+ * memory-mapped rather than parsed.
+ *
+ * Everything is little-endian. A header page holds the sizes, the seed and
+ * team setup, and the offset of each section. The sections follow, each
+ * aligned to 8 bytes:
+ * <ul>
+ *   <li>sites, x and y ints</li>
+ *   <li>troops ints, team bytes and bastion bytes</li>
+ *   <li>the {@link RegionGraph} as N + 1 offset ints and its neighbour ints</li>
+ *   <li>the {@link RegionBoundaries} runs and the {@link RegionSpans}, each as
+ *       N + 1 offset ints and packed triples, the same way</li>
+ *   <li>the {@link RegionRaster} cells, row-major, starting on a page boundary</li>
+ * </ul>
+ * {@link #load} maps everything before the raster and copies it into arrays,
+ * which is O(regions + edges + runs + spans); nothing is recomputed from the
+ * raster. It maps the raster copy-on-write, so pixels are read from disk only
+ * when something touches them; a file that cannot be opened for writing is
+ * read into memory instead. The header's section offsets must be exactly the
+ * ones its sizes give, and every team, neighbour, offset and pixel run must be
+ * in range, or the file is rejected with an {@link IOException}. Raster cells
+ * are not checked, since that would read every page up front.
+ */
+public final class SaveGame {
+    static final int MAGIC = 0x56435356; // "VCSV"
+    static final int VERSION = 2;
+    private static final int PAGE = 4096;
+    private static final int SECTIONS = 11, RASTER = SECTIONS - 1;
+    // The fixed part of the header, before the team controls.
+    private static final int HEADER_BYTES = 12 * 4 + 8 + 8 + SECTIONS * 8;
+
+    private final int mapWidth, mapHeight;
+    private final long seed;
+    private final TeamControl[] controls;
+    private final double smartRisk;
+    private final Point[] sites;
+    private final GameState state;
+    private final RegionGraph graph;
+    private final RegionRaster raster;
+    private final RegionBoundaries boundaries;
+    private final RegionSpans spans;
+
+    public SaveGame(int mapWidth, int mapHeight, long seed, TeamControl[] controls, double smartRisk,
+                    Point[] sites, GameState state, RegionGraph graph, RegionRaster raster,
+                    RegionBoundaries boundaries, RegionSpans spans) {
+        int n = state.getNumRegions();
+        if (sites.length != n || graph.getNumRegions() != n
+                || boundaries.getNumRegions() != n || spans.getNumRegions() != n) {
+            throw new IllegalArgumentException("Sites, state, graph and raster indexes disagree on the region count");
+        }
+        if (raster.getWidth() != mapWidth || raster.getHeight() != mapHeight) {
+            throw new IllegalArgumentException("Raster size does not match the map");
+        }
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.seed = seed;
+        this.controls = controls.clone();
+        this.smartRisk = smartRisk;
+        this.sites = sites;
+        this.state = state;
+        this.graph = graph;
+        this.raster = raster;
+        this.boundaries = boundaries;
+        this.spans = spans;
+    }
+
+    // Section offsets, in file order, for a game of this size.
+    private static long[] layout(int numRegions, int numEdges, int numRuns, int numSpans, int numTeams) {
+        long[] at = new long[SECTIONS];
+        at[0] = PAGE;                                         // sites
+        at[1] = align(at[0] + 8L * numRegions, 8);            // troops
+        at[2] = align(at[1] + 4L * numRegions, 8);            // teams
+        at[3] = align(at[2] + numRegions, 8);                 // bastions
+        at[4] = align(at[3] + numRegions, 8);                 // graph offsets
+        at[5] = align(at[4] + 4L * (numRegions + 1), 8);      // graph neighbours
+        at[6] = align(at[5] + 4L * numEdges, 8);              // boundary run offsets
+        at[7] = align(at[6] + 4L * (numRegions + 1), 8);      // boundary runs
+        at[8] = align(at[7] + 12L * numRuns, 8);              // span offsets
+        at[9] = align(at[8] + 4L * (numRegions + 1), 8);      // spans
+        at[RASTER] = align(at[9] + 12L * numSpans, PAGE);
+        if (numTeams > PAGE - HEADER_BYTES) throw new IllegalArgumentException("Too many teams");
+        return at;
+    }
+
+    private static long align(long offset, int to) {
+        return (offset + to - 1) / to * to;
+    }
+
+    /** Writes the game to {@code file}, replacing it. */
+    public void write(Path file) throws IOException {
+        int n = state.getNumRegions();
+        int edges = n == 0 ? 0 : graph.getNeighborEnd(n - 1);
+        int cellBytes = raster.getCellBytes();
+        int runs = 0, spanCount = 0;
+        for (int r = 0; r < n; r++) {
+            runs += boundaries.getRunCount(r);
+            spanCount += spans.getSpanCount(r);
+        }
+        long[] at = layout(n, edges, runs, spanCount, controls.length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.reserve(PAGE).putInt(MAGIC).putInt(VERSION).putInt(mapWidth).putInt(mapHeight).putInt(n)
+                    .putInt(controls.length).putInt(cellBytes).putInt(state.getCurrentTeam())
+                    .putInt(state.isGameOver() ? 1 : 0).putInt(edges).putInt(runs).putInt(spanCount)
+                    .putLong(seed).putDouble(smartRisk);
+            for (int s = 0; s < SECTIONS; s++) {
+                out.buffer.putLong(at[s]);
+            }
+            for (TeamControl control : controls) {
+                out.buffer.put((byte) control.ordinal());
+            }
+            out.padTo(at[0]);
+            for (Point site : sites) {
+                out.reserve(8).putInt(site.x).putInt(site.y);
+            }
+            out.padTo(at[1]);
+            for (int r = 0; r < n; r++) out.reserve(4).putInt(state.getTroops(r));
+            out.padTo(at[2]);
+            for (int r = 0; r < n; r++) out.reserve(1).put((byte) state.getTeam(r));
+            out.padTo(at[3]);
+            for (int r = 0; r < n; r++) out.reserve(1).put((byte) (state.isBastion(r) ? 1 : 0));
+            out.padTo(at[4]);
+            for (int r = 0; r < n; r++) out.reserve(4).putInt(graph.getNeighborStart(r));
+            out.reserve(4).putInt(edges);
+            out.padTo(at[5]);
+            int[] neighbors = graph.getNeighbors();
+            for (int k = 0; k < edges; k++) out.reserve(4).putInt(neighbors[k]);
+            out.padTo(at[6]);
+            int total = 0;
+            for (int r = 0; r < n; r++) {
+                out.reserve(4).putInt(total);
+                total += boundaries.getRunCount(r);
+            }
+            out.reserve(4).putInt(total);
+            out.padTo(at[7]);
+            for (int r = 0; r < n; r++) putTriples(out, boundaries.getRuns(r), boundaries.getRunCount(r));
+            out.padTo(at[8]);
+            total = 0;
+            for (int r = 0; r < n; r++) {
+                out.reserve(4).putInt(total);
+                total += spans.getSpanCount(r);
+            }
+            out.reserve(4).putInt(total);
+            out.padTo(at[9]);
+            for (int r = 0; r < n; r++) putTriples(out, spans.getSpans(r), spans.getSpanCount(r));
+            out.padTo(at[RASTER]);
+            int[] row = new int[mapWidth];
+            for (int y = 0; y < mapHeight; y++) {
+                raster.getRow(y, row);
+                for (int x0 = 0; x0 < mapWidth; x0 += 4096) {
+                    int x1 = Math.min(mapWidth, x0 + 4096);
+                    ByteBuffer b = out.reserve((x1 - x0) * cellBytes);
+                    for (int x = x0; x < x1; x++) {
+                        switch (cellBytes) {
+                            case 1: b.put((byte) row[x]); break;
+                            case 2: b.putShort((short) row[x]); break;
+                            default: b.putInt(row[x]);
+                        }
+                    }
+                }
+            }
+            out.drain();
+        }
+    }
+
+    private static void putTriples(Output out, int[] packed, int count) throws IOException {
+        for (int i = 0; i < 3 * count; i++) out.reserve(4).putInt(packed[i]);
+    }
+
+    /**
+     * Maps {@code file}; see the class comment for what is read eagerly. The
+     * file is opened for writing because copy-on-write mappings need that,
+     * but nothing is ever written to it. If it is read-only, the raster is
+     * copied into memory instead of mapped.
+     */
+    public static SaveGame load(Path file) throws IOException {
+        boolean writable = true;
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (FileSystemException ex) {
+            writable = false;
+            opened = FileChannel.open(file, StandardOpenOption.READ);
+        }
+        try (FileChannel channel = opened) {
+            long size = channel.size();
+            if (size < PAGE) throw new EOFException("Save file is too short");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PAGE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) throw new IOException("Not a save file");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported save version " + version);
+            int mapWidth = header.getInt(), mapHeight = header.getInt(), n = header.getInt();
+            int numTeams = header.getInt(), cellBytes = header.getInt();
+            int currentTeam = header.getInt();
+            boolean gameOver = header.getInt() != 0;
+            int edges = header.getInt(), runs = header.getInt(), spanCount = header.getInt();
+            long seed = header.getLong();
+            double smartRisk = header.getDouble();
+            long[] at = new long[SECTIONS];
+            for (int s = 0; s < SECTIONS; s++) {
+                at[s] = header.getLong();
+            }
+            if (mapWidth <= 0 || mapHeight <= 0 || n < 0 || edges < 0 || runs < 0 || spanCount < 0
+                    || numTeams < 1 || numTeams > Byte.MAX_VALUE
+                    || (cellBytes != 1 && cellBytes != 2 && cellBytes != 4)
+                    || currentTeam < 0 || currentTeam >= numTeams) {
+                throw new IOException("Corrupt save header");
+            }
+            if (!Arrays.equals(at, layout(n, edges, runs, spanCount, numTeams))) {
+                throw new IOException("Corrupt save header: section offsets do not match the sizes");
+            }
+            if (at[RASTER] > Integer.MAX_VALUE) throw new IOException("Save file is too large to map");
+            TeamControl[] values = TeamControl.values();
+            TeamControl[] controls = new TeamControl[numTeams];
+            for (int t = 0; t < numTeams; t++) {
+                int control = header.get();
+                if (control < 0 || control >= values.length) throw new IOException("Unknown team control " + control);
+                controls[t] = values[control];
+            }
+            long rasterBytes = (long) mapWidth * mapHeight * cellBytes;
+            if (at[RASTER] + rasterBytes > size) throw new EOFException("Save file is cut off");
+
+            ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, 0, at[RASTER]).order(ByteOrder.LITTLE_ENDIAN);
+            int[] xy = ints(body, at[0], 2 * n);
+            Point[] sites = new Point[n];
+            for (int r = 0; r < n; r++) {
+                sites[r] = new Point(xy[2 * r], xy[2 * r + 1]);
+            }
+            int[] troops = ints(body, at[1], n);
+            GameState state = new GameState(n, numTeams);
+            for (int r = 0; r < n; r++) {
+                int team = body.get((int) at[2] + r);
+                if (team < 0 || team >= numTeams) throw new IOException("Region " + r + " has unknown team " + team);
+                state.setTeam(r, team);
+                state.setTroops(r, troops[r]);
+                state.setBastion(r, body.get((int) at[3] + r) != 0);
+            }
+            state.setCurrentTeam(currentTeam);
+            state.setGameOver(gameOver);
+            int[] graphOffsets = ints(body, at[4], n + 1), neighbors = ints(body, at[5], edges);
+            checkOffsets(graphOffsets, edges, "graph");
+            for (int neighbor : neighbors) {
+                if (neighbor < 0 || neighbor >= n) throw new IOException("Graph neighbour out of range: " + neighbor);
+            }
+            int[] runOffsets = ints(body, at[6], n + 1), runData = ints(body, at[7], 3 * runs);
+            checkOffsets(runOffsets, runs, "boundary");
+            for (int i = 0; i < runData.length; i += 3) {
+                // x, y, length
+                checkRun(runData[i + 1], runData[i], runData[i] + runData[i + 2], mapWidth, mapHeight);
+            }
+            int[] spanOffsets = ints(body, at[8], n + 1), spanData = ints(body, at[9], 3 * spanCount);
+            checkOffsets(spanOffsets, spanCount, "span");
+            for (int i = 0; i < spanData.length; i += 3) {
+                // y, startX, endX
+                checkRun(spanData[i], spanData[i + 1], spanData[i + 2], mapWidth, mapHeight);
+            }
+            RegionGraph graph = RegionGraph.fromCsr(graphOffsets, neighbors);
+            RegionRaster raster = writable
+                    ? RegionRaster.map(channel, at[RASTER], mapWidth, mapHeight, cellBytes)
+                    : RegionRaster.read(channel, at[RASTER], mapWidth, mapHeight, cellBytes);
+            return new SaveGame(mapWidth, mapHeight, seed, controls, smartRisk, sites, state, graph, raster,
+                    RegionBoundaries.fromCsr(runOffsets, runData), RegionSpans.fromCsr(spanOffsets, spanData));
+        }
+    }
+
+    // CSR offsets must start at 0, never decrease and end at the entry count.
+    private static void checkOffsets(int[] offsets, int total, String what) throws IOException {
+        int previous = 0;
+        for (int offset : offsets) {
+            if (offset < previous) throw new IOException("Corrupt " + what + " offsets");
+            previous = offset;
+        }
+        if (offsets[0] != 0 || previous != total) throw new IOException("Corrupt " + what + " offsets");
+    }
+
+    private static void checkRun(int y, int startX, int endX, int width, int height) throws IOException {
+        if (y < 0 || y >= height || startX < 0 || endX <= startX || endX > width) {
+            throw new IOException("Pixel run outside the map: row " + y + ", " + startX + " to " + endX);
+        }
+    }
+
+    private static int[] ints(ByteBuffer body, long offset, int count) {
+        ByteBuffer slice = body.duplicate();
+        slice.position((int) offset);
+        IntBuffer view = slice.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int[] values = new int[count];
+        view.get(values);
+        return values;
+    }
+
+    // Buffered sequential writer that can pad up to a section offset.
+    private static final class Output {
+        private final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer reserve(int n) throws IOException {
+            if (buffer.remaining() < n) drain();
+            return buffer;
+        }
+
+        void padTo(long offset) throws IOException {
+            while (written + buffer.position() < offset) {
+                reserve(1).put((byte) 0);
+            }
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    public int getMapWidth() { return mapWidth; }
+    public int getMapHeight() { return mapHeight; }
+    public long getSeed() { return seed; }
+    public TeamControl[] getTeamControls() { return controls.clone(); }
+    public double getSmartRisk() { return smartRisk; }
+    public Point[] getSites() { return sites; }
+    public GameState getState() { return state; }
+    public RegionGraph getRegionGraph() { return graph; }
+    public RegionRaster getRaster() { return raster; }
+    public RegionBoundaries getRegionBoundaries() { return boundaries; }
+    public RegionSpans getRegionSpans() { return spans; }
+}
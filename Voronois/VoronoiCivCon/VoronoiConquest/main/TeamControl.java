@@ -1,5 +1,5 @@
 package main;
 
 public enum TeamControl {
-    HOTSEAT, DUMB, SMART
+    HOTSEAT, DUMB, SMART, MCTS, ALPHABETA
 }
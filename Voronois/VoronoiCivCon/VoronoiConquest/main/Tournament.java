@@ -0,0 +1,267 @@
+// File: main/Tournament.java
+package main;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many independent AI-vs-AI games on a work-stealing pool and reports
+ * win rates, game lengths and turn-time percentiles.
+ *
+ * Every game gets its own seed, split from one {@link SplittableRandom}, and
+ * builds its own map and {@link GameSimulation}; games share nothing, so with
+ * {@link TeamControl#DUMB} and {@link TeamControl#SMART} teams the results
+ * depend on the seed alone and not on the thread count.
+ * {@link TeamControl#MCTS} and {@link TeamControl#ALPHABETA} search until a
+ * wall-clock deadline, so how far they get, and with it their moves, varies
+ * from run to run and with the load on the machine. Games already run in
+ * parallel, so an MCTS team searches on one thread per game rather than
+ * taking helper threads from the shared pool.
+ *
+ * Run it with {@code ./gradlew tournament -PtournamentArgs="games=2000 controls=SMART,DUMB"};
+ * see {@link #main} for the keys.
+ */
+public class Tournament {
+    private final int numGames, numRegions, mapWidth, mapHeight, maxTurns;
+    private final TeamControl[] controls;
+    private final double smartRisk;
+    private final long seed;
+
+    public Tournament(int numGames, int numRegions, TeamControl[] controls, double smartRisk,
+                      int mapWidth, int mapHeight, int maxTurns, long seed) {
+        this.numGames = numGames;
+        this.numRegions = numRegions;
+        this.controls = controls;
+        this.smartRisk = smartRisk;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+    }
+
+    /** Plays every game on a pool of {@code threads} workers and waits for the result. */
+    public Report run(int threads) {
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] seeds = new long[numGames];
+        for (int i = 0; i < numGames; i++) {
+            seeds[i] = root.split().nextLong();
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            Report report = pool.submit(() -> IntStream.range(0, numGames).parallel()
+                    .mapToObj(i -> playGame(seeds[i]))
+                    .collect(() -> new Report(controls), Report::add, Report::merge)).get();
+            report.wallNanos = System.nanoTime() - start;
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Builds a fresh map and plays one game to a win or the turn limit.
+    GameResult playGame(long gameSeed) {
+        GameSimulation sim = GameSimulation.withVoronoiMap(numRegions, controls, smartRisk,
+                mapWidth, mapHeight, new Random(gameSeed));
+
+        mods.MctsAI mcts = new mods.MctsAI(mods.MctsAI.getDefault().getBudgetMillis(), 1);
+        TurnTimes times = new TurnTimes();
+        int turns = 0;
+        while (turns < maxTurns && !sim.isGameOver()) {
+            long turnStart = System.nanoTime();
+            Move move = sim.getTeamControl() == TeamControl.MCTS ? mcts.search(sim) : mods.AIManager.chooseMove(sim);
+            if (move != null) sim.apply(move);
+            sim.endTurn();
+            times.record(System.nanoTime() - turnStart);
+            turns++;
+        }
+        return new GameResult(sim.getWinner(), turns, times);
+    }
+
+    static final class GameResult {
+        final int winner;
+        final int turns;
+        final TurnTimes times;
+
+        GameResult(int winner, int turns, TurnTimes times) {
+            this.winner = winner;
+            this.turns = turns;
+            this.times = times;
+        }
+    }
+
+    /** Aggregated outcome; games that hit the turn limit count as draws. */
+    public static final class Report {
+        private final TeamControl[] controls;
+        private final long[] wins;
+        private long draws;
+        private int[] lengths = new int[16];
+        private int games;
+        private final TurnTimes turnTimes = new TurnTimes();
+        private long wallNanos;
+
+        Report(TeamControl[] controls) {
+            this.controls = controls;
+            this.wins = new long[controls.length];
+        }
+
+        void add(GameResult result) {
+            if (result.winner >= 0) {
+                wins[result.winner]++;
+            } else {
+                draws++;
+            }
+            if (games == lengths.length) lengths = Arrays.copyOf(lengths, games * 2);
+            lengths[games++] = result.turns;
+            turnTimes.merge(result.times);
+        }
+
+        void merge(Report other) {
+            for (int t = 0; t < wins.length; t++) {
+                wins[t] += other.wins[t];
+            }
+            draws += other.draws;
+            lengths = Arrays.copyOf(lengths, games + other.games);
+            System.arraycopy(other.lengths, 0, lengths, games, other.games);
+            games += other.games;
+            turnTimes.merge(other.turnTimes);
+        }
+
+        public int getGames() { return games; }
+        public long getWins(int team) { return wins[team]; }
+        public long getDraws() { return draws; }
+        public double getWinRate(int team) { return games == 0 ? 0 : (double) wins[team] / games; }
+        public long getTotalTurns() { return turnTimes.count(); }
+        public long getWallNanos() { return wallNanos; }
+
+        /** Game length in turns at quantile {@code q} (0..1). */
+        public int getGameLength(double q) {
+            if (games == 0) return 0;
+            int[] sorted = Arrays.copyOf(lengths, games);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(games - 1, Math.floor(q * games))];
+        }
+
+        /** Turn time in nanoseconds at quantile {@code q}, to within about 6%. */
+        public long getTurnNanos(double q) {
+            return turnTimes.quantile(q);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            double seconds = wallNanos / 1e9;
+            sb.append(String.format("%d games in %.2f s (%.1f games/s, %.0f turns/s)%n",
+                    games, seconds, games / seconds, getTotalTurns() / seconds));
+            String[] names = GameSimulation.TEAM_NAMES;
+            for (int t = 0; t < controls.length; t++) {
+                sb.append(String.format("  %-6s %-7s wins %6d (%5.1f%%)%n", names[t], controls[t], wins[t], 100 * getWinRate(t)));
+            }
+            sb.append(String.format("  draws (turn limit) %d (%.1f%%)%n", draws, games == 0 ? 0 : 100.0 * draws / games));
+            sb.append(String.format("  game length: p50 %d, p90 %d, max %d turns%n",
+                    getGameLength(0.5), getGameLength(0.9), getGameLength(1)));
+            sb.append(String.format("  turn time: p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n",
+                    getTurnNanos(0.5) / 1e3, getTurnNanos(0.9) / 1e3, getTurnNanos(0.99) / 1e3, getTurnNanos(1) / 1e3));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Log-linear histogram of durations: exact below 32 ns, then 16 buckets
+     * per power of two. It is small enough to keep one per game and merge.
+     */
+    static final class TurnTimes {
+        private static final int BUCKETS = 32 + 59 * 16;
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+
+        void record(long nanos) {
+            counts[bucket(Math.max(0, nanos))]++;
+            count++;
+        }
+
+        void merge(TurnTimes other) {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] += other.counts[b];
+            }
+            count += other.count;
+        }
+
+        long count() {
+            return count;
+        }
+
+        long quantile(double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.min(count - 1, Math.floor(q * count));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen > rank) return lowerBound(b);
+            }
+            return lowerBound(BUCKETS - 1);
+        }
+
+        private static int bucket(long v) {
+            if (v < 32) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            return 32 + (exp - 5) * 16 + (int) ((v >>> (exp - 4)) & 15);
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < 32) return bucket;
+            int exp = (bucket - 32) / 16 + 5;
+            return (16L + (bucket - 32) % 16) << (exp - 4);
+        }
+    }
+
+    /**
+     * Arguments are {@code key=value}: games (1000), threads (all cores),
+     * regions (60), controls (SMART,DUMB), risk (0.5), width (400),
+     * height (300), maxTurns (2000) and seed (1). The seed fixes the maps
+     * and the openings; only games without time-budgeted AIs repeat exactly.
+     */
+    public static void main(String[] args) {
+        int games = 1000, threads = Runtime.getRuntime().availableProcessors(), regions = 60;
+        int width = 400, height = 300, maxTurns = 2000;
+        double risk = 0.5;
+        long seed = 1;
+        TeamControl[] controls = {TeamControl.SMART, TeamControl.DUMB};
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            String key = arg.substring(0, eq), value = arg.substring(eq + 1);
+            switch (key) {
+                case "games": games = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "regions": regions = Integer.parseInt(value); break;
+                case "width": width = Integer.parseInt(value); break;
+                case "height": height = Integer.parseInt(value); break;
+                case "maxTurns": maxTurns = Integer.parseInt(value); break;
+                case "risk": risk = Double.parseDouble(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "controls":
+                    controls = Arrays.stream(value.split(",")).map(TeamControl::valueOf).toArray(TeamControl[]::new);
+                    break;
+                default: throw new IllegalArgumentException("Unknown option " + key);
+            }
+        }
+        for (TeamControl control : controls) {
+            if (control == TeamControl.MCTS || control == TeamControl.ALPHABETA) {
+                System.err.println(control + " searches to a time limit, so results vary between runs.");
+                break;
+            }
+        }
+        Tournament tournament = new Tournament(games, regions, controls, risk, width, height, maxTurns, seed);
+        System.out.print(tournament.run(threads));
+    }
+}
@@ -0,0 +1,15 @@
+// File: main/TurnEndedEvent.java
+package main;
+
+public class TurnEndedEvent extends GameEvent {
+    private final int newCurrentTeam;
+    
+    public TurnEndedEvent(int newCurrentTeam) {
+        super("TurnEnded");
+        this.newCurrentTeam = newCurrentTeam;
+    }
+    
+    public int getNewCurrentTeam() {
+        return newCurrentTeam;
+    }
+}
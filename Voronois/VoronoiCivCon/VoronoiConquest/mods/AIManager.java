@@ -2,9 +2,18 @@
 package mods;
 
 import main.AIContext;
+import main.Move;
 import main.TeamControl;
 
+import javax.swing.SwingUtilities;
+
 public class AIManager {
+    /**
+     * Chooses the current team's move, then plays it and ends the turn on the
+     * EDT, for mods written before {@link #chooseMove}. Searching AIs block
+     * the caller for their budget. Does nothing for human teams.
+     */
+    @Deprecated
     public static void doMove(AIContext context) {
         TeamControl control = context.getTeamControl();
         switch (control) {
@@ -14,8 +23,39 @@ public class AIManager {
             case SMART:
                 SmartAI.doMove(context);
                 break;
+            case MCTS:
+                play(context, MctsAI.chooseMove(context));
+                break;
+            case ALPHABETA:
+                play(context, AlphaBetaAI.chooseMove(context));
+                break;
             default:
                 break;
         }
     }
+
+    // The old doMove contract: the move and the end of the turn are posted to the EDT.
+    static void play(AIContext context, Move move) {
+        SwingUtilities.invokeLater(() -> {
+            if (move != null) context.apply(move);
+            context.endTurn();
+        });
+    }
+
+    /** Returns the move of the current team's AI, or null to pass (and for human teams). */
+    public static Move chooseMove(AIContext context) {
+        TeamControl control = context.getTeamControl();
+        switch (control) {
+            case DUMB:
+                return DumbAI.chooseMove(context);
+            case SMART:
+                return SmartAI.chooseMove(context);
+            case MCTS:
+                return MctsAI.chooseMove(context);
+            case ALPHABETA:
+                return AlphaBetaAI.chooseMove(context);
+            default:
+                return null;
+        }
+    }
 }
@@ -0,0 +1,362 @@
+// File: mods/AlphaBetaAI.java
+package mods;
+
+import main.AIContext;
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.RegionGraph;
+import main.TeamControl;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Iterative-deepening alpha-beta search for the current team.
+ *
+ * With more than two teams the search is paranoid: every other team is
+ * assumed to play against the searching one, which keeps plain alpha-beta
+ * pruning valid. A ply is one move or pass plus the end of the turn, played
+ * on a headless copy with {@link GameSimulation#make}/{@link GameSimulation#unmake}.
+ * Leaves are scored on the searching team's region and troop share.
+ *
+ * Moves are tried in this order: the previous iteration's best at the root
+ * or the transposition table's best elsewhere, then the two killer moves of
+ * the ply, then by {@link SmartAI} score plus history bonus. The deadline is checked every few hundred nodes; when it
+ * passes, the search unwinds and returns the best move of the deepest
+ * iteration that got through its first root move. If not even depth 1 got
+ * that far, it plays the best move by the ordering alone.
+ *
+ * Results of inner nodes go into a {@link TranspositionTable}, keyed by the
+ * position hash, the searching team and the {@link RegionGraph#getVersion()
+ * map version}, so a map edit never reuses results found on the old map. A stored result deep enough ends the
+ * node at once, and a stored best move is tried first. The table outlives
+ * the search, so the next turn starts with what this one learned, and it may
+ * be shared with other instances on other threads.
+ */
+public final class AlphaBetaAI {
+    public static final long DEFAULT_BUDGET_MILLIS = 200;
+
+    private static final int PASS = EdgeMoves.PASS;
+    private static final int MAX_DEPTH = 64;
+    private static final int CHECK_INTERVAL = 256;
+    private static final double WIN = 1_000_000;
+    private static final double KILLER_BONUS = 1e12;
+    private static final int NO_MOVE = -2;
+    public static final long DEFAULT_TABLE_BYTES = 16L << 20;
+
+    private static final AlphaBetaAI DEFAULT = new AlphaBetaAI(DEFAULT_BUDGET_MILLIS);
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private volatile long budgetMillis;
+    private final TranspositionTable table;
+
+    // Results of the last search.
+    private volatile int lastDepth;
+    private volatile long lastNodes;
+    private volatile long lastNanos;
+
+    public AlphaBetaAI(long budgetMillis) {
+        this(budgetMillis, new TranspositionTable(DEFAULT_TABLE_BYTES));
+    }
+
+    public AlphaBetaAI(long budgetMillis, TranspositionTable table) {
+        setBudgetMillis(budgetMillis);
+        this.table = table;
+    }
+
+    /** Searches with the shared instance; see {@link #getDefault()}. */
+    public static Move chooseMove(AIContext context) {
+        return DEFAULT.search(context);
+    }
+
+    /** The instance {@link TeamControl#ALPHABETA} teams use; its budget can be changed. */
+    public static AlphaBetaAI getDefault() {
+        return DEFAULT;
+    }
+
+    /** Returns the move to play for the current team, or null to pass. */
+    public Move search(AIContext context) {
+        return search(context, NEVER);
+    }
+
+    /**
+     * Same as {@link #search(AIContext)}, but also gives up as if the deadline
+     * had passed once {@code stop} returns true. It is asked at every
+     * deadline check, so it must be cheap and safe to call from this thread.
+     */
+    public Move search(AIContext context, BooleanSupplier stop) {
+        long start = System.nanoTime();
+        Search search = new Search(context, table, start + budgetMillis * 1_000_000L, stop);
+        int edge = search.run();
+        lastDepth = search.completedDepth;
+        lastNodes = search.nodes;
+        lastNanos = System.nanoTime() - start;
+        return search.edgeMoves.move(context.getState(), edge);
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /** Wall time each later search may take. */
+    public void setBudgetMillis(long budgetMillis) {
+        if (budgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive: " + budgetMillis);
+        this.budgetMillis = budgetMillis;
+    }
+
+    /** The table searches read and fill; its statistics cover every search since it was cleared. */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /** Deepest iteration the last search finished. */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /** Plies of finished depth per second of the last search. */
+    public double getLastDepthPerSecond() {
+        long nanos = lastNanos;
+        return nanos == 0 ? 0 : lastDepth * 1e9 / nanos;
+    }
+
+    public double getLastNodesPerSecond() {
+        long nanos = lastNanos;
+        return nanos == 0 ? 0 : lastNodes * 1e9 / nanos;
+    }
+
+    // State of one call: the copy, the deadline and the ordering tables.
+    private static final class Search {
+        private final GameSimulation sim;
+        private final GameState st;
+        private final RegionGraph graph;
+        private final EdgeMoves edgeMoves;
+        private final int numRegions;
+        private final int rootTeam;
+        private final long deadline;
+        private final BooleanSupplier stop;
+        private final TranspositionTable table;
+        // Mixed into every table key; values are scored for the root team on this map only.
+        private final long rootSalt;
+
+        // Per-ply move lists and ordering keys, allocated the first time a ply is reached.
+        private final int[][] moves = new int[MAX_DEPTH + 1][];
+        private final double[][] keys = new double[MAX_DEPTH + 1][];
+        // Two killer edges per ply; PASS is a valid killer, so empty slots are MIN_VALUE.
+        private final int[][] killers = new int[MAX_DEPTH + 1][2];
+        // Cut-off bonus per edge, indexed edge + 1 so a pass is slot 0.
+        private final double[] history;
+
+        private long nodes;
+        private boolean aborted;
+        private int completedDepth;
+
+        Search(AIContext context, TranspositionTable table, long deadline, BooleanSupplier stop) {
+            GameState position = context.getState();
+            numRegions = position.getNumRegions();
+            int numTeams = context.getTeamNames().length;
+            TeamControl[] controls = new TeamControl[numTeams];
+            Arrays.fill(controls, TeamControl.ALPHABETA);
+            sim = new GameSimulation(numRegions, numTeams, controls, context.getSmartRisk(), new Random(0));
+            sim.setRegionGraph(context.getRegionGraph());
+            sim.setState(position);
+            st = sim.getState();
+            graph = context.getRegionGraph();
+            edgeMoves = new EdgeMoves(graph);
+            rootTeam = position.getCurrentTeam();
+            this.deadline = deadline;
+            this.stop = stop;
+            this.table = table;
+            rootSalt = (rootTeam + 1) * 0x9E3779B97F4A7C15L ^ graph.getVersion() * 0xC2B2AE3D27D4EB4FL;
+            history = new double[edgeMoves.size() + 1];
+            for (int[] k : killers) Arrays.fill(k, Integer.MIN_VALUE);
+        }
+
+        // Deepens until the deadline and returns the best root edge.
+        int run() {
+            if (st.isGameOver()) return PASS;
+            int count = generate(0, NO_MOVE);
+            int best = moves[0][0];
+            for (int depth = 1; depth <= MAX_DEPTH && !aborted; depth++) {
+                int iterationBest = searchRoot(depth, count, best);
+                if (iterationBest == Integer.MIN_VALUE) break;
+                best = iterationBest;
+                if (aborted) break;
+                completedDepth = depth;
+            }
+            return best;
+        }
+
+        // One root iteration with the previous best first. Returns MIN_VALUE if the
+        // deadline came before the first move was searched.
+        private int searchRoot(int depth, int count, int previousBest) {
+            int[] rootMoves = moves[0];
+            for (int i = 0; i < count; i++) {
+                if (rootMoves[i] == previousBest) {
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    rootMoves[0] = previousBest;
+                    break;
+                }
+            }
+            double alpha = Double.NEGATIVE_INFINITY;
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int edge = rootMoves[i];
+                sim.make(edgeMoves.move(st, edge));
+                double value = alphaBeta(depth - 1, 1, alpha, Double.POSITIVE_INFINITY);
+                sim.unmake();
+                if (aborted) break;
+                if (value > alpha || best == Integer.MIN_VALUE) {
+                    alpha = value;
+                    best = edge;
+                }
+            }
+            return best;
+        }
+
+        // Paranoid minimax: the root team maximizes its score, everyone else minimizes it.
+        private double alphaBeta(int depth, int ply, double alpha, double beta) {
+            if (++nodes % CHECK_INTERVAL == 0 && (System.nanoTime() > deadline || stop.getAsBoolean())) {
+                aborted = true;
+            }
+            if (aborted) return 0;
+            if (st.isGameOver()) {
+                // Sooner wins and later losses score better.
+                return st.getSoleOwner() == rootTeam ? WIN - ply : -WIN + ply;
+            }
+            if (depth == 0 || ply == MAX_DEPTH) return evaluate();
+
+            long key = st.getPositionHash() ^ rootSalt;
+            long entry = table.probe(key);
+            int tableMove = NO_MOVE;
+            if (entry != TranspositionTable.MISS) {
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    double stored = fromTable(TranspositionTable.value(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && stored >= beta)
+                            || (bound == TranspositionTable.UPPER && stored <= alpha)) {
+                        return stored;
+                    }
+                }
+            }
+
+            double alphaIn = alpha, betaIn = beta;
+            boolean maximizing = st.getCurrentTeam() == rootTeam;
+            int count = generate(ply, tableMove);
+            int[] plyMoves = moves[ply];
+            double best = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            int bestEdge = NO_MOVE;
+            for (int i = 0; i < count; i++) {
+                int edge = plyMoves[i];
+                sim.make(edgeMoves.move(st, edge));
+                double value = alphaBeta(depth - 1, ply + 1, alpha, beta);
+                sim.unmake();
+                if (aborted) return best;
+                if (maximizing ? value > best : value < best) {
+                    best = value;
+                    bestEdge = edge;
+                }
+                if (maximizing) {
+                    if (best > alpha) alpha = best;
+                } else {
+                    if (best < beta) beta = best;
+                }
+                if (alpha >= beta) {
+                    recordCutoff(ply, edge, depth);
+                    break;
+                }
+            }
+            int bound = best <= alphaIn ? TranspositionTable.UPPER
+                    : best >= betaIn ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, depth, bound, (float) toTable(best, ply), bestEdge);
+            return best;
+        }
+
+        // Win and loss scores count plies from the root; the table keeps them
+        // counted from the node so they stay right wherever the node is reached.
+        private static double toTable(double value, int ply) {
+            if (value > WIN / 2) return value + ply;
+            if (value < -WIN / 2) return value - ply;
+            return value;
+        }
+
+        private static double fromTable(double value, int ply) {
+            if (value > WIN / 2) return value - ply;
+            if (value < -WIN / 2) return value + ply;
+            return value;
+        }
+
+        private void recordCutoff(int ply, int edge, int depth) {
+            int[] k = killers[ply];
+            if (k[0] != edge) {
+                k[1] = k[0];
+                k[0] = edge;
+            }
+            history[edge + 1] += depth * depth;
+        }
+
+        // Fills moves[ply] with every edge out of a region the current team holds
+        // with troops, plus a pass, in search order; returns how many.
+        private int generate(int ply, int tableMove) {
+            if (moves[ply] == null) {
+                moves[ply] = new int[edgeMoves.size() + 1];
+                keys[ply] = new double[edgeMoves.size() + 1];
+            }
+            int[] plyMoves = moves[ply];
+            double[] plyKeys = keys[ply];
+            int[] killer = killers[ply];
+            int team = st.getCurrentTeam();
+            int count = 0;
+            plyMoves[count] = PASS;
+            plyKeys[count++] = orderKey(PASS, 0, killer, tableMove);
+            int[] neighbors = graph.getNeighbors();
+            for (int r = st.nextRegionOf(team, 0); r >= 0; r = st.nextRegionOf(team, r + 1)) {
+                if (st.getTroops(r) <= 0) continue;
+                for (int e = graph.getNeighborStart(r); e < graph.getNeighborEnd(r); e++) {
+                    plyMoves[count] = e;
+                    plyKeys[count++] = orderKey(e, SmartAI.score(sim, r, neighbors[e]), killer, tableMove);
+                }
+            }
+            // Insertion sort, best key first; lists are a few hundred moves at most.
+            for (int i = 1; i < count; i++) {
+                int move = plyMoves[i];
+                double key = plyKeys[i];
+                int j = i - 1;
+                while (j >= 0 && plyKeys[j] < key) {
+                    plyMoves[j + 1] = plyMoves[j];
+                    plyKeys[j + 1] = plyKeys[j];
+                    j--;
+                }
+                plyMoves[j + 1] = move;
+                plyKeys[j + 1] = key;
+            }
+            return count;
+        }
+
+        private double orderKey(int edge, double greedyScore, int[] killer, int tableMove) {
+            if (edge == tableMove) return 3 * KILLER_BONUS;
+            if (edge == killer[0]) return 2 * KILLER_BONUS;
+            if (edge == killer[1]) return KILLER_BONUS;
+            return greedyScore + history[edge + 1];
+        }
+
+        // The root team's mean share of regions and troops.
+        private double evaluate() {
+            long totalTroops = 0;
+            for (int t = 0; t < sim.getNumTeams(); t++) {
+                totalTroops += Math.max(0, st.getTeamTroops(t));
+            }
+            double regionShare = (double) st.getTeamRegions(rootTeam) / numRegions;
+            double troopShare = totalTroops == 0 ? 0 : Math.max(0, st.getTeamTroops(rootTeam)) / (double) totalTroops;
+            return 0.5 * regionShare + 0.5 * troopShare;
+        }
+    }
+}
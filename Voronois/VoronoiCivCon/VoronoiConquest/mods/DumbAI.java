@@ -2,45 +2,26 @@
 package mods;
 
 import main.AIContext;
-import javax.swing.SwingUtilities;
-import java.util.ArrayList;
-import java.util.Random;
+import main.Move;
+import main.MoveGenerator;
 
 public class DumbAI {
+    /** Plays {@link #chooseMove} and ends the turn, for mods written before it; see {@link AIManager#doMove}. */
+    @Deprecated
     public static void doMove(AIContext engine) {
-        int numRegions = engine.getNumRegions();
-        int currentTeam = engine.getCurrentTeam();
-        int[] regionTeam = engine.getRegionTeam();
-        int[] troops = engine.getTroops();
-        boolean[][] adjacent = engine.getAdjacent();
-        String[] teamNames = engine.getTeamNames();
-        Random rand = engine.getRand();
+        AIManager.play(engine, chooseMove(engine));
+    }
 
-        java.util.List<int[]> moves = new ArrayList<>();
-        for (int i = 0; i < numRegions; i++) {
-            if (regionTeam[i] == currentTeam && troops[i] > 0) {
-                for (int j = 0; j < numRegions; j++) {
-                    if (adjacent[i][j]) {
-                        moves.add(new int[]{i, j});
-                    }
-                }
-            }
-        }
-        if (moves.isEmpty()) {
-            System.out.println("Dumb AI (" + teamNames[currentTeam] + ") has no valid moves. Skipping turn.");
-            SwingUtilities.invokeLater(engine::endTurn);
-            return;
+    /**
+     * Picks a random neighbour of a region the current team holds: a reinforce
+     * if it is friendly, an attack otherwise. Returns null if there is none.
+     */
+    public static Move chooseMove(AIContext engine) {
+        MoveGenerator moves = engine.getMoveGenerator();
+        int count = moves.generate(engine);
+        if (count == 0) {
+            return null;
         }
-        int[] move = moves.get(rand.nextInt(moves.size()));
-        SwingUtilities.invokeLater(() -> {
-            if (regionTeam[move[0]] == regionTeam[move[1]]) {
-                System.out.println("Dumb AI (" + teamNames[currentTeam] + ") reinforces region " + move[1]);
-                engine.executeReinforce(move[0], move[1]);
-            } else {
-                System.out.println("Dumb AI (" + teamNames[currentTeam] + ") attacks from region " + move[0] + " to region " + move[1]);
-                engine.executeMove(move[0], move[1]);
-            }
-            engine.endTurn();
-        });
+        return MoveGenerator.toMove(moves.get(engine.getRand().nextInt(count)));
     }
 }
@@ -0,0 +1,54 @@
+// File: mods/EdgeMoves.java
+package mods;
+
+import main.GameState;
+import main.Move;
+import main.RegionGraph;
+
+/**
+ * A prebuilt {@link Move} of each kind for every directed edge of a region
+ * graph, so searches can play edges without allocating. Edge k is slot k of
+ * {@link RegionGraph#getNeighbors()}; {@link #PASS} stands for no move.
+ */
+final class EdgeMoves {
+    static final int PASS = -1;
+
+    private final int[] source, dest;
+    private final Move[] attacks, reinforces;
+
+    EdgeMoves(RegionGraph graph) {
+        int numRegions = graph.getNumRegions();
+        int edges = numRegions == 0 ? 0 : graph.getNeighborEnd(numRegions - 1);
+        int[] neighbors = graph.getNeighbors();
+        source = new int[edges];
+        dest = new int[edges];
+        attacks = new Move[edges];
+        reinforces = new Move[edges];
+        for (int r = 0; r < numRegions; r++) {
+            for (int k = graph.getNeighborStart(r); k < graph.getNeighborEnd(r); k++) {
+                source[k] = r;
+                dest[k] = neighbors[k];
+                attacks[k] = Move.move(r, neighbors[k]);
+                reinforces[k] = Move.reinforce(r, neighbors[k]);
+            }
+        }
+    }
+
+    int size() {
+        return source.length;
+    }
+
+    int source(int edge) {
+        return source[edge];
+    }
+
+    int dest(int edge) {
+        return dest[edge];
+    }
+
+    /** A reinforce if both ends of {@code edge} are on one team, otherwise a move; null for a pass. */
+    Move move(GameState state, int edge) {
+        if (edge == PASS) return null;
+        return state.getTeam(source[edge]) == state.getTeam(dest[edge]) ? reinforces[edge] : attacks[edge];
+    }
+}
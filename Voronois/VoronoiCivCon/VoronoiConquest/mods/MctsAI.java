@@ -0,0 +1,402 @@
+// File: mods/MctsAI.java
+package mods;
+
+import main.AIContext;
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.RegionGraph;
+import main.TeamControl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Monte Carlo tree search (UCT) for the current team.
+ *
+ * Each search thread copies the position into its own headless
+ * {@link GameSimulation} and grows its own tree (root parallelism); the root
+ * visit counts are summed at the end and the most visited move wins. A ply is
+ * one move or pass plus the end of the turn, played with
+ * {@link GameSimulation#make} and taken back with {@link GameSimulation#unmake},
+ * so the copy is made once per search rather than once per playout.
+ *
+ * Tree moves are the current team's edges: an attack on an enemy neighbour,
+ * a reinforce of a friendly one, or a pass. Expansion tries them in
+ * {@link SmartAI} score order. Playouts pick the best of a few sampled edges,
+ * with some random moves mixed in, and are scored on region and troop share
+ * after {@link #PLAYOUT_PLIES} plies if nobody has won. They allocate nothing.
+ *
+ * The budget is wall time for the whole call, copying included. Helper
+ * threads come from one pool shared by every search, one fewer than there
+ * are cores; when it is busy, a search just runs fewer trees, the caller's
+ * own among them, rather than waiting or starting more threads.
+ */
+public final class MctsAI {
+    public static final long DEFAULT_BUDGET_MILLIS = 200;
+
+    private static final int PASS = EdgeMoves.PASS;
+    private static final int PLAYOUT_PLIES = 20;
+    private static final int PLAYOUT_SAMPLES = 6;
+    private static final int PLAYOUT_TRIES = 64;
+    private static final double PLAYOUT_RANDOM = 0.25;
+    // Playout rewards are shares that rarely differ by more than a few percent
+    // between moves, so exploration has to be small to let them count.
+    private static final double EXPLORATION = 0.02;
+
+    private static final MctsAI DEFAULT = new MctsAI(DEFAULT_BUDGET_MILLIS, Runtime.getRuntime().availableProcessors());
+    private static final BooleanSupplier NEVER = () -> false;
+    private static final int HELPERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static ExecutorService workers;
+
+    private volatile long budgetMillis;
+    private final int threads;
+
+    // Results of the last search, for sizing the budget.
+    private volatile long lastPlayouts;
+    private volatile long lastNanos;
+
+    public MctsAI(long budgetMillis, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one search thread");
+        setBudgetMillis(budgetMillis);
+        this.threads = threads;
+    }
+
+    /** Searches with the shared instance; see {@link #getDefault()}. */
+    public static Move chooseMove(AIContext context) {
+        return DEFAULT.search(context);
+    }
+
+    /** The instance {@link TeamControl#MCTS} teams use; its budget can be changed. */
+    public static MctsAI getDefault() {
+        return DEFAULT;
+    }
+
+    // Helper threads for root parallelism; the calling thread always searches too.
+    // Nothing queues: a helper that finds no free thread is rejected and skipped.
+    private static synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger count = new AtomicInteger();
+            workers = new ThreadPoolExecutor(0, HELPERS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+                Thread thread = new Thread(task, "mcts-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /** Returns the move to play for the current team, or null to pass. */
+    public Move search(AIContext context) {
+        return search(context, NEVER);
+    }
+
+    /**
+     * Same as {@link #search(AIContext)}, but every thread also stops as if
+     * the deadline had passed once {@code stop} returns true. It is asked
+     * before each playout, from every search thread.
+     */
+    public Move search(AIContext context, BooleanSupplier stop) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000L;
+        int numTeams = context.getTeamNames().length;
+        // Shared by every thread; Move is immutable.
+        EdgeMoves edgeMoves = new EdgeMoves(context.getRegionGraph());
+        int edges = edgeMoves.size();
+
+        Random rand = context.getRand();
+        List<Future<Worker>> helpers = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            Worker worker = new Worker(context, numTeams, edgeMoves, rand.nextLong());
+            try {
+                helpers.add(workers().submit(() -> worker.run(deadline, stop)));
+            } catch (RejectedExecutionException ex) {
+                // Every helper is busy with other searches.
+                break;
+            }
+        }
+        Worker own = new Worker(context, numTeams, edgeMoves, rand.nextLong()).run(deadline, stop);
+
+        // Sum the root visits of every tree, indexed by edge + 1 so a pass is slot 0.
+        long[] visits = new long[edges + 1];
+        long playouts = own.addRootVisits(visits);
+        for (Future<Worker> helper : helpers) {
+            try {
+                playouts += helper.get().addRootVisits(visits);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("MCTS worker failed", ex.getCause());
+            }
+        }
+        lastPlayouts = playouts;
+        lastNanos = System.nanoTime() - start;
+
+        int best = PASS;
+        long bestVisits = visits[0];
+        for (int k = 0; k < edges; k++) {
+            if (visits[k + 1] > bestVisits) {
+                bestVisits = visits[k + 1];
+                best = k;
+            }
+        }
+        return edgeMoves.move(context.getState(), best);
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /** Wall time each later search may take. */
+    public void setBudgetMillis(long budgetMillis) {
+        if (budgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive: " + budgetMillis);
+        this.budgetMillis = budgetMillis;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /** Playouts the last search ran, over all threads. */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /** Playouts per second of wall time in the last search. */
+    public double getLastPlayoutsPerSecond() {
+        long nanos = lastNanos;
+        return nanos == 0 ? 0 : lastPlayouts * 1e9 / nanos;
+    }
+
+    private static final class Node {
+        final int edge;
+        final int mover;
+        // Legal moves here as edges or PASS, best SmartAI score first; null until first reached.
+        int[] moves;
+        Node[] children;
+        int expanded;
+        int visits;
+        double reward;
+
+        Node(int edge, int mover) {
+            this.edge = edge;
+            this.mover = mover;
+        }
+    }
+
+    // One search thread: its own copy of the position and its own tree.
+    private static final class Worker {
+        private final GameSimulation sim;
+        private final GameState st;
+        private final RegionGraph graph;
+        private final int[] neighbors;
+        private final int numRegions;
+        private final EdgeMoves edgeMoves;
+        private final SplittableRandom rand;
+        private final Node root;
+        private final double[] rewards;
+        private final double[] scratchScores;
+        private final int[] scratchMoves;
+        private Node[] path = new Node[64];
+        private long playouts;
+
+        Worker(AIContext context, int numTeams, EdgeMoves edgeMoves, long seed) {
+            GameState position = context.getState();
+            numRegions = position.getNumRegions();
+            TeamControl[] controls = new TeamControl[numTeams];
+            Arrays.fill(controls, TeamControl.MCTS);
+            sim = new GameSimulation(numRegions, numTeams, controls, context.getSmartRisk(), new Random(seed));
+            sim.setRegionGraph(context.getRegionGraph());
+            sim.setState(position);
+            st = sim.getState();
+            graph = context.getRegionGraph();
+            neighbors = graph.getNeighbors();
+            this.edgeMoves = edgeMoves;
+            rand = new SplittableRandom(seed);
+            // The root's mover is the team before it; only its children's rewards are read.
+            root = new Node(PASS, -1);
+            rewards = new double[numTeams];
+            scratchScores = new double[edgeMoves.size() + 1];
+            scratchMoves = new int[edgeMoves.size() + 1];
+        }
+
+        Worker run(long deadline, BooleanSupplier stop) {
+            if (st.isGameOver()) return this;
+            while (System.nanoTime() < deadline && !stop.getAsBoolean()) {
+                iterate();
+            }
+            return this;
+        }
+
+        long addRootVisits(long[] visits) {
+            for (int c = 0; c < root.expanded; c++) {
+                Node child = root.children[c];
+                visits[child.edge + 1] += child.visits;
+            }
+            return playouts;
+        }
+
+        // Selection, expansion, playout and backup, ending back at the root position.
+        private void iterate() {
+            Node node = root;
+            int depth = 0;
+            while (!st.isGameOver()) {
+                if (node.moves == null) generateMoves(node);
+                Node next;
+                if (node.expanded < node.moves.length) {
+                    next = new Node(node.moves[node.expanded], st.getCurrentTeam());
+                    node.children[node.expanded++] = next;
+                } else {
+                    next = select(node);
+                }
+                play(next.edge);
+                if (depth == path.length) path = Arrays.copyOf(path, 2 * depth);
+                path[depth++] = next;
+                node = next;
+                if (next.visits == 0) break;
+            }
+
+            int plies = 0;
+            while (plies < PLAYOUT_PLIES && !st.isGameOver()) {
+                play(playoutMove());
+                plies++;
+            }
+            evaluate();
+            for (int i = 0; i < plies; i++) sim.unmake();
+
+            root.visits++;
+            for (int i = 0; i < depth; i++) {
+                Node n = path[i];
+                n.visits++;
+                n.reward += rewards[n.mover];
+                path[i] = null;
+                sim.unmake();
+            }
+            playouts++;
+        }
+
+        private Node select(Node node) {
+            double logVisits = Math.log(node.visits);
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < node.expanded; c++) {
+                Node child = node.children[c];
+                double value = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        private void play(int edge) {
+            sim.make(edgeMoves.move(st, edge));
+        }
+
+        // Every edge out of a region the current team holds with troops, plus a pass, best score first.
+        private void generateMoves(Node node) {
+            int team = st.getCurrentTeam();
+            int count = 0;
+            scratchMoves[count] = PASS;
+            scratchScores[count++] = 0;
+            for (int r = st.nextRegionOf(team, 0); r >= 0; r = st.nextRegionOf(team, r + 1)) {
+                if (st.getTroops(r) <= 0) continue;
+                for (int k = graph.getNeighborStart(r); k < graph.getNeighborEnd(r); k++) {
+                    scratchMoves[count] = k;
+                    scratchScores[count++] = SmartAI.score(sim, r, neighbors[k]);
+                }
+            }
+            // Insertion sort; move lists are short and this runs once per node.
+            for (int i = 1; i < count; i++) {
+                int move = scratchMoves[i];
+                double score = scratchScores[i];
+                int j = i - 1;
+                while (j >= 0 && scratchScores[j] < score) {
+                    scratchMoves[j + 1] = scratchMoves[j];
+                    scratchScores[j + 1] = scratchScores[j];
+                    j--;
+                }
+                scratchMoves[j + 1] = move;
+                scratchScores[j + 1] = score;
+            }
+            node.moves = Arrays.copyOf(scratchMoves, count);
+            node.children = new Node[count];
+        }
+
+        // The best of a few edges sampled from random regions, sometimes just the first one.
+        // A team with very few regions may not be found in PLAYOUT_TRIES draws and passes.
+        private int playoutMove() {
+            int team = st.getCurrentTeam();
+            int best = PASS, found = 0;
+            double bestScore = 0;
+            for (int tries = 0; tries < PLAYOUT_TRIES && found < PLAYOUT_SAMPLES; tries++) {
+                int r = rand.nextInt(numRegions);
+                if (st.getTeam(r) != team || st.getTroops(r) <= 0) continue;
+                int start = graph.getNeighborStart(r), end = graph.getNeighborEnd(r);
+                if (start == end) continue;
+                int k = start + rand.nextInt(end - start);
+                if (found++ == 0 && rand.nextDouble() < PLAYOUT_RANDOM) return k;
+                double score = SmartAI.score(sim, r, neighbors[k]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = k;
+                }
+            }
+            return best;
+        }
+
+        // Fills rewards: 1 for the winner, otherwise the mean of each team's region and troop share.
+        private void evaluate() {
+            if (st.isGameOver()) {
+                Arrays.fill(rewards, 0);
+                rewards[st.getSoleOwner()] = 1;
+                return;
+            }
+            long totalTroops = 0;
+            for (int t = 0; t < rewards.length; t++) {
+                totalTroops += Math.max(0, st.getTeamTroops(t));
+            }
+            for (int t = 0; t < rewards.length; t++) {
+                double regionShare = (double) st.getTeamRegions(t) / numRegions;
+                double troopShare = totalTroops == 0 ? 0 : Math.max(0, st.getTeamTroops(t)) / (double) totalTroops;
+                rewards[t] = 0.5 * regionShare + 0.5 * troopShare;
+            }
+        }
+    }
+
+    /**
+     * Prints playouts per second on a generated map, to size the budget for a
+     * machine. Arguments: budget in ms (200), threads (all cores), regions (60).
+     */
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_BUDGET_MILLIS;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int regions = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int width = 400, height = 300;
+        TeamControl[] controls = {TeamControl.MCTS, TeamControl.SMART};
+        GameSimulation sim = GameSimulation.withVoronoiMap(regions, controls, 0.5, width, height, new Random(1));
+        MctsAI ai = new MctsAI(budget, threads);
+        for (int turn = 0; turn < 10 && !sim.isGameOver(); turn++) {
+            Move move = sim.getTeamControl() == TeamControl.MCTS ? ai.search(sim) : SmartAI.chooseMove(sim);
+            if (sim.getTeamControl() == TeamControl.MCTS) {
+                System.out.printf("turn %d: %d playouts, %.0f playouts/s, %s%n", turn, ai.getLastPlayouts(),
+                        ai.getLastPlayoutsPerSecond(), move == null ? "pass" : move);
+            }
+            if (move != null) sim.apply(move);
+            sim.endTurn();
+        }
+    }
+}
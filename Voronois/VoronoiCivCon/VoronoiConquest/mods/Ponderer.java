@@ -0,0 +1,304 @@
+// File: mods/Ponderer.java
+package mods;
+
+import main.AIContext;
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.MoveGenerator;
+import main.RegionGraph;
+import main.TeamControl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thinks ahead for the AI team that moves next while another team, usually a
+ * hot-seat player, decides on its move.
+ *
+ * {@link #ponder} snapshots the position and guesses the mover's likely
+ * moves: its best few by {@link SmartAI} score, then a pass. On a background
+ * thread it plays each guess on a copy, ends the turn and, if the team that
+ * comes next searches ({@link TeamControl#MCTS} or
+ * {@link TeamControl#ALPHABETA}), searches that team's reply. When the turn
+ * comes, {@link #chooseMove} looks the real position up; if it equals a
+ * guessed one on the same map and the reply is still legal, the reply is
+ * played at once. Otherwise the AI searches as usual, and an alpha-beta team
+ * still starts from the transposition table the ponder filled.
+ *
+ * Only the team right after the mover is pondered for, and only if it
+ * searches: the other AIs answer in microseconds, and a reply further ahead
+ * would have to guess several moves in a row.
+ *
+ * All games ponder on one low-priority thread. A ponder stops when its
+ * budget of wall time runs out, when it is cancelled, or when the pondered
+ * turn starts; a reply search already running stops at its next deadline
+ * check. The copies the ponder searches are seeded from the position hash,
+ * never from the game's random stream, so seeded games stay reproducible.
+ */
+public final class Ponderer {
+    private static final Logger logger = Logger.getLogger(Ponderer.class.getName());
+
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+    public static final int DEFAULT_CANDIDATES = 4;
+
+    private static ExecutorService thread;
+
+    private volatile long budgetMillis = DEFAULT_BUDGET_MILLIS;
+    private volatile int candidates = DEFAULT_CANDIDATES;
+
+    // Guarded by this. Bumped by every ponder and cancel; a ponder whose
+    // generation is stale stops, its running search included, and stores nothing more.
+    private volatile long generation;
+    private Future<?> job;
+    private boolean pondered;
+    private final Map<Long, Reply> replies = new HashMap<>();
+
+    private final AtomicLong ponders = new AtomicLong();
+    private final AtomicLong replySearches = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // A searched reply and exactly the position and map it answers.
+    private static final class Reply {
+        final GameState position;
+        final RegionGraph graph;
+        final Move move;
+
+        Reply(GameState position, RegionGraph graph, Move move) {
+            this.position = position;
+            this.graph = graph;
+            this.move = move;
+        }
+    }
+
+    private static synchronized ExecutorService thread() {
+        if (thread == null) {
+            thread = Executors.newSingleThreadExecutor(task -> {
+                Thread ponder = new Thread(task, "ai-ponder");
+                ponder.setDaemon(true);
+                ponder.setPriority(Thread.MIN_PRIORITY);
+                return ponder;
+            });
+        }
+        return thread;
+    }
+
+    /** Whether replies of {@code control} teams are worth pondering. */
+    public static boolean isPondered(TeamControl control) {
+        return control == TeamControl.MCTS || control == TeamControl.ALPHABETA;
+    }
+
+    /**
+     * Starts thinking ahead from the position of {@code sim}, whose current
+     * team is about to decide. Cancels the previous ponder and forgets its
+     * replies. Does nothing if no team is a pondered AI.
+     */
+    public synchronized void ponder(GameSimulation sim) {
+        cancel();
+        replies.clear();
+        pondered = false;
+        if (sim.isGameOver()) return;
+        TeamControl[] controls = new TeamControl[sim.getNumTeams()];
+        boolean any = false;
+        for (int t = 0; t < controls.length; t++) {
+            controls[t] = sim.getTeamControl(t);
+            any |= isPondered(controls[t]);
+        }
+        if (!any) return;
+
+        // The snapshot is taken here, so the live game may move on at once.
+        GameState position = sim.getState().copy();
+        RegionGraph graph = sim.getRegionGraph();
+        double risk = sim.getSmartRisk();
+        long gen = generation;
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int count = candidates;
+        pondered = true;
+        ponders.incrementAndGet();
+        job = thread().submit(() -> {
+            try {
+                run(gen, position, graph, controls, risk, count, deadline);
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Pondering failed", ex);
+            }
+        });
+    }
+
+    private void run(long gen, GameState position, RegionGraph graph, TeamControl[] controls,
+                     double risk, int count, long deadline) {
+        Random rand = new Random(position.getPositionHash());
+        GameSimulation copy = new GameSimulation(position.getNumRegions(), controls.length, controls, risk, rand);
+        BooleanSupplier stale = () -> generation != gen;
+        copy.setRegionGraph(graph);
+        copy.setState(position);
+        for (Move guess : guesses(copy.getState(), graph, risk, count)) {
+            if (generation != gen) return;
+            copy.make(guess);
+            TeamControl next = controls[copy.getCurrentTeam()];
+            if (!copy.isGameOver() && isPondered(next)) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remaining <= 0) return;
+                long key = copy.getState().getPositionHash();
+                if (!hasReply(key)) {
+                    Move reply = search(next, copy, Math.min(remaining, budgetOf(next)), stale);
+                    replySearches.incrementAndGet();
+                    store(gen, key, new Reply(copy.getState().copy(), graph, reply));
+                }
+            }
+            copy.unmake();
+        }
+    }
+
+    // The mover's best few moves by SmartAI score, then a pass.
+    private static Move[] guesses(GameState state, RegionGraph graph, double risk, int count) {
+        MoveGenerator moves = MoveGenerator.forCurrentThread();
+        int n = moves.generate(state, graph, false);
+        int k = Math.min(count - 1, n);
+        long[] listed = new long[n];
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            listed[i] = moves.get(i);
+            scores[i] = SmartAI.score(state, risk, MoveGenerator.source(listed[i]), MoveGenerator.dest(listed[i]));
+        }
+        Move[] guesses = new Move[k + 1];
+        for (int g = 0; g < k; g++) {
+            int best = -1;
+            for (int i = 0; i < n; i++) {
+                if (scores[i] != Double.NEGATIVE_INFINITY && (best < 0 || scores[i] > scores[best])) best = i;
+            }
+            guesses[g] = MoveGenerator.toMove(listed[best]);
+            scores[best] = Double.NEGATIVE_INFINITY;
+        }
+        // The last slot stays null: a pass.
+        return guesses;
+    }
+
+    private static long budgetOf(TeamControl control) {
+        return control == TeamControl.MCTS ? MctsAI.getDefault().getBudgetMillis() : AlphaBetaAI.getDefault().getBudgetMillis();
+    }
+
+    // One search thread only, so pondering keeps to its own core. A cancel stops it.
+    private static Move search(TeamControl control, GameSimulation sim, long budgetMillis, BooleanSupplier stop) {
+        if (control == TeamControl.MCTS) {
+            return new MctsAI(budgetMillis, 1).search(sim, stop);
+        }
+        return new AlphaBetaAI(budgetMillis, AlphaBetaAI.getDefault().getTable()).search(sim, stop);
+    }
+
+    private synchronized boolean hasReply(long key) {
+        return replies.containsKey(key);
+    }
+
+    private synchronized void store(long gen, long key, Reply reply) {
+        if (generation == gen) replies.put(key, reply);
+    }
+
+    /**
+     * Returns the current team's move: the pondered reply if one answers this
+     * exact position, otherwise whatever {@link AIManager} chooses. Stops any
+     * ponder still running first.
+     */
+    public Move chooseMove(AIContext context) {
+        Reply reply = null;
+        boolean counted;
+        synchronized (this) {
+            cancel();
+            counted = pondered && isPondered(context.getTeamControl());
+            if (counted) {
+                reply = replies.get(context.getState().getPositionHash());
+                pondered = false;
+                replies.clear();
+            }
+        }
+        if (reply != null && matches(reply, context)) {
+            hits.incrementAndGet();
+            return reply.move;
+        }
+        if (counted) misses.incrementAndGet();
+        return AIManager.chooseMove(context);
+    }
+
+    // A hash match is only a hint; the position, map and move are checked in full.
+    private static boolean matches(Reply reply, AIContext context) {
+        GameState state = context.getState();
+        if (reply.graph != context.getRegionGraph() || !reply.position.equals(state)) return false;
+        Move move = reply.move;
+        if (move == null) return true;
+        int source = move.getSource(), dest = move.getDest();
+        int team = state.getCurrentTeam();
+        if (state.getTeam(source) != team || state.getTroops(source) <= 0
+                || !reply.graph.isAdjacent(source, dest)) {
+            return false;
+        }
+        return (state.getTeam(dest) == team) == (move.getKind() == Move.Kind.REINFORCE);
+    }
+
+    /** Stops the running ponder, if any; the replies it already found are kept. */
+    public synchronized void cancel() {
+        generation++;
+        if (job != null) {
+            job.cancel(false);
+            job = null;
+        }
+    }
+
+    /** Whether a ponder is queued or searching. */
+    public synchronized boolean isPondering() {
+        return job != null && !job.isDone();
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /** Wall time each later ponder may spend on all its guesses together. */
+    public void setBudgetMillis(long budgetMillis) {
+        if (budgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive: " + budgetMillis);
+        this.budgetMillis = budgetMillis;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /** Number of moves, the pass included, later ponders guess the mover might make. */
+    public void setCandidates(int candidates) {
+        if (candidates < 1) throw new IllegalArgumentException("Need at least one candidate");
+        this.candidates = candidates;
+    }
+
+    // --- Metrics ---
+
+    public long getPonders() {
+        return ponders.get();
+    }
+
+    /** Replies searched in the background, whether or not they were used. */
+    public long getReplySearches() {
+        return replySearches.get();
+    }
+
+    /** Pondered turns that played a cached reply. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Pondered turns that had to search after all. */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long n = hits.get() + misses.get();
+        return n == 0 ? 0 : (double) hits.get() / n;
+    }
+}
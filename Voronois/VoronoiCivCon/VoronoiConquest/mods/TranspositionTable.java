@@ -0,0 +1,160 @@
+// File: mods/TranspositionTable.java
+package mods;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by
+ * {@link main.GameState#getPositionHash()}, safe to share between search
+ * threads without locks.
+ *
+ * Each entry is two longs, the key XOR the data and the data. A reader
+ * accepts an entry only if the two still XOR back to its key, so an entry
+ * torn by a concurrent write reads as a miss instead of as wrong data.
+ * Entries sit in buckets of four, one cache line. A store replaces the entry
+ * with the same key, or else the one searched least deep.
+ *
+ * The data of an entry is a long; use the static accessors to take it apart.
+ * {@link #probe} returns {@link #MISS} when nothing is stored for a key.
+ */
+public final class TranspositionTable {
+    public static final long MISS = 0;
+
+    /** The stored value is exact, at least (lower bound) or at most (upper bound) the real one. */
+    public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET = 4;
+    private static final int MAX_DEPTH = 254;
+    private static final int MAX_MOVE = (1 << 22) - 2;
+
+    // Two longs per entry: key ^ data, then data.
+    private final AtomicLongArray slots;
+    private final int bucketMask;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /** A table using at most {@code memoryBytes}, rounded down to a power-of-two bucket count. */
+    public TranspositionTable(long memoryBytes) {
+        long buckets = Math.max(1, memoryBytes / (ENTRY_BYTES * BUCKET));
+        if (buckets > (1 << 26)) buckets = 1 << 26;
+        int count = Integer.highestOneBit((int) buckets);
+        slots = new AtomicLongArray(count * BUCKET * 2);
+        bucketMask = count - 1;
+    }
+
+    // Data layout: value float bits 0-31, depth + 1 bits 32-39, bound bits 40-41,
+    // move + 2 bits 42-63. The depth field is never 0, so no entry equals MISS.
+    private static long pack(int depth, int bound, float value, int move) {
+        return (Float.floatToRawIntBits(value) & 0xFFFFFFFFL)
+                | (long) (depth + 1) << 32
+                | (long) bound << 40
+                | (long) (move + 2) << 42;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32 & 0xFF) - 1;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40 & 0x3);
+    }
+
+    public static float value(long entry) {
+        return Float.intBitsToFloat((int) entry);
+    }
+
+    /** The stored best move, with the caller's own numbering; -1 is a pass, -2 none. */
+    public static int move(long entry) {
+        return (int) (entry >>> 42) - 2;
+    }
+
+    private int bucketStart(long key) {
+        // The low bits pick the bucket; the key check uses all 64.
+        return ((int) key & bucketMask) * BUCKET * 2;
+    }
+
+    /** The entry for {@code key}, or {@link #MISS}. */
+    public long probe(long key) {
+        probes.increment();
+        int start = bucketStart(key);
+        for (int i = 0; i < BUCKET; i++) {
+            int at = start + 2 * i;
+            long data = slots.get(at + 1);
+            if ((slots.get(at) ^ data) == key && data != MISS) {
+                hits.increment();
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a result searched {@code depth} plies deep. {@code move} is the
+     * best move found, -1 for a pass or -2 for none.
+     */
+    public void store(long key, int depth, int bound, float value, int move) {
+        if (move < -2 || move > MAX_MOVE) throw new IllegalArgumentException("Move out of range: " + move);
+        long data = pack(Math.max(0, Math.min(depth, MAX_DEPTH)), bound, value, move);
+        int start = bucketStart(key);
+        int victim = start;
+        int victimDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET; i++) {
+            int at = start + 2 * i;
+            long old = slots.get(at + 1);
+            if (old == MISS || (slots.get(at) ^ old) == key) {
+                victim = at;
+                break;
+            }
+            int oldDepth = depth(old);
+            if (oldDepth < victimDepth) {
+                victimDepth = oldDepth;
+                victim = at;
+            }
+        }
+        // Two plain writes; a reader that sees one without the other fails the key check.
+        slots.lazySet(victim + 1, data);
+        slots.lazySet(victim, key ^ data);
+        stores.increment();
+    }
+
+    /** Empties the table; not safe while other threads search with it. */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, 0);
+        }
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    /** Number of entries the table holds when full. */
+    public int getCapacity() {
+        return slots.length() / 2;
+    }
+
+    public long getMemoryBytes() {
+        return (long) getCapacity() * ENTRY_BYTES;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /** Hits over probes since the table was made or cleared. */
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+}
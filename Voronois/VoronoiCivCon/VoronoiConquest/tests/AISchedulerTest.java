@@ -0,0 +1,125 @@
+// File: tests/AISchedulerTest.java
+package tests;
+
+import main.AIScheduler;
+import main.EventBus;
+import main.GameEngine;
+import main.TeamControl;
+import main.TurnEndedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AISchedulerTest {
+    @Test
+    public void testTurnWaitsForTheDelayAndRecordsLatency() throws InterruptedException {
+        AIScheduler scheduler = new AIScheduler(1, 50);
+        try {
+            AtomicReference<String> result = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+            long start = System.nanoTime();
+            scheduler.schedule(() -> {
+                sleep(20);
+                return "move";
+            }, move -> {
+                result.set(move);
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(70));
+            assertEquals("move", result.get());
+            assertEquals(1, scheduler.getCompletedTurns());
+            // The delay is not part of the AI's latency.
+            assertTrue(scheduler.getMaxLatencyMillis() >= 20 && scheduler.getMaxLatencyMillis() < 50 + 1000);
+            assertEquals(scheduler.getMaxLatencyMillis(), scheduler.getMeanLatencyMillis(), 1e-9);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisposedGameLeavesNothingQueued() {
+        AIScheduler scheduler = new AIScheduler(1, 60_000);
+        try {
+            GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20,
+                    new TeamControl[]{TeamControl.DUMB, TeamControl.HOTSEAT}, 0.5, 1L);
+            engine.setAIScheduler(scheduler);
+            engine.startTurnIfAI();
+            assertEquals(1, scheduler.getQueueDepth());
+            engine.dispose();
+            assertEquals(0, scheduler.getQueueDepth());
+            engine.startTurnIfAI();
+            assertEquals(0, scheduler.getQueueDepth());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedTurnIsCountedAndSkipped() throws InterruptedException {
+        AIScheduler scheduler = new AIScheduler(1, 0);
+        try {
+            scheduler.schedule(() -> { throw new IllegalStateException("AI bug"); }, move -> { });
+            CountDownLatch done = new CountDownLatch(1);
+            scheduler.schedule(() -> 1, move -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, scheduler.getFailedTurns());
+            assertEquals(1, scheduler.getCompletedTurns());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedTurnHandsOnNull() throws InterruptedException {
+        AIScheduler scheduler = new AIScheduler(1, 0);
+        try {
+            AtomicReference<String> result = new AtomicReference<>("unset");
+            CountDownLatch done = new CountDownLatch(1);
+            scheduler.<String>schedule(() -> { throw new IllegalStateException("AI bug"); }, move -> {
+                result.set(move);
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS), "A failed turn must still reach the game");
+            assertNull(result.get());
+            assertEquals(1, scheduler.getFailedTurns());
+            assertEquals(0, scheduler.getCompletedTurns());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testAITurnIsPlayedAndPassesToTheNextTeam() throws InterruptedException {
+        AIScheduler scheduler = new AIScheduler(1, 0);
+        CountDownLatch turnEnded = new CountDownLatch(1);
+        EventBus.Subscription sub = EventBus.getInstance().subscribe(TurnEndedEvent.class, e -> turnEnded.countDown());
+        try {
+            GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20,
+                    new TeamControl[]{TeamControl.DUMB, TeamControl.HOTSEAT}, 0.5, 1L);
+            engine.setAIScheduler(scheduler);
+            engine.startTurnIfAI();
+            assertTrue(turnEnded.await(5, TimeUnit.SECONDS));
+            assertEquals(1, engine.getCurrentTeam());
+            assertEquals(1, scheduler.getCompletedTurns());
+            engine.dispose();
+        } finally {
+            sub.cancel();
+            scheduler.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
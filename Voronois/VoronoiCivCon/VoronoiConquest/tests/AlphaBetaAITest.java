@@ -0,0 +1,102 @@
+// File: tests/AlphaBetaAITest.java
+package tests;
+
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.TeamControl;
+import mods.AIManager;
+import mods.AlphaBetaAI;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AlphaBetaAITest {
+    @Test
+    public void testFindsTheWinningCapture() {
+        GameSimulation sim = newSimulation(30, 2, 5L);
+        GameState st = sim.getState();
+        int last = 7;
+        for (int r = 0; r < st.getNumRegions(); r++) {
+            st.setTeam(r, r == last ? 1 : 0);
+            st.setTroops(r, r == last ? 1 : 40);
+        }
+        AlphaBetaAI ai = new AlphaBetaAI(100);
+        Move move = ai.search(sim);
+        assertNotNull(move);
+        assertEquals(Move.Kind.MOVE, move.getKind());
+        assertEquals(last, move.getDest());
+        assertTrue(ai.getLastDepth() >= 1);
+    }
+
+    @Test
+    public void testDeadlineHoldsAndTheGameIsLeftAlone() {
+        // A big map, so even depth 1 cannot finish in the budget.
+        GameSimulation sim = newSimulation(400, 3, 3L);
+        GameState before = sim.getState().copy();
+        for (long budget : new long[]{1, 50}) {
+            AlphaBetaAI ai = new AlphaBetaAI(budget);
+            long start = System.nanoTime();
+            Move move = ai.search(sim);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis < budget + 100, "Search took " + millis + " ms");
+            assertTrue(ai.getLastNodes() > 0);
+            assertEquals(before, sim.getState());
+            if (move != null) {
+                assertEquals(sim.getCurrentTeam(), sim.getState().getTeam(move.getSource()));
+            }
+        }
+    }
+
+    @Test
+    public void testPlaysAThreeTeamGameThroughAIManager() {
+        AlphaBetaAI.getDefault().setBudgetMillis(10);
+        try {
+            GameSimulation sim = newSimulation(30, 3, 9L);
+            for (int turn = 0; turn < 30 && !sim.isGameOver(); turn++) {
+                Move move = AIManager.chooseMove(sim);
+                if (move != null) {
+                    assertEquals(sim.getCurrentTeam(), sim.getState().getTeam(move.getSource()));
+                    sim.apply(move);
+                }
+                sim.endTurn();
+            }
+            assertTrue(AlphaBetaAI.getDefault().getLastDepthPerSecond() > 0);
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedDoMovePlaysTheSearchedMove() throws Exception {
+        AlphaBetaAI.getDefault().setBudgetMillis(10);
+        try {
+            GameSimulation sim = newSimulation(30, 2, 5L);
+            GameState st = sim.getState();
+            int last = 7;
+            for (int r = 0; r < st.getNumRegions(); r++) {
+                st.setTeam(r, r == last ? 1 : 0);
+                st.setTroops(r, r == last ? 1 : 40);
+            }
+            AIManager.doMove(sim);
+            SwingUtilities.invokeAndWait(() -> { });
+            assertEquals(0, st.getTeam(last));
+            assertTrue(sim.isGameOver());
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    private static GameSimulation newSimulation(int numRegions, int numTeams, long seed) {
+        TeamControl[] controls = new TeamControl[numTeams];
+        Arrays.fill(controls, TeamControl.ALPHABETA);
+        return GameSimulation.withVoronoiMap(numRegions, controls, 0.5, 240, 180, new Random(seed));
+    }
+}
@@ -0,0 +1,183 @@
+// File: tests/DelaunayTriangulationTest.java
+package tests;
+
+import main.DelaunayTriangulation;
+import main.FortuneVoronoi;
+import main.GameEngine;
+import main.RegionBoundaries;
+import main.RegionGraph;
+import main.RegionRaster;
+import main.RegionSpans;
+import main.TeamControl;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DelaunayTriangulationTest {
+    @Test
+    public void testRandomEditsMatchBruteForce() {
+        Random rand = new Random(11);
+        for (int round = 0; round < 10; round++) {
+            // A small coordinate range forces duplicate, collinear and cocircular sites.
+            int width = 12 + rand.nextInt(30);
+            int height = 12 + rand.nextInt(30);
+            List<Point> sites = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                sites.add(new Point(i * (width - 1) / 2, i % 2 == 0 ? 0 : height - 1));
+            }
+            for (int i = 0; i < 10; i++) {
+                sites.add(new Point(rand.nextInt(width), rand.nextInt(height)));
+            }
+            DelaunayTriangulation mesh = new DelaunayTriangulation(sites.toArray(new Point[0]));
+            for (int step = 0; step < 120; step++) {
+                int op = rand.nextInt(3);
+                int site = rand.nextInt(sites.size());
+                Point to = new Point(rand.nextInt(width), rand.nextInt(height));
+                if (op == 0 || liveCount(sites) < 5) {
+                    sites.add(to);
+                    mesh.insert(sites.size() - 1, to.x, to.y, -1);
+                } else if (sites.get(site) != null && op == 1) {
+                    mesh.remove(site);
+                    sites.set(site, null);
+                } else if (sites.get(site) != null) {
+                    mesh.move(site, to.x, to.y);
+                    sites.set(site, to);
+                }
+                if (!mesh.isPlanar()) break;
+                assertNearestMatchesBruteForce(mesh, sites, width, height);
+            }
+        }
+    }
+
+    @Test
+    public void testEngineEditsMatchRebuild() {
+        int width = 240, height = 180;
+        GameEngine engine = new GameEngine(width, height, 60, 2,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5);
+        FortuneVoronoi voronoi = new FortuneVoronoi(engine.getSites(), width, height);
+        engine.setRegionAssignment(voronoi.getRegionAssignment());
+        engine.setVoronoiImage(voronoi.getVoronoiImage());
+        engine.refreshVoronoiImage();
+
+        Random rand = new Random(5);
+        for (int step = 0; step < 60; step++) {
+            int region = rand.nextInt(engine.getNumRegions());
+            int x = rand.nextInt(width), y = rand.nextInt(height);
+            switch (step % 3) {
+                case 0: engine.addRegion(x, y, rand.nextInt(2), 20); break;
+                case 1: engine.moveRegion(region, x, y); break;
+                default: engine.removeRegion(region); break;
+            }
+            assertMatchesRebuild(engine, width, height);
+        }
+    }
+
+    @Test
+    public void testMoveThatLeavesCollinearSitesStopsBeingPlanar() {
+        Point[] sites = {new Point(0, 0), new Point(10, 0), new Point(20, 0), new Point(10, 10)};
+        DelaunayTriangulation mesh = new DelaunayTriangulation(sites);
+        assertTrue(mesh.isPlanar());
+        mesh.move(3, 12, 8);
+        assertFalse(mesh.isPlanar(), "The other three sites are collinear");
+    }
+
+    @Test
+    public void testEngineMovesSitesOnThreeRegionMap() {
+        int width = 100, height = 100;
+        GameEngine engine = GameEngine.withVoronoiMap(width, height, 3,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5, 5L);
+        engine.moveRegion(0, 50, 50);
+        assertEquals(new Point(50, 50), engine.getSites()[0]);
+        assertMatchesRebuild(engine, width, height);
+        engine.moveRegion(1, 10, 90);
+        assertMatchesRebuild(engine, width, height);
+    }
+
+    private static void assertMatchesRebuild(GameEngine engine, int width, int height) {
+        Point[] sites = engine.getSites();
+        assertEquals(engine.getNumRegions(), sites.length);
+        RegionRaster expected = new FortuneVoronoi(sites, width, height).getRegionAssignment();
+        RegionRaster actual = engine.getRegionAssignment();
+        boolean[][] adjacent = new boolean[sites.length][sites.length];
+        for (int y = 0; y < height; y++) {
+            int[] row = expected.getRow(y, new int[width]);
+            assertArrayEquals(row, actual.getRow(y, new int[width]), "row " + y);
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width && row[x] != row[x + 1]) {
+                    adjacent[row[x]][row[x + 1]] = adjacent[row[x + 1]][row[x]] = true;
+                }
+                if (y + 1 < height && row[x] != expected.at(x, y + 1)) {
+                    adjacent[row[x]][expected.at(x, y + 1)] = adjacent[expected.at(x, y + 1)][row[x]] = true;
+                }
+            }
+        }
+        RegionGraph graph = engine.getRegionGraph();
+        for (int i = 0; i < sites.length; i++) {
+            for (int j = 0; j < sites.length; j++) {
+                assertEquals(adjacent[i][j], graph.isAdjacent(i, j), "adjacency " + i + "-" + j);
+            }
+        }
+
+        RegionBoundaries outlines = RegionBoundaries.build(expected, sites.length);
+        for (int i = 0; i < sites.length; i++) {
+            int length = 3 * outlines.getRunCount(i);
+            assertEquals(length, 3 * engine.getRegionBoundaries().getRunCount(i), "outline of " + i);
+            assertArrayEquals(Arrays.copyOf(outlines.getRuns(i), length),
+                    Arrays.copyOf(engine.getRegionBoundaries().getRuns(i), length), "outline of " + i);
+        }
+
+        RegionSpans spans = RegionSpans.build(expected, sites.length);
+        for (int i = 0; i < sites.length; i++) {
+            int length = 3 * spans.getSpanCount(i);
+            assertEquals(length, 3 * engine.getRegionSpans().getSpanCount(i), "spans of " + i);
+            assertArrayEquals(Arrays.copyOf(spans.getSpans(i), length),
+                    Arrays.copyOf(engine.getRegionSpans().getSpans(i), length), "spans of " + i);
+        }
+
+        BufferedImage image = engine.getVoronoiImage();
+        int[] incremental = image.getRGB(0, 0, width, height, null, 0, width);
+        engine.refreshVoronoiImage();
+        assertArrayEquals(image.getRGB(0, 0, width, height, null, 0, width), incremental);
+    }
+
+    private static void assertNearestMatchesBruteForce(DelaunayTriangulation mesh, List<Point> sites, int width, int height) {
+        int start = -1;
+        for (int i = 0; i < sites.size() && start == -1; i++) {
+            if (sites.get(i) != null) start = i;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int nearest = -1;
+                double minDist = Double.MAX_VALUE;
+                for (int i = 0; i < sites.size(); i++) {
+                    if (sites.get(i) == null) continue;
+                    double dist = sites.get(i).distance(x, y);
+                    if (dist < minDist) {
+                        minDist = dist;
+                        nearest = i;
+                    }
+                }
+                int found = mesh.nearest(start, x, y);
+                assertTrue(found == nearest, "pixel (" + x + ", " + y + ") assigned " + found + " instead of " + nearest);
+            }
+        }
+    }
+
+    private static int liveCount(List<Point> sites) {
+        int count = 0;
+        for (Point p : sites) {
+            if (p != null) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,126 @@
+// File: tests/EventBusTest.java
+package tests;
+
+import main.EventBus;
+import main.GameEngine;
+import main.GameEvent;
+import main.RegionChangedEvent;
+import main.TeamControl;
+import main.TurnEndedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventBusTest {
+    @Test
+    public void testSubscriptionsFollowTheEventClass() {
+        EventBus bus = new EventBus();
+        List<String> seen = new ArrayList<>();
+        EventBus.Subscription turns = bus.subscribe(TurnEndedEvent.class, e -> seen.add("turn " + e.getNewCurrentTeam()));
+        bus.subscribe(RegionChangedEvent.class, e -> seen.add("region " + e.getRegionIndex()));
+        bus.register(e -> seen.add("any " + e.getEventType()));
+        EventBus.Subscription all = bus.subscribe(e -> seen.add("all " + e.getEventType()));
+
+        bus.fireEvent(new TurnEndedEvent(2));
+        bus.fireEvent(new RegionChangedEvent(7));
+        turns.cancel();
+        all.cancel();
+        bus.fireEvent(new TurnEndedEvent(1));
+        assertEquals(List.of("turn 2", "any TurnEnded", "all TurnEnded", "region 7", "any RegionChanged",
+                "all RegionChanged", "any TurnEnded"), seen);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopTheOthers() {
+        EventBus bus = new EventBus();
+        AtomicInteger delivered = new AtomicInteger();
+        bus.register(e -> { throw new IllegalStateException("listener bug"); });
+        bus.register(e -> delivered.incrementAndGet());
+        bus.fireEvent(new TurnEndedEvent(0));
+        assertEquals(1, delivered.get());
+    }
+
+    @Test
+    public void testAsyncDeliversEverythingInOrderOffThePublisherThreads() throws InterruptedException {
+        EventBus bus = new EventBus();
+        int publishers = 4, perPublisher = 5000;
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> deliveryThreads = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe(RegionChangedEvent.class, e -> {
+            seen.add(e.getRegionIndex());
+            if (deliveryThreads.isEmpty()) deliveryThreads.add(Thread.currentThread());
+        });
+        // A small ring, so publishers keep running into backpressure.
+        bus.startAsync(16);
+        assertTrue(bus.isAsync());
+
+        CountDownLatch done = new CountDownLatch(publishers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            int base = p * perPublisher;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perPublisher; i++) {
+                    bus.fireEvent(new RegionChangedEvent(base + i));
+                }
+                done.countDown();
+            });
+            threads.add(t);
+            t.start();
+        }
+        done.await();
+        bus.flush();
+        assertEquals(0, bus.getQueuedEvents());
+        assertEquals(publishers * perPublisher, seen.size());
+        assertFalse(threads.contains(deliveryThreads.get(0)));
+
+        // Each publisher's events arrive in the order it fired them.
+        int[] next = new int[publishers];
+        for (int index : seen) {
+            int p = index / perPublisher;
+            assertEquals(p * perPublisher + next[p], index);
+            next[p]++;
+        }
+        bus.stopAsync();
+        assertFalse(bus.isAsync());
+    }
+
+    @Test
+    public void testStopAsyncDeliversWhatIsQueued() {
+        EventBus bus = new EventBus();
+        AtomicInteger delivered = new AtomicInteger();
+        bus.subscribe(GameEvent.class, e -> delivered.incrementAndGet());
+        bus.startAsync(1024);
+        for (int i = 0; i < 500; i++) {
+            bus.fireEvent(new TurnEndedEvent(i % 3));
+        }
+        bus.stopAsync();
+        assertEquals(500, delivered.get());
+        // Back to delivering on the caller's thread.
+        bus.fireEvent(new TurnEndedEvent(0));
+        assertEquals(501, delivered.get());
+    }
+
+    @Test
+    public void testEngineFiresRegionChangedForMovesAndBastions() {
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20, controls, 0.5, 1L);
+        List<Integer> changed = new ArrayList<>();
+        EventBus.Subscription sub = EventBus.getInstance().subscribe(RegionChangedEvent.class, e -> changed.add(e.getRegionIndex()));
+        try {
+            int dest = engine.getRegionGraph().getNeighbors()[engine.getRegionGraph().getNeighborStart(3)];
+            engine.executeMove(3, dest);
+            engine.makeBastion(5);
+            assertEquals(List.of(3, dest, 5), changed);
+        } finally {
+            sub.cancel();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// File: tests/FortuneVoronoiTest.java
+package tests;
+
+import main.FortuneVoronoi;
+import main.RegionRaster;
+import main.RegionRasterizer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FortuneVoronoiTest {
+    @Test
+    public void testRandomSitesMatchBruteForce() {
+        Random rand = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int width = 40 + rand.nextInt(200);
+            int height = 40 + rand.nextInt(200);
+            Point[] sites = new Point[1 + rand.nextInt(120)];
+            for (int i = 0; i < sites.length; i++) {
+                sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+            }
+            assertMatchesBruteForce(sites, width, height);
+        }
+    }
+
+    @Test
+    public void testDegenerateSitesMatchBruteForce() {
+        // Duplicates, collinear rows and columns, and cocircular grid points.
+        Point[] duplicates = {new Point(5, 5), new Point(20, 30), new Point(5, 5), new Point(20, 30), new Point(40, 10)};
+        assertMatchesBruteForce(duplicates, 50, 50);
+
+        Point[] row = new Point[8];
+        for (int i = 0; i < row.length; i++) row[i] = new Point(3 + i * 7, 25);
+        assertMatchesBruteForce(row, 60, 50);
+
+        Point[] column = new Point[8];
+        for (int i = 0; i < column.length; i++) column[i] = new Point(25, 3 + i * 6);
+        assertMatchesBruteForce(column, 50, 60);
+
+        Point[] grid = new Point[36];
+        for (int i = 0; i < grid.length; i++) grid[i] = new Point(4 + (i % 6) * 10, 4 + (i / 6) * 10);
+        assertMatchesBruteForce(grid, 64, 64);
+
+        Point[] corners = {new Point(0, 0), new Point(63, 0), new Point(0, 47), new Point(63, 47)};
+        assertMatchesBruteForce(corners, 64, 48);
+    }
+
+    @Test
+    public void testCellsAreClosedPolygons() {
+        Random rand = new Random(7);
+        Point[] sites = new Point[300];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = new Point(rand.nextInt(400), rand.nextInt(300));
+        }
+        FortuneVoronoi voronoi = new FortuneVoronoi(sites, 400, 300);
+        double area = 0;
+        for (FortuneVoronoi.Cell cell : voronoi.getCells()) {
+            if (cell == null) continue;
+            List<FortuneVoronoi.HalfEdge> halfEdges = cell.getHalfEdges();
+            for (int i = 0; i < halfEdges.size(); i++) {
+                FortuneVoronoi.Vertex end = halfEdges.get(i).getEndpoint();
+                FortuneVoronoi.Vertex start = halfEdges.get((i + 1) % halfEdges.size()).getStartpoint();
+                assertEquals(end.x, start.x, 1e-6);
+                assertEquals(end.y, start.y, 1e-6);
+                area += end.x * halfEdges.get(i).getStartpoint().y - halfEdges.get(i).getStartpoint().x * end.y;
+            }
+        }
+        // The cells tile the map exactly.
+        assertEquals(400.0 * 300.0, Math.abs(area) / 2, 1e-3);
+    }
+
+    @Test
+    public void testParallelBandsMatchSequentialRaster() {
+        Random rand = new Random(3);
+        int width = 700, height = 500;
+        Point[] sites = new Point[3000];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+        }
+        FortuneVoronoi voronoi = new FortuneVoronoi(sites, width, height);
+        RegionRasterizer rasterizer = new RegionRasterizer(sites, voronoi.getSiteNeighbors(), width, height);
+        RegionRaster sequential = rasterizer.rasterizeSequential();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            RegionRaster parallel = rasterizer.rasterize(pool);
+            for (int y = 0; y < height; y++) {
+                int[] expected = sequential.getRow(y, new int[width]);
+                assertArrayEquals(expected, parallel.getRow(y, new int[width]));
+                assertArrayEquals(expected, voronoi.getRegionAssignment().getRow(y, new int[width]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertMatchesBruteForce(Point[] sites, int width, int height) {
+        FortuneVoronoi voronoi = new FortuneVoronoi(sites, width, height);
+        RegionRaster assignment = voronoi.getRegionAssignment();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int nearest = 0;
+                double minDist = Double.MAX_VALUE;
+                for (int i = 0; i < sites.length; i++) {
+                    double dist = sites[i].distance(x, y);
+                    if (dist < minDist) {
+                        minDist = dist;
+                        nearest = i;
+                    }
+                }
+                assertTrue(assignment.at(x, y) == nearest,
+                        "pixel (" + x + ", " + y + ") assigned " + assignment.at(x, y) + " instead of " + nearest);
+            }
+        }
+    }
+}
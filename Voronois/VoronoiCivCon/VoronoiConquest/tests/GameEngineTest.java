@@ -0,0 +1,78 @@
+// File: tests/GameEngineTest.java
+package tests;
+
+import main.GameEngine;
+import main.TeamControl;
+import main.EventBus;
+import main.EventListener;
+import main.GameEvent;
+import main.GameState;
+import main.TurnEndedEvent;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JPanel;
+import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameEngineTest {
+    @Test
+    public void testVictoryDetection() {
+        // Create a simple game engine with 4 regions and 2 teams.
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        GameEngine engine = new GameEngine(100, 100, 4, 2, controls, 0.5, 1L);
+
+        engine.endTurn();
+        assertFalse(engine.isGameOver(), "Both teams still hold regions");
+
+        // Force all regions to be controlled by team 0.
+        for (int i = 0; i < engine.getNumRegions(); i++) {
+            engine.getState().setTeam(i, 0);
+        }
+        engine.endTurn();
+        assertTrue(engine.isGameOver(), "Victory should be detected when all regions belong to one team");
+    }
+
+    @Test
+    public void testEventBusTurnEnded() {
+        AtomicInteger turnEndedCount = new AtomicInteger(0);
+        EventBus.getInstance().register(new EventListener() {
+            @Override
+            public void onEvent(GameEvent event) {
+                if (event instanceof TurnEndedEvent) {
+                    turnEndedCount.incrementAndGet();
+                }
+            }
+        });
+
+        // Create a minimal game engine instance
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        GameEngine engine = new GameEngine(100, 100, 4, 2, controls, 0.5, 1L);
+        // Simulate end turn
+        engine.endTurn();
+        // Allow event dispatch to occur
+        try { Thread.sleep(100); } catch (InterruptedException ex) {}
+
+        assertTrue(turnEndedCount.get() > 0, "TurnEndedEvent should have been fired.");
+    }
+
+    @Test
+    public void testBoardIgnoresClicksDuringAITurn() {
+        TeamControl[] controls = {TeamControl.DUMB, TeamControl.HOTSEAT};
+        GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20, controls, 0.5, 1L);
+        GameState before = engine.getState().copy();
+        Point site = engine.getSites()[engine.getState().nextRegionOf(0, 0)];
+        JPanel board = new JPanel();
+        engine.handleMouseClick(site.x, site.y, new MouseEvent(board, MouseEvent.MOUSE_CLICKED, 0, 0,
+                site.x, site.y, 2, false, MouseEvent.BUTTON1));
+        engine.handleMouseClick(site.x, site.y, new MouseEvent(board, MouseEvent.MOUSE_CLICKED, 0,
+                InputEvent.BUTTON3_DOWN_MASK, site.x, site.y, 1, false, MouseEvent.BUTTON3));
+        assertEquals(before, engine.getState());
+        assertEquals(0, engine.getCurrentTeam());
+    }
+}
@@ -0,0 +1,195 @@
+// File: tests/GameSimulationTest.java
+package tests;
+
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.RegionGraph;
+import main.TeamControl;
+import mods.AIManager;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameSimulationTest {
+    @Test
+    public void testSeededAIGamesAreReproducible() {
+        GameSimulation first = playAIGame(7, 2000);
+        GameSimulation second = playAIGame(7, 2000);
+        assertArrayEquals(first.getRegionTeam(), second.getRegionTeam());
+        assertArrayEquals(first.getTroops(), second.getTroops());
+        assertEquals(first.getCurrentTeam(), second.getCurrentTeam());
+        assertEquals(first.isGameOver(), second.isGameOver());
+    }
+
+    @Test
+    public void testAttackCapturesWeakerRegion() {
+        GameSimulation sim = new GameSimulation(2, 2,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5, new Random(1));
+        sim.initRegion(0, 0, 40);
+        sim.initRegion(1, 1, 15);
+        sim.setRegionGraph(RegionGraph.empty(2));
+        sim.apply(Move.move(0, 1));
+        assertEquals(0, sim.getRegionTeam()[1]);
+        assertEquals(25, sim.getTroops()[1]);
+        assertEquals(0, sim.getTroops()[0]);
+        sim.endTurn();
+        assertTrue(sim.isGameOver());
+        assertEquals(0, sim.getWinner());
+    }
+
+    @Test
+    public void testUnmakeRestoresExactState() {
+        GameSimulation sim = playAIGame(11, 0);
+        Random rand = new Random(3);
+        int plies = 300;
+        GameState[] before = new GameState[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            before[ply] = sim.getState().copy();
+            sim.make(randomMove(sim, rand));
+        }
+        assertEquals(plies, sim.getMakeDepth());
+        for (int ply = plies - 1; ply >= 0; ply--) {
+            sim.unmake();
+            assertEquals(before[ply], sim.getState(), "State after unmaking ply " + ply);
+        }
+        assertEquals(0, sim.getMakeDepth());
+    }
+
+    @Test
+    public void testMakeMatchesApplyAndEndTurn() {
+        GameSimulation made = playAIGame(12, 0);
+        GameSimulation played = playAIGame(12, 0);
+        Random rand = new Random(8);
+        for (int ply = 0; ply < 200; ply++) {
+            Move move = randomMove(made, rand);
+            made.make(move);
+            if (move != null) played.apply(move);
+            played.endTurn();
+            assertEquals(played.getState(), made.getState());
+        }
+    }
+
+    @Test
+    public void testUnmakeTakesBackTheWinningCapture() {
+        GameSimulation sim = new GameSimulation(2, 2,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5, new Random(1));
+        sim.initRegion(0, 0, 40);
+        sim.initRegion(1, 1, 15);
+        sim.makeBastion(1);
+        GameState start = sim.getState().copy();
+        sim.make(Move.move(0, 1));
+        assertTrue(sim.isGameOver());
+        sim.make(null);
+        sim.unmake();
+        sim.unmake();
+        assertEquals(start, sim.getState());
+        assertFalse(sim.isGameOver());
+        assertThrows(IllegalStateException.class, sim::unmake);
+    }
+
+    @Test
+    public void testColorsCatchUpWithTurnGrowth() {
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        GameSimulation sim = new GameSimulation(2, 2, controls, 0.5, new Random(1));
+        sim.initRegion(0, 0, 10);
+        sim.initRegion(1, 1, 200);
+        sim.getRecolored().clear();
+        sim.endTurn();
+        sim.endTurn();
+
+        GameSimulation fresh = new GameSimulation(2, 2, controls, 0.5, new Random(1));
+        fresh.initRegion(0, 0, 20);
+        fresh.initRegion(1, 1, 210);
+        assertEquals(20, sim.getState().getTroops(0));
+        assertArrayEquals(fresh.getRegionColors(), sim.getRegionColors());
+        assertTrue(sim.getRecolored().get(0));
+        assertFalse(sim.getRecolored().get(1), "Brightness bottoms out, so the strong region keeps its colour");
+    }
+
+    @Test
+    public void testPaletteMatchesHsbColors() {
+        float[] hues = {0.0f, 0.67f, 0.33f, 0.15f, 0.83f};
+        TeamControl[] controls = new TeamControl[hues.length];
+        java.util.Arrays.fill(controls, TeamControl.HOTSEAT);
+        GameSimulation sim = new GameSimulation(1, hues.length, controls, 0.5, new Random(1));
+        for (int team = 0; team < hues.length; team++) {
+            for (int troops = 0; troops < 400; troops++) {
+                sim.initRegion(0, team, troops);
+                float brightness = Math.max(0.3f, 0.8f - (troops - 10) * 0.004f);
+                assertEquals(Color.HSBtoRGB(hues[team], 1.0f, brightness), sim.getRegionColors()[0],
+                        "Team " + team + ", " + troops + " troops");
+            }
+        }
+    }
+
+    @Test
+    public void testMoveOntoOwnRegionMergesTroops() {
+        // Ownership is decided by team, not by colour, so a darker friendly region is not attacked.
+        GameSimulation sim = new GameSimulation(3, 2,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5, new Random(1));
+        sim.initRegion(0, 0, 40);
+        sim.initRegion(1, 0, 15);
+        sim.initRegion(2, 1, 15);
+        sim.apply(Move.move(0, 1));
+        assertEquals(55, sim.getState().getTroops(1));
+        assertEquals(0, sim.getState().getTroops(0));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedDoMovePlaysAndEndsTheTurnOnTheEdt() throws Exception {
+        GameSimulation sim = new GameSimulation(2, 2,
+                new TeamControl[]{TeamControl.SMART, TeamControl.HOTSEAT}, 0.5, new Random(1));
+        sim.initRegion(0, 0, 40);
+        sim.initRegion(1, 1, 15);
+        sim.setRegionGraph(RegionGraph.empty(2).replaceEdges(new boolean[2], new long[]{RegionGraph.pack(0, 1)}, 2));
+        AIManager.doMove(sim);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(0, sim.getState().getTeam(1));
+        assertTrue(sim.isGameOver());
+
+        // Human teams are left alone.
+        GameSimulation human = new GameSimulation(2, 2,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.SMART}, 0.5, new Random(1));
+        human.initRegion(0, 0, 40);
+        human.initRegion(1, 1, 15);
+        AIManager.doMove(human);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(0, human.getCurrentTeam());
+    }
+
+    // Any legal move for the current team, including self-reinforces, or a pass.
+    private static Move randomMove(GameSimulation sim, Random rand) {
+        GameState state = sim.getState();
+        RegionGraph graph = sim.getRegionGraph();
+        int region = rand.nextInt(sim.getNumRegions());
+        if (state.getTeam(region) != state.getCurrentTeam() || rand.nextInt(10) == 0) return null;
+        if (rand.nextInt(8) == 0) return Move.reinforce(region, region);
+        int degree = graph.getDegree(region);
+        if (degree == 0) return null;
+        int neighbor = graph.getNeighbors()[graph.getNeighborStart(region) + rand.nextInt(degree)];
+        return state.getTeam(neighbor) == state.getTeam(region) && rand.nextBoolean()
+                ? Move.reinforce(region, neighbor) : Move.move(region, neighbor);
+    }
+
+    // Runs AI against AI with no display until someone wins or the turn limit is hit.
+    private static GameSimulation playAIGame(long seed, int maxTurns) {
+        GameSimulation sim = GameSimulation.withVoronoiMap(40,
+                new TeamControl[]{TeamControl.SMART, TeamControl.DUMB}, 0.5, 300, 200, new Random(seed));
+        for (int turn = 0; turn < maxTurns && !sim.isGameOver(); turn++) {
+            Move move = AIManager.chooseMove(sim);
+            if (move != null) sim.apply(move);
+            sim.endTurn();
+        }
+        return sim;
+    }
+}
@@ -0,0 +1,211 @@
+// File: tests/GameStateTest.java
+package tests;
+
+import main.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameStateTest {
+    @Test
+    public void testCombatPowerFollowsTroopsAndBastion() {
+        GameState state = new GameState(70, 2);
+        state.setTroops(65, 20);
+        assertEquals(20.0, state.getCombatPower(65));
+        state.setBastion(65, true);
+        assertTrue(state.isBastion(65));
+        assertFalse(state.isBastion(1), "Bastion bits of other regions stay clear");
+        assertEquals(30.0, state.getCombatPower(65));
+        state.setTroops(65, 7);
+        assertEquals(10.5, state.getCombatPower(65));
+    }
+
+    @Test
+    public void testCopyIntoMakesAnIndependentExactCopy() {
+        GameState source = randomState(130, 3, new Random(4));
+        GameState target = randomState(130, 3, new Random(5));
+        assertNotEquals(source, target);
+
+        source.copyInto(target);
+        assertEquals(source, target);
+        for (int r = 0; r < 130; r++) {
+            assertEquals(source.getCombatPower(r), target.getCombatPower(r));
+        }
+
+        target.setTroops(0, target.getTroops(0) + 1);
+        target.setBastion(129, !target.isBastion(129));
+        assertNotEquals(source, target, "The copy must not share arrays with the source");
+    }
+
+    @Test
+    public void testCopyIntoSmallerAndLargerTargets() {
+        GameState source = randomState(100, 2, new Random(6));
+        GameState small = new GameState(3, 2);
+        source.copyInto(small);
+        assertEquals(source, small);
+
+        // A larger target shrinks to the source; its leftover bastion bits must not come back on a grow.
+        GameState large = new GameState(200, 2);
+        for (int r = 0; r < 200; r++) large.setBastion(r, true);
+        source.copyInto(large);
+        assertEquals(source, large);
+        large.resize(200);
+        for (int r = 100; r < 200; r++) {
+            assertFalse(large.isBastion(r));
+            assertEquals(0, large.getTroops(r));
+        }
+        assertCountersMatch(large);
+    }
+
+    @Test
+    public void testTeamCountersMatchARecount() {
+        Random rand = new Random(9);
+        GameState state = randomState(90, 4, rand);
+        GameState copy = new GameState(10, 4);
+        for (int step = 0; step < 5000; step++) {
+            int region = rand.nextInt(state.getNumRegions());
+            switch (rand.nextInt(6)) {
+                case 0: state.setTroops(region, rand.nextInt(500)); break;
+                case 1: state.setTeam(region, rand.nextInt(4)); break;
+                case 2: state.copyRegion(rand.nextInt(state.getNumRegions()), region); break;
+                case 3: state.grow(rand.nextInt(11) - 5); break;
+                case 4: state.resize(Math.max(1, state.getNumRegions() + rand.nextInt(21) - 10)); break;
+                default: state.copyInto(copy); assertCountersMatch(copy); break;
+            }
+            assertCountersMatch(state);
+        }
+    }
+
+    @Test
+    public void testSoleOwnerAndElimination() {
+        GameState state = new GameState(3, 2);
+        assertEquals(0, state.getSoleOwner(), "New regions all start on team 0");
+        state.setTeam(1, 1);
+        assertEquals(-1, state.getSoleOwner());
+        assertFalse(state.isEliminated(1));
+        state.setTeam(1, 0);
+        assertTrue(state.isEliminated(1));
+        assertEquals(0, state.getSoleOwner());
+    }
+
+    @Test
+    public void testGrowthAddsToEveryRegionLazily() {
+        GameState state = new GameState(3, 2);
+        state.setTeam(2, 1);
+        state.setTroops(0, 10);
+        state.setTroops(2, 4);
+        state.setBastion(2, true);
+        state.grow(5);
+        assertEquals(15, state.getTroops(0));
+        assertEquals(5, state.getTroops(1));
+        assertEquals(13.5, state.getCombatPower(2));
+        assertEquals(20, state.getTeamTroops(0));
+        assertEquals(9, state.getTeamTroops(1));
+
+        // Writes after growth are absolute, and equal troop counts compare equal however they were reached.
+        state.setTroops(1, 0);
+        state.grow(5);
+        assertEquals(5, state.getTroops(1));
+        GameState direct = new GameState(3, 2);
+        direct.setTeam(2, 1);
+        direct.setTroops(0, 20);
+        direct.setTroops(1, 5);
+        direct.setTroops(2, 14);
+        direct.setBastion(2, true);
+        assertEquals(direct, state);
+        assertEquals(direct.hashCode(), state.hashCode());
+        assertCountersMatch(state);
+
+        state.resize(5);
+        assertEquals(0, state.getTroops(4), "New regions start with no troops whatever the growth");
+        assertCountersMatch(state);
+    }
+
+    @Test
+    public void testPositionHashMatchesARebuild() {
+        Random rand = new Random(17);
+        GameState state = randomState(70, 3, rand);
+        GameState copy = new GameState(5, 3);
+        for (int step = 0; step < 3000; step++) {
+            int region = rand.nextInt(state.getNumRegions());
+            switch (rand.nextInt(9)) {
+                case 0: state.setTroops(region, rand.nextInt(500)); break;
+                case 1: state.setTeam(region, rand.nextInt(3)); break;
+                case 2: state.setBastion(region, rand.nextBoolean()); break;
+                case 3: state.copyRegion(rand.nextInt(state.getNumRegions()), region); break;
+                case 4: state.grow(rand.nextInt(11) - 5); break;
+                case 5: state.resize(Math.max(1, state.getNumRegions() + rand.nextInt(21) - 10)); break;
+                case 6: state.setCurrentTeam(rand.nextInt(3)); break;
+                case 7: state.setGameOver(rand.nextBoolean()); break;
+                default: state.copyInto(copy); assertEquals(state.getPositionHash(), copy.getPositionHash()); break;
+            }
+            GameState rebuilt = rebuild(state);
+            assertEquals(rebuilt, state);
+            assertEquals(rebuilt.getPositionHash(), state.getPositionHash(), "Step " + step);
+        }
+
+        // Any single difference changes the hash.
+        long hash = state.getPositionHash();
+        GameState other = rebuild(state);
+        other.setTroops(3, other.getTroops(3) + 1);
+        assertNotEquals(hash, other.getPositionHash());
+        other = rebuild(state);
+        other.setTeam(3, (other.getTeam(3) + 1) % 3);
+        assertNotEquals(hash, other.getPositionHash());
+        other = rebuild(state);
+        other.setBastion(3, !other.isBastion(3));
+        assertNotEquals(hash, other.getPositionHash());
+        other = rebuild(state);
+        other.setCurrentTeam((other.getCurrentTeam() + 1) % 3);
+        assertNotEquals(hash, other.getPositionHash());
+    }
+
+    // The same position written region by region into a fresh state, with no growth.
+    private static GameState rebuild(GameState state) {
+        GameState fresh = new GameState(state.getNumRegions(), state.getNumTeams());
+        for (int r = 0; r < state.getNumRegions(); r++) {
+            fresh.setTeam(r, state.getTeam(r));
+            fresh.setTroops(r, state.getTroops(r));
+            fresh.setBastion(r, state.isBastion(r));
+        }
+        fresh.setCurrentTeam(state.getCurrentTeam());
+        fresh.setGameOver(state.isGameOver());
+        return fresh;
+    }
+
+    private static void assertCountersMatch(GameState state) {
+        for (int t = 0; t < state.getNumTeams(); t++) {
+            int regions = 0;
+            long troops = 0;
+            // The team's region set lists exactly its regions, in index order.
+            int next = state.nextRegionOf(t, 0);
+            for (int r = 0; r < state.getNumRegions(); r++) {
+                if (state.getTeam(r) == t) {
+                    regions++;
+                    troops += state.getTroops(r);
+                    assertEquals(r, next);
+                    next = state.nextRegionOf(t, r + 1);
+                }
+            }
+            assertEquals(-1, next);
+            assertEquals(regions, state.getTeamRegions(t));
+            assertEquals(troops, state.getTeamTroops(t));
+        }
+    }
+
+    private static GameState randomState(int numRegions, int numTeams, Random rand) {
+        GameState state = new GameState(numRegions, numTeams);
+        for (int r = 0; r < numRegions; r++) {
+            state.setTroops(r, rand.nextInt(200));
+            state.setTeam(r, rand.nextInt(numTeams));
+            state.setBastion(r, rand.nextBoolean());
+        }
+        state.setCurrentTeam(rand.nextInt(numTeams));
+        return state;
+    }
+}
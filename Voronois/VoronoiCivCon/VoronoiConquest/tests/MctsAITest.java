@@ -0,0 +1,95 @@
+// File: tests/MctsAITest.java
+package tests;
+
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.RegionGraph;
+import main.TeamControl;
+import mods.AIManager;
+import mods.MctsAI;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MctsAITest {
+    @Test
+    public void testSearchKeepsToTheBudgetAndLeavesTheGameAlone() {
+        GameSimulation sim = newSimulation(60, 3L);
+        GameState before = sim.getState().copy();
+        MctsAI ai = new MctsAI(100, 2);
+        long start = System.nanoTime();
+        Move move = ai.search(sim);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 100 + 150, "Search took " + millis + " ms");
+        assertTrue(ai.getLastPlayouts() > 0);
+        assertTrue(ai.getLastPlayoutsPerSecond() > 0);
+        assertEquals(before, sim.getState());
+        if (move != null) {
+            assertEquals(sim.getCurrentTeam(), sim.getState().getTeam(move.getSource()));
+        }
+    }
+
+    @Test
+    public void testFindsTheWinningCapture() {
+        GameSimulation sim = newSimulation(30, 5L);
+        GameState st = sim.getState();
+        int last = 7;
+        for (int r = 0; r < st.getNumRegions(); r++) {
+            st.setTeam(r, r == last ? 1 : 0);
+            st.setTroops(r, r == last ? 1 : 40);
+        }
+        RegionGraph graph = sim.getRegionGraph();
+        assertTrue(graph.getNeighborEnd(last) > graph.getNeighborStart(last));
+
+        Move move = new MctsAI(150, 1).search(sim);
+        assertNotNull(move);
+        assertEquals(Move.Kind.MOVE, move.getKind());
+        assertEquals(last, move.getDest());
+        sim.apply(move);
+        sim.endTurn();
+        assertEquals(0, sim.getWinner());
+    }
+
+    @Test
+    public void testPlaysAGameThroughAIManager() {
+        MctsAI.getDefault().setBudgetMillis(20);
+        try {
+            GameSimulation sim = newSimulation(30, 9L);
+            for (int turn = 0; turn < 30 && !sim.isGameOver(); turn++) {
+                Move move = AIManager.chooseMove(sim);
+                if (move != null) {
+                    assertEquals(sim.getCurrentTeam(), sim.getState().getTeam(move.getSource()));
+                    sim.apply(move);
+                }
+                sim.endTurn();
+            }
+        } finally {
+            MctsAI.getDefault().setBudgetMillis(MctsAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    public void testConcurrentSearchesShareABoundedPool() throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Thread[] callers = new Thread[2 * cores];
+        for (int i = 0; i < callers.length; i++) {
+            GameSimulation sim = newSimulation(30, i);
+            callers[i] = new Thread(() -> new MctsAI(50, cores).search(sim));
+            callers[i].start();
+        }
+        for (Thread caller : callers) caller.join();
+        long helpers = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("mcts-worker-")).count();
+        assertTrue(helpers <= Math.max(1, cores - 1), helpers + " helper threads");
+    }
+
+    private static GameSimulation newSimulation(int numRegions, long seed) {
+        TeamControl[] controls = {TeamControl.MCTS, TeamControl.SMART};
+        return GameSimulation.withVoronoiMap(numRegions, controls, 0.5, 240, 180, new Random(seed));
+    }
+}
@@ -0,0 +1,110 @@
+// File: tests/MoveGeneratorTest.java
+package tests;
+
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.MoveGenerator;
+import main.RegionGraph;
+import main.TeamControl;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoveGeneratorTest {
+    @Test
+    public void testListsEveryMoveInRegionThenNeighbourOrder() {
+        GameSimulation sim = newSimulation(80, 3);
+        MoveGenerator moves = sim.getMoveGenerator();
+        for (int turn = 0; turn < 20; turn++) {
+            List<Move> expected = bruteForce(sim.getState(), sim.getRegionGraph(), false);
+            assertEquals(expected.size(), moves.generate(sim));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), MoveGenerator.toMove(moves.get(i)));
+            }
+            List<Move> attacks = bruteForce(sim.getState(), sim.getRegionGraph(), true);
+            assertEquals(attacks.size(), moves.generateAttacks(sim));
+            for (int i = 0; i < attacks.size(); i++) {
+                assertEquals(attacks.get(i), MoveGenerator.toMove(moves.get(i)));
+            }
+
+            Move move = mods.SmartAI.chooseMove(sim);
+            if (move != null) sim.apply(move);
+            sim.endTurn();
+        }
+    }
+
+    @Test
+    public void testPackingRoundTrips() {
+        for (int[] m : new int[][]{{0, 0, 0}, {5, 9, 1}, {Integer.MAX_VALUE, Integer.MAX_VALUE, 1}, {123456, 7, 0}}) {
+            long packed = MoveGenerator.pack(m[0], m[1], m[2]);
+            assertTrue(packed != MoveGenerator.NONE);
+            assertEquals(m[0], MoveGenerator.source(packed));
+            assertEquals(m[1], MoveGenerator.dest(packed));
+            assertEquals(m[2], MoveGenerator.type(packed));
+        }
+        assertEquals(null, MoveGenerator.toMove(MoveGenerator.NONE));
+    }
+
+    @Test
+    public void testBestTakesTheFirstOfEqualScores() {
+        GameSimulation sim = newSimulation(40, 2);
+        MoveGenerator moves = sim.getMoveGenerator();
+        moves.generate(sim);
+        long best = moves.best(sim.getState(), 0.5, (state, risk, source, dest, type) -> type == MoveGenerator.REINFORCE ? 1 : 0);
+        long firstReinforce = MoveGenerator.NONE;
+        for (int i = 0; i < moves.size() && firstReinforce == MoveGenerator.NONE; i++) {
+            if (MoveGenerator.type(moves.get(i)) == MoveGenerator.REINFORCE) firstReinforce = moves.get(i);
+        }
+        assertEquals(firstReinforce == MoveGenerator.NONE ? moves.get(0) : firstReinforce, best);
+    }
+
+    @Test
+    public void testGeneratingDoesNotAllocateOnceWarm() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+        GameSimulation sim = newSimulation(200, 2);
+        MoveGenerator moves = sim.getMoveGenerator();
+        for (int i = 0; i < 20_000; i++) {
+            moves.generate(sim);
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1000; i++) {
+            moves.generate(sim);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(allocated < 10_000, allocated + " bytes for 1000 generate calls");
+    }
+
+    private static List<Move> bruteForce(GameState state, RegionGraph graph, boolean attacksOnly) {
+        List<Move> moves = new ArrayList<>();
+        int team = state.getCurrentTeam();
+        for (int r = 0; r < state.getNumRegions(); r++) {
+            if (state.getTeam(r) != team || state.getTroops(r) <= 0) continue;
+            for (int k = graph.getNeighborStart(r); k < graph.getNeighborEnd(r); k++) {
+                int dest = graph.getNeighbors()[k];
+                if (state.getTeam(dest) == team) {
+                    if (!attacksOnly) moves.add(Move.reinforce(r, dest));
+                } else {
+                    moves.add(Move.move(r, dest));
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static GameSimulation newSimulation(int numRegions, int numTeams) {
+        TeamControl[] controls = new TeamControl[numTeams];
+        Arrays.fill(controls, TeamControl.SMART);
+        return GameSimulation.withVoronoiMap(numRegions, controls, 0.5, 240, 180, new Random(4));
+    }
+}
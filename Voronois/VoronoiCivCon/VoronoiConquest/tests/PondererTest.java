@@ -0,0 +1,149 @@
+// File: tests/PondererTest.java
+package tests;
+
+import main.GameEngine;
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.TeamControl;
+import mods.AlphaBetaAI;
+import mods.Ponderer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PondererTest {
+    @Test
+    public void testPredictedPositionIsAnsweredFromTheCache() throws InterruptedException {
+        AlphaBetaAI.getDefault().setBudgetMillis(20);
+        try {
+            GameSimulation sim = newSimulation(30, 4L);
+            Ponderer ponderer = new Ponderer();
+            ponderer.setCandidates(2);
+            ponderer.ponder(sim);
+            awaitIdle(ponderer);
+
+            // The player passes, which is always one of the guesses.
+            sim.endTurn();
+            long start = System.nanoTime();
+            Move move = ponderer.chooseMove(sim);
+            assertTrue(System.nanoTime() - start < 20_000_000L, "A hit should not search");
+            assertEquals(1, ponderer.getHits());
+            assertEquals(0, ponderer.getMisses());
+            if (move != null) {
+                assertEquals(1, sim.getState().getTeam(move.getSource()));
+            }
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    public void testUnforeseenPositionMissesAndSearches() throws InterruptedException {
+        AlphaBetaAI.getDefault().setBudgetMillis(20);
+        try {
+            GameSimulation sim = newSimulation(30, 5L);
+            Ponderer ponderer = new Ponderer();
+            ponderer.ponder(sim);
+            awaitIdle(ponderer);
+            assertTrue(ponderer.getReplySearches() > 0);
+
+            // No guess leaves a region of the AI's with this many troops.
+            GameState st = sim.getState();
+            int region = 0;
+            while (st.getTeam(region) != 1) region++;
+            st.setTroops(region, 999);
+            sim.endTurn();
+            Move move = ponderer.chooseMove(sim);
+            assertEquals(0, ponderer.getHits());
+            assertEquals(1, ponderer.getMisses());
+            if (move != null) {
+                assertEquals(1, st.getTeam(move.getSource()));
+            }
+
+            // Without a new ponder the next turn is not counted either way.
+            sim.endTurn();
+            sim.endTurn();
+            ponderer.chooseMove(sim);
+            assertEquals(1, ponderer.getMisses());
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    public void testCancelStopsTheRunningSearch() throws InterruptedException {
+        // Each reply search may take a minute unless the cancel reaches it.
+        AlphaBetaAI.getDefault().setBudgetMillis(60_000);
+        try {
+            GameSimulation sim = newSimulation(60, 6L);
+            Ponderer ponderer = new Ponderer();
+            ponderer.setBudgetMillis(60_000);
+            ponderer.ponder(sim);
+            Thread.sleep(50);
+            ponderer.cancel();
+            assertFalse(ponderer.isPondering());
+
+            // The ponder thread is free again for the next ponder at once.
+            long start = System.nanoTime();
+            ponderer.setBudgetMillis(50);
+            ponderer.setCandidates(1);
+            ponderer.ponder(sim);
+            awaitIdle(ponderer);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis < 2000, "The cancelled search ran on for " + millis + " ms");
+            assertEquals(2, ponderer.getPonders());
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    public void testPonderingLeavesTheGameRandomStreamAlone() throws InterruptedException {
+        AlphaBetaAI.getDefault().setBudgetMillis(20);
+        try {
+            GameSimulation sim = newSimulation(30, 7L);
+            GameSimulation twin = newSimulation(30, 7L);
+            Ponderer ponderer = new Ponderer();
+            ponderer.setCandidates(2);
+            ponderer.ponder(sim);
+            awaitIdle(ponderer);
+            assertEquals(twin.getRand().nextLong(), sim.getRand().nextLong());
+        } finally {
+            AlphaBetaAI.getDefault().setBudgetMillis(AlphaBetaAI.DEFAULT_BUDGET_MILLIS);
+        }
+    }
+
+    @Test
+    public void testEnginePondersOnlyForSearchingAIs() {
+        GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.ALPHABETA}, 0.5, 1L);
+        engine.startTurnIfAI();
+        assertEquals(1, engine.getPonderer().getPonders());
+        engine.dispose();
+        assertFalse(engine.getPonderer().isPondering());
+
+        GameEngine quick = GameEngine.withVoronoiMap(200, 150, 20,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.SMART}, 0.5, 1L);
+        quick.startTurnIfAI();
+        assertEquals(0, quick.getPonderer().getPonders());
+        quick.dispose();
+    }
+
+    private static void awaitIdle(Ponderer ponderer) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (ponderer.isPondering()) {
+            assertTrue(System.nanoTime() < deadline, "Pondering did not finish");
+            Thread.sleep(5);
+        }
+    }
+
+    private static GameSimulation newSimulation(int numRegions, long seed) {
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.ALPHABETA};
+        return GameSimulation.withVoronoiMap(numRegions, controls, 0.5, 240, 180, new Random(seed));
+    }
+}
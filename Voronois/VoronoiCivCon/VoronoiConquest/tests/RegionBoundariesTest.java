@@ -0,0 +1,48 @@
+// File: tests/RegionBoundariesTest.java
+package tests;
+
+import main.FortuneVoronoi;
+import main.RegionBoundaries;
+import main.RegionRaster;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RegionBoundariesTest {
+    @Test
+    public void testRunsCoverExactlyTheBoundaryPixels() {
+        Random rand = new Random(8);
+        int width = 200, height = 150, count = 90;
+        Point[] sites = new Point[count];
+        for (int i = 0; i < count; i++) {
+            sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+        }
+        RegionRaster raster = new FortuneVoronoi(sites, width, height).getRegionAssignment();
+        RegionBoundaries boundaries = RegionBoundaries.build(raster, count);
+        assertEquals(count, boundaries.getNumRegions());
+
+        for (int region = 0; region < count; region++) {
+            boolean[] expected = new boolean[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    expected[y * width + x] = raster.at(x, y) == region && (x == 0 || x == width - 1 || y == 0 || y == height - 1
+                            || raster.at(x - 1, y) != region || raster.at(x + 1, y) != region
+                            || raster.at(x, y - 1) != region || raster.at(x, y + 1) != region);
+                }
+            }
+            boolean[] actual = new boolean[width * height];
+            int[] runs = boundaries.getRuns(region);
+            for (int k = 0; k < boundaries.getRunCount(region); k++) {
+                int x = runs[3 * k], y = runs[3 * k + 1], length = runs[3 * k + 2];
+                for (int i = 0; i < length; i++) {
+                    actual[y * width + x + i] = true;
+                }
+            }
+            assertArrayEquals(expected, actual, "outline of " + region);
+        }
+    }
+}
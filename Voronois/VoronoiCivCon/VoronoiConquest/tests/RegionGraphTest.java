@@ -0,0 +1,76 @@
+// File: tests/RegionGraphTest.java
+package tests;
+
+import main.FortuneVoronoi;
+import main.RegionGraph;
+import main.RegionRaster;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegionGraphTest {
+    @Test
+    public void testFromRasterMatchesPixelScan() {
+        Random rand = new Random(3);
+        int width = 320, height = 200, count = 150;
+        Point[] sites = new Point[count];
+        for (int i = 0; i < count; i++) {
+            sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+        }
+        RegionRaster raster = new FortuneVoronoi(sites, width, height).getRegionAssignment();
+        RegionGraph graph = RegionGraph.fromRaster(raster, count);
+
+        boolean[][] expected = new boolean[count][count];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int region = raster.at(x, y);
+                if (x + 1 < width && raster.at(x + 1, y) != region) {
+                    expected[region][raster.at(x + 1, y)] = expected[raster.at(x + 1, y)][region] = true;
+                }
+                if (y + 1 < height && raster.at(x, y + 1) != region) {
+                    expected[region][raster.at(x, y + 1)] = expected[raster.at(x, y + 1)][region] = true;
+                }
+            }
+        }
+        assertEquals(count, graph.getNumRegions());
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(expected[i], graph.toMatrix()[i], "row " + i);
+            for (int k = graph.getNeighborStart(i) + 1; k < graph.getNeighborEnd(i); k++) {
+                assertTrue(graph.getNeighbors()[k - 1] < graph.getNeighbors()[k], "neighbours of " + i + " out of order");
+            }
+        }
+    }
+
+    @Test
+    public void testReplaceEdgesKeepsCleanRegions() {
+        // A path 0-1-2-3; region 1 is rewired to touch 3 instead of 0 and 2.
+        RegionGraph graph = RegionGraph.empty(4).replaceEdges(new boolean[4],
+                new long[]{RegionGraph.pack(0, 1), RegionGraph.pack(2, 1), RegionGraph.pack(2, 3)}, 4);
+        graph = graph.replaceEdges(new boolean[]{false, true, false, false},
+                new long[]{RegionGraph.pack(3, 1)}, 4);
+        assertTrue(graph.isAdjacent(1, 3));
+        assertTrue(graph.isAdjacent(3, 2));
+        assertTrue(!graph.isAdjacent(0, 1) && !graph.isAdjacent(1, 2));
+        assertEquals(0, graph.getDegree(0));
+
+        RegionGraph grown = graph.resize(6);
+        assertEquals(6, grown.getNumRegions());
+        assertEquals(0, grown.getDegree(5));
+        assertTrue(grown.isAdjacent(2, 3));
+    }
+
+    @Test
+    public void testEveryEditHasANewVersion() {
+        RegionGraph graph = RegionGraph.empty(3);
+        RegionGraph edited = graph.replaceEdges(new boolean[3], new long[0], 3);
+        RegionGraph grown = edited.resize(4);
+        assertTrue(graph.getVersion() != edited.getVersion());
+        assertTrue(edited.getVersion() != grown.getVersion());
+        assertTrue(graph.getVersion() != grown.getVersion());
+    }
+}
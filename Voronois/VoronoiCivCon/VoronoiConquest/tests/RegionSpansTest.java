@@ -0,0 +1,75 @@
+// File: tests/RegionSpansTest.java
+package tests;
+
+import main.FortuneVoronoi;
+import main.GameEngine;
+import main.RegionRaster;
+import main.RegionSpans;
+import main.TeamControl;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RegionSpansTest {
+    @Test
+    public void testSpansCoverEveryPixelOnce() {
+        Random rand = new Random(6);
+        int width = 220, height = 160, count = 70;
+        Point[] sites = new Point[count];
+        for (int i = 0; i < count; i++) {
+            sites[i] = new Point(rand.nextInt(width), rand.nextInt(height));
+        }
+        RegionRaster raster = new FortuneVoronoi(sites, width, height).getRegionAssignment();
+        RegionSpans spans = RegionSpans.build(raster, count);
+
+        int[] owner = new int[width * height];
+        Arrays.fill(owner, -1);
+        for (int region = 0; region < count; region++) {
+            int[] list = spans.getSpans(region);
+            for (int k = 0; k < spans.getSpanCount(region); k++) {
+                int y = list[3 * k], x0 = list[3 * k + 1], x1 = list[3 * k + 2];
+                for (int x = x0; x < x1; x++) {
+                    assertEquals(-1, owner[y * width + x], "pixel (" + x + ", " + y + ") covered twice");
+                    owner[y * width + x] = region;
+                }
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(raster.at(x, y), owner[y * width + x], "pixel (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testRecolorMatchesFullRepaint() {
+        int width = 200, height = 150;
+        GameEngine engine = new GameEngine(width, height, 40, 3,
+                new TeamControl[]{TeamControl.HOTSEAT, TeamControl.HOTSEAT, TeamControl.HOTSEAT}, 0.5);
+        FortuneVoronoi voronoi = new FortuneVoronoi(engine.getSites(), width, height);
+        engine.setRegionAssignment(voronoi.getRegionAssignment());
+        engine.setVoronoiImage(voronoi.getVoronoiImage());
+        engine.refreshVoronoiImage();
+
+        Random rand = new Random(2);
+        for (int step = 0; step < 30; step++) {
+            int source = rand.nextInt(engine.getNumRegions());
+            int dest = rand.nextInt(engine.getNumRegions());
+            switch (step % 3) {
+                case 0: engine.executeMove(source, dest); break;
+                case 1: engine.executeReinforce(source, dest); break;
+                default: engine.endTurn(); break;
+            }
+            BufferedImage image = engine.getVoronoiImage();
+            int[] incremental = image.getRGB(0, 0, width, height, null, 0, width);
+            engine.refreshVoronoiImage();
+            assertArrayEquals(image.getRGB(0, 0, width, height, null, 0, width), incremental, "step " + step);
+        }
+    }
+}
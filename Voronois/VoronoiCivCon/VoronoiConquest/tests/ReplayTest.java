@@ -0,0 +1,165 @@
+// File: tests/ReplayTest.java
+package tests;
+
+import main.GameEngine;
+import main.GameSimulation;
+import main.GameState;
+import main.Move;
+import main.Replayer;
+import main.TeamControl;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayTest {
+    @Test
+    public void testReplayAndSeekMatchTheRecordedGame() throws IOException {
+        Path file = Files.createTempFile("conquest", ".replay");
+        try {
+            List<GameState> positions = new ArrayList<>();
+            List<Point[]> siteHistory = new ArrayList<>();
+            GameEngine engine = playRecordedGame(file, 5, positions, siteHistory);
+
+            try (Replayer replayer = Replayer.open(file)) {
+                assertEquals(1L, replayer.getSeed());
+                assertEquals(positions.size() - 1, replayer.getTurnCount());
+                GameSimulation end = replayer.replayAll();
+                assertEquals(engine.getState(), end.getState());
+                assertArrayEquals(engine.getSites(), replayer.getSites());
+
+                // Seek backwards and forwards, onto and between keyframes.
+                for (int turn : new int[]{positions.size() - 1, 0, 5, 7, 1, 23, positions.size() / 2}) {
+                    GameSimulation sim = replayer.seek(turn);
+                    assertEquals(positions.get(turn), sim.getState(), "Position after turn " + turn);
+                    assertArrayEquals(siteHistory.get(turn), replayer.getSites());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCutOffTailIsIgnored() throws IOException {
+        Path file = Files.createTempFile("conquest", ".replay");
+        try {
+            List<GameState> positions = new ArrayList<>();
+            playRecordedGame(file, 4, positions, new ArrayList<>());
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size - 3);
+            }
+            try (Replayer replayer = Replayer.open(file)) {
+                int turns = replayer.getTurnCount();
+                assertTrue(turns >= positions.size() - 2);
+                assertEquals(positions.get(turns), replayer.seek(turns).getState());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testDamagedFilesAreRejected() throws IOException {
+        Path file = Files.createTempFile("conquest", ".replay");
+        try {
+            playRecordedGame(file, 4, new ArrayList<>(), new ArrayList<>());
+            byte[] saved = Files.readAllBytes(file);
+            // The team count follows magic, version, seed, map size, risk and keyframe interval.
+            int teamsAt = 4 + 4 + 8 + 4 + 4 + 8 + 4;
+            int numTeams = ByteBuffer.wrap(saved).getInt(teamsAt);
+            int keyframeLengthAt = teamsAt + 4 + numTeams + 1;
+
+            for (int teams : new int[]{100_000, -1, 0}) {
+                byte[] damaged = saved.clone();
+                ByteBuffer.wrap(damaged).putInt(teamsAt, teams);
+                Files.write(file, damaged);
+                assertThrows(IOException.class, () -> Replayer.open(file), "team count " + teams);
+            }
+
+            byte[] unknownControl = saved.clone();
+            unknownControl[teamsAt + 4] = 99;
+            Files.write(file, unknownControl);
+            assertThrows(IOException.class, () -> Replayer.open(file));
+
+            // A keyframe that does not move past its own header.
+            byte[] rewinding = saved.clone();
+            ByteBuffer.wrap(rewinding).putInt(keyframeLengthAt, -5);
+            Files.write(file, rewinding);
+            assertThrows(IOException.class, () -> Replayer.open(file));
+
+            Files.write(file, saved);
+            Replayer.open(file).close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRejectedEditsAreNotRecorded() throws IOException {
+        Path file = Files.createTempFile("conquest", ".replay");
+        try {
+            TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+            GameEngine engine = GameEngine.withVoronoiMap(200, 150, 20, controls, 0.5, 1L);
+            engine.startRecording(file, 4);
+            assertThrows(IllegalArgumentException.class, () -> engine.removeRegion(20));
+            assertThrows(IllegalArgumentException.class, () -> engine.removeRegion(-1));
+            assertThrows(IllegalArgumentException.class, () -> engine.addRegion(10, 10, 2, 20));
+            assertThrows(IllegalArgumentException.class, () -> engine.moveRegion(20, 10, 10));
+            assertEquals(20, engine.getNumRegions());
+            engine.removeRegion(3);
+            engine.endTurn();
+            engine.stopRecording();
+            try (Replayer replayer = Replayer.open(file)) {
+                assertEquals(engine.getState(), replayer.replayAll().getState());
+                assertArrayEquals(engine.getSites(), replayer.getSites());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Plays seeded AI moves through a hot-seat engine, with a few bastions and
+    // map edits, recording to file. positions.get(n) is the state after turn n.
+    private static GameEngine playRecordedGame(Path file, int keyframeInterval,
+                                               List<GameState> positions, List<Point[]> siteHistory) throws IOException {
+        int width = 200, height = 150;
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        GameEngine engine = GameEngine.withVoronoiMap(width, height, 30, controls, 0.5, 1L);
+        engine.startRecording(file, keyframeInterval);
+        positions.add(engine.getState().copy());
+        siteHistory.add(engine.getSites().clone());
+
+        Random rand = new Random(2);
+        for (int turn = 0; turn < 60 && !engine.isGameOver(); turn++) {
+            Move move = rand.nextBoolean() ? mods.SmartAI.chooseMove(engine) : mods.DumbAI.chooseMove(engine);
+            if (move != null) engine.apply(move);
+            if (turn % 9 == 4) engine.makeBastion(rand.nextInt(engine.getNumRegions()));
+            if (turn % 13 == 6) engine.addRegion(rand.nextInt(width), rand.nextInt(height), rand.nextInt(3), 20);
+            if (turn % 17 == 8) engine.moveRegion(rand.nextInt(engine.getNumRegions()), rand.nextInt(width), rand.nextInt(height));
+            if (turn % 19 == 10) engine.removeRegion(rand.nextInt(engine.getNumRegions()));
+            engine.endTurn();
+            positions.add(engine.getState().copy());
+            siteHistory.add(engine.getSites().clone());
+        }
+        // A trailing action without an end of turn still replays.
+        Move last = mods.DumbAI.chooseMove(engine);
+        if (last != null) engine.apply(last);
+        engine.stopRecording();
+        return engine;
+    }
+}
@@ -0,0 +1,170 @@
+// File: tests/SaveGameTest.java
+package tests;
+
+import main.GameEngine;
+import main.Move;
+import main.RegionBoundaries;
+import main.RegionGraph;
+import main.RegionRaster;
+import main.RegionSpans;
+import main.SaveGame;
+import main.TeamControl;
+import mods.SmartAI;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SaveGameTest {
+    @Test
+    public void testSaveAndLoadRoundTrip() throws IOException {
+        // Over 256 regions, so the raster uses two bytes per pixel.
+        for (int numRegions : new int[]{40, 300}) {
+            GameEngine engine = newEngine(numRegions);
+            for (int turn = 0; turn < 20; turn++) {
+                Move move = SmartAI.chooseMove(engine);
+                if (move != null) engine.apply(move);
+                engine.makeBastion(turn * 7 % numRegions);
+                engine.endTurn();
+            }
+            Path file = Files.createTempFile("conquest", ".save");
+            try {
+                engine.save(file);
+                SaveGame save = SaveGame.load(file);
+                assertEquals(engine.getState(), save.getState());
+                assertArrayEquals(engine.getSites(), save.getSites());
+                assertEquals(1L, save.getSeed());
+                assertGraphsEqual(engine.getRegionGraph(), save.getRegionGraph());
+                assertRastersEqual(engine.getRegionAssignment(), save.getRaster());
+                for (int r = 0; r < numRegions; r++) {
+                    RegionBoundaries outlines = engine.getRegionBoundaries();
+                    assertEquals(outlines.getRunCount(r), save.getRegionBoundaries().getRunCount(r));
+                    assertArrayEquals(Arrays.copyOf(outlines.getRuns(r), 3 * outlines.getRunCount(r)),
+                            Arrays.copyOf(save.getRegionBoundaries().getRuns(r), 3 * outlines.getRunCount(r)));
+                    RegionSpans spans = engine.getRegionSpans();
+                    assertEquals(spans.getSpanCount(r), save.getRegionSpans().getSpanCount(r));
+                    assertArrayEquals(Arrays.copyOf(spans.getSpans(r), 3 * spans.getSpanCount(r)),
+                            Arrays.copyOf(save.getRegionSpans().getSpans(r), 3 * spans.getSpanCount(r)));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadedGameKeepsPlayingWithoutTouchingTheFile() throws IOException {
+        GameEngine engine = newEngine(300);
+        Path file = Files.createTempFile("conquest", ".save");
+        try {
+            engine.save(file);
+            byte[] saved = Files.readAllBytes(file);
+            GameEngine loaded = GameEngine.load(file);
+            assertEquals(engine.getState(), loaded.getState());
+
+            // The same edits and moves on both engines give the same map and state.
+            for (GameEngine e : new GameEngine[]{engine, loaded}) {
+                e.moveRegion(5, 10, 10);
+                e.addRegion(150, 100, 1, 30);
+                e.removeRegion(17);
+                e.apply(Move.move(3, e.getRegionGraph().getNeighbors()[e.getRegionGraph().getNeighborStart(3)]));
+                e.endTurn();
+            }
+            assertEquals(engine.getState(), loaded.getState());
+            assertGraphsEqual(engine.getRegionGraph(), loaded.getRegionGraph());
+            assertRastersEqual(engine.getRegionAssignment(), loaded.getRegionAssignment());
+            assertArrayEquals(saved, Files.readAllBytes(file), "The raster is mapped copy-on-write");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReadOnlyFileLoads() throws IOException {
+        GameEngine engine = newEngine(40);
+        Path file = Files.createTempFile("conquest", ".save");
+        try {
+            engine.save(file);
+            assertTrue(file.toFile().setWritable(false));
+            SaveGame save = SaveGame.load(file);
+            assertEquals(engine.getState(), save.getState());
+            assertRastersEqual(engine.getRegionAssignment(), save.getRaster());
+            // The raster is still editable in memory.
+            save.getRaster().set(0, 0, 1);
+            assertEquals(1, save.getRaster().at(0, 0));
+        } finally {
+            file.toFile().setWritable(true);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testDamagedFilesAreRejected() throws IOException {
+        GameEngine engine = newEngine(40);
+        Path file = Files.createTempFile("conquest", ".save");
+        try {
+            engine.save(file);
+            byte[] saved = Files.readAllBytes(file);
+
+            // The graph neighbour section's offset, the sixth after the fixed fields.
+            byte[] moved = saved.clone();
+            ByteBuffer.wrap(moved).order(ByteOrder.LITTLE_ENDIAN).putLong(64 + 5 * 8, Long.MAX_VALUE - 8);
+            Files.write(file, moved);
+            assertThrows(IOException.class, () -> SaveGame.load(file));
+
+            // A region count that the sections were not laid out for.
+            byte[] resized = saved.clone();
+            ByteBuffer.wrap(resized).order(ByteOrder.LITTLE_ENDIAN).putInt(16, 1 << 30);
+            Files.write(file, resized);
+            assertThrows(IOException.class, () -> SaveGame.load(file));
+
+            // More teams than a region's team byte can name.
+            byte[] crowded = saved.clone();
+            ByteBuffer.wrap(crowded).order(ByteOrder.LITTLE_ENDIAN).putInt(20, 200);
+            Files.write(file, crowded);
+            assertThrows(IOException.class, () -> SaveGame.load(file));
+
+            Files.write(file, Arrays.copyOf(saved, saved.length - 1));
+            assertThrows(IOException.class, () -> SaveGame.load(file));
+
+            Files.write(file, saved);
+            assertEquals(engine.getState(), SaveGame.load(file).getState());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static GameEngine newEngine(int numRegions) {
+        TeamControl[] controls = {TeamControl.HOTSEAT, TeamControl.HOTSEAT, TeamControl.HOTSEAT};
+        return GameEngine.withVoronoiMap(240, 180, numRegions, controls, 0.5, 1L);
+    }
+
+    private static void assertGraphsEqual(RegionGraph expected, RegionGraph actual) {
+        assertEquals(expected.getNumRegions(), actual.getNumRegions());
+        for (int r = 0; r < expected.getNumRegions(); r++) {
+            assertEquals(expected.getNeighborStart(r), actual.getNeighborStart(r));
+            assertEquals(expected.getNeighborEnd(r), actual.getNeighborEnd(r));
+            for (int k = expected.getNeighborStart(r); k < expected.getNeighborEnd(r); k++) {
+                assertEquals(expected.getNeighbors()[k], actual.getNeighbors()[k]);
+            }
+        }
+    }
+
+    private static void assertRastersEqual(RegionRaster expected, RegionRaster actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int[] a = new int[expected.getWidth()], b = new int[expected.getWidth()];
+        for (int y = 0; y < expected.getHeight(); y++) {
+            assertArrayEquals(expected.getRow(y, a), actual.getRow(y, b), "Row " + y);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+// File: tests/SiteIndexTest.java
+package tests;
+
+import main.SiteIndex;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SiteIndexTest {
+    @Test
+    public void testQueriesMatchLinearScan() {
+        Random rand = new Random(9);
+        for (int round = 0; round < 20; round++) {
+            int count = 1 + rand.nextInt(300);
+            double[] xs = new double[count], ys = new double[count];
+            for (int i = 0; i < count; i++) {
+                // Integer coordinates on a small map give plenty of exact ties.
+                xs[i] = rand.nextInt(60);
+                ys[i] = rand.nextInt(40);
+            }
+            SiteIndex index = new SiteIndex(60, 40);
+            index.rebuild(xs, ys, count);
+            assertQueriesMatch(index, xs, ys, rand);
+        }
+    }
+
+    @Test
+    public void testInPlaceUpdatesMatchRebuild() {
+        Random rand = new Random(4);
+        int count = 500;
+        double[] xs = new double[count], ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = rand.nextDouble() * 300;
+            ys[i] = rand.nextDouble() * 200;
+        }
+        SiteIndex index = new SiteIndex(300, 200);
+        index.rebuild(xs, ys, count);
+        for (int step = 0; step < 2000; step++) {
+            int i = rand.nextInt(count);
+            // Some moves leave the bounds; those sites must still be found.
+            xs[i] = rand.nextDouble() * 340 - 20;
+            ys[i] = rand.nextDouble() * 240 - 20;
+            index.update(i, xs[i], ys[i]);
+        }
+        assertQueriesMatch(index, xs, ys, rand);
+    }
+
+    // Copies of main.SiteIndex in builds that cannot depend on this one.
+    private static final String[] COPIES = {
+            "../VoronoiCivilization/SiteIndex.java",
+            "../../NewRealmProject/src/main/java/newrealm/spatial/SiteIndex.java",
+            "../../voronoi_conquest.java",
+    };
+
+    @Test
+    public void testCopiesMatchThisOne() throws IOException {
+        Map<String, String> reference = members(Paths.get("main/SiteIndex.java"));
+        for (String copy : COPIES) {
+            Map<String, String> members = members(Paths.get(copy));
+            assertTrue(members.containsKey("public int nearest(double x, double y)"), copy);
+            for (Map.Entry<String, String> member : members.entrySet()) {
+                // Each copy takes its sites in its own point type.
+                if (member.getKey().contains("Point")) continue;
+                assertEquals(reference.get(member.getKey()), member.getValue(), copy + ": " + member.getKey());
+            }
+        }
+    }
+
+    // The fields and methods of the SiteIndex class in file, comments dropped,
+    // keyed by their declaration.
+    private static Map<String, String> members(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        int line = 0;
+        while (!lines.get(line).matches("(public )?class SiteIndex \\{")) line++;
+        Map<String, String> members = new LinkedHashMap<>();
+        StringBuilder member = new StringBuilder();
+        int depth = 1;
+        for (line++; depth > 0; line++) {
+            String code = lines.get(line).trim();
+            if (code.isEmpty() || code.startsWith("//") || code.startsWith("/*") || code.startsWith("*")) continue;
+            for (char c : code.toCharArray()) {
+                if (c == '{') depth++;
+                if (c == '}') depth--;
+            }
+            if (depth == 0) break;
+            member.append(code).append('\n');
+            if (depth == 1) {
+                String text = member.toString();
+                members.put(text.split("[{=;]")[0].trim(), text);
+                member.setLength(0);
+            }
+        }
+        return members;
+    }
+
+    private static void assertQueriesMatch(SiteIndex index, double[] xs, double[] ys, Random rand) {
+        for (int q = 0; q < 200; q++) {
+            double x = rand.nextInt(80) - 10, y = rand.nextInt(60) - 10;
+            int k = 1 + rand.nextInt(8);
+            int[] expected = linearNearest(xs, ys, x, y, k);
+            assertEquals(expected[0], index.nearest(x, y));
+            assertArrayEquals(expected, index.nearest(x, y, k));
+
+            double radius = rand.nextDouble() * 25;
+            List<Integer> inside = new ArrayList<>();
+            for (int i = 0; i < xs.length; i++) {
+                if (Math.hypot(xs[i] - x, ys[i] - y) < radius) inside.add(i);
+            }
+            assertArrayEquals(inside.stream().mapToInt(Integer::intValue).toArray(), index.withinRadius(x, y, radius));
+        }
+    }
+
+    private static int[] linearNearest(double[] xs, double[] ys, double x, double y, int k) {
+        Integer[] order = new Integer[xs.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int byDistance = Double.compare(distanceSq(xs, ys, a, x, y), distanceSq(xs, ys, b, x, y));
+            return byDistance != 0 ? byDistance : Integer.compare(a, b);
+        });
+        int[] result = new int[Math.min(k, order.length)];
+        for (int i = 0; i < result.length; i++) result[i] = order[i];
+        return result;
+    }
+
+    private static double distanceSq(double[] xs, double[] ys, int i, double x, double y) {
+        double dx = xs[i] - x, dy = ys[i] - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,29 @@
+// File: tests/TournamentTest.java
+package tests;
+
+import main.TeamControl;
+import main.Tournament;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TournamentTest {
+    @Test
+    public void testResultsDependOnSeedNotThreads() {
+        TeamControl[] controls = {TeamControl.SMART, TeamControl.DUMB};
+        Tournament tournament = new Tournament(24, 30, controls, 0.5, 160, 120, 400, 3L);
+        Tournament.Report serial = tournament.run(1);
+        Tournament.Report parallel = tournament.run(4);
+
+        assertEquals(24, serial.getGames());
+        assertEquals(24, serial.getWins(0) + serial.getWins(1) + serial.getDraws());
+        for (int team = 0; team < controls.length; team++) {
+            assertEquals(serial.getWins(team), parallel.getWins(team), "wins of team " + team);
+        }
+        assertEquals(serial.getDraws(), parallel.getDraws());
+        assertEquals(serial.getTotalTurns(), parallel.getTotalTurns());
+        assertEquals(serial.getGameLength(0.5), parallel.getGameLength(0.5));
+        assertTrue(serial.getTurnNanos(0.5) <= serial.getTurnNanos(0.99));
+    }
+}
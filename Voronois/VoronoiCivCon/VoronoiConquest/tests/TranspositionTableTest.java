@@ -0,0 +1,100 @@
+// File: tests/TranspositionTableTest.java
+package tests;
+
+import mods.TranspositionTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TranspositionTableTest {
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        assertEquals(4096, table.getCapacity());
+        assertEquals(TranspositionTable.MISS, table.probe(42));
+
+        table.store(42, 5, TranspositionTable.LOWER, -0.25f, 17);
+        long entry = table.probe(42);
+        assertEquals(5, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-0.25, TranspositionTable.value(entry), 0);
+        assertEquals(17, TranspositionTable.move(entry));
+
+        // A pass, no move and depth 0 all survive packing.
+        table.store(43, 0, TranspositionTable.EXACT, 0f, -1);
+        assertEquals(-1, TranspositionTable.move(table.probe(43)));
+        table.store(43, 0, TranspositionTable.EXACT, 0f, -2);
+        assertEquals(-2, TranspositionTable.move(table.probe(43)));
+        assertEquals(0, TranspositionTable.depth(table.probe(43)));
+
+        assertEquals(5, table.getProbes());
+        assertEquals(4, table.getHits());
+        assertEquals(0.8, table.getHitRate(), 1e-9);
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(42));
+    }
+
+    @Test
+    public void testFullBucketReplacesTheShallowestEntry() {
+        // One bucket of four entries.
+        TranspositionTable table = new TranspositionTable(64);
+        assertEquals(4, table.getCapacity());
+        for (int i = 0; i < 4; i++) {
+            table.store(100 + i, 10 - i, TranspositionTable.EXACT, i, i);
+        }
+        table.store(200, 8, TranspositionTable.EXACT, 9, 9);
+        assertEquals(TranspositionTable.MISS, table.probe(103), "Depth 7 was the shallowest");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(10 - i, TranspositionTable.depth(table.probe(100 + i)));
+        }
+        assertEquals(8, TranspositionTable.depth(table.probe(200)));
+
+        // The same key is overwritten in place, even by a shallower result.
+        table.store(100, 1, TranspositionTable.UPPER, 0.5f, 3);
+        assertEquals(1, TranspositionTable.depth(table.probe(100)));
+        assertEquals(10 - 1, TranspositionTable.depth(table.probe(101)));
+    }
+
+    @Test
+    public void testConcurrentWritersNeverProduceMixedEntries() throws InterruptedException {
+        // Small, so threads keep overwriting each other's slots.
+        TranspositionTable table = new TranspositionTable(4096);
+        AtomicInteger bad = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom rand = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = rand.nextLong(1024) * 0x9E3779B97F4A7C15L;
+                    if (rand.nextBoolean()) {
+                        // Every field is a function of the key, so a hit can be checked.
+                        int tag = (int) (key >>> 40) & 0xFFFF;
+                        table.store(key, tag & 0x7F, tag % 3, tag, tag);
+                    } else {
+                        long entry = table.probe(key);
+                        if (entry == TranspositionTable.MISS) continue;
+                        int tag = (int) (key >>> 40) & 0xFFFF;
+                        if (TranspositionTable.move(entry) != tag || TranspositionTable.value(entry) != tag
+                                || TranspositionTable.depth(entry) != (tag & 0x7F)) {
+                            bad.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, bad.get());
+        assertTrue(table.getHits() > 0);
+    }
+}
@@ -4,6 +4,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -120,7 +121,7 @@ class VoronoiSquares extends JPanel {
     private int[] regionTeam;         // team affiliation for each region
     private boolean[] isBastion;      // if true, multiplier = 1.5
     // Voronoi diagram.
-    private int[][] regionAssignment;
+    private RegionRaster regionAssignment;
     private boolean[][] borders;
     private BufferedImage voronoiImage;
     private boolean[][] adjacent;
@@ -162,7 +163,7 @@ class VoronoiSquares extends JPanel {
         regionTeam = new int[numSites];
         isBastion = new boolean[numSites];
         
-        regionAssignment = new int[mapWidth][mapHeight];
+        regionAssignment = new RegionRaster(mapWidth, mapHeight, numSites);
         borders = new boolean[mapWidth][mapHeight];
         adjacent = new boolean[numSites][numSites];
         
@@ -181,33 +182,24 @@ class VoronoiSquares extends JPanel {
         
         // Build the Voronoi diagram.
         voronoiImage = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_RGB);
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                int closestIndex = 0;
-                int minDistSq = Integer.MAX_VALUE;
-                for (int i = 0; i < numSites; i++) {
-                    int dx = x - sites[i].x;
-                    int dy = y - sites[i].y;
-                    int distSq = dx * dx + dy * dy;
-                    if (distSq < minDistSq) {
-                        minDistSq = distSq;
-                        closestIndex = i;
-                    }
-                }
-                regionAssignment[x][y] = closestIndex;
+        SiteIndex siteIndex = new SiteIndex(sites, mapWidth, mapHeight);
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int closestIndex = siteIndex.nearest(x, y);
+                regionAssignment.set(x, y, closestIndex);
                 voronoiImage.setRGB(x, y, siteColors[closestIndex].getRGB());
             }
         }
         
         // Compute borders (a pixel is a border if any 4-neighbor is in a different region).
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                int cur = regionAssignment[x][y];
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int cur = regionAssignment.at(x, y);
                 boolean isBorder = false;
-                if (x > 0 && regionAssignment[x-1][y] != cur) isBorder = true;
-                else if (x < mapWidth-1 && regionAssignment[x+1][y] != cur) isBorder = true;
-                else if (y > 0 && regionAssignment[x][y-1] != cur) isBorder = true;
-                else if (y < mapHeight-1 && regionAssignment[x][y+1] != cur) isBorder = true;
+                if (x > 0 && regionAssignment.at(x-1, y) != cur) isBorder = true;
+                else if (x < mapWidth-1 && regionAssignment.at(x+1, y) != cur) isBorder = true;
+                else if (y > 0 && regionAssignment.at(x, y-1) != cur) isBorder = true;
+                else if (y < mapHeight-1 && regionAssignment.at(x, y+1) != cur) isBorder = true;
                 borders[x][y] = isBorder;
             }
         }
@@ -223,7 +215,7 @@ class VoronoiSquares extends JPanel {
                     int mx = e.getX();
                     int my = e.getY();
                     if (mx < 0 || mx >= mapWidth || my < 0 || my >= mapHeight) return;
-                    int clickedRegion = regionAssignment[mx][my];
+                    int clickedRegion = regionAssignment.at(mx, my);
                     // Reinforce only if the region belongs to the current team and has at least 10 troops.
                     if (regionTeam[clickedRegion] == currentTeam && troops[clickedRegion] >= 10) {
                         executeReinforce(clickedRegion, clickedRegion);
@@ -236,7 +228,7 @@ class VoronoiSquares extends JPanel {
                     int mx = e.getX();
                     int my = e.getY();
                     if (mx < 0 || mx >= mapWidth || my < 0 || my >= mapHeight) return;
-                    int clickedRegion = regionAssignment[mx][my];
+                    int clickedRegion = regionAssignment.at(mx, my);
                     if (!isBastion[clickedRegion]) {
                         isBastion[clickedRegion] = true;
                         combatPower[clickedRegion] = troops[clickedRegion] * 1.5;
@@ -250,7 +242,7 @@ class VoronoiSquares extends JPanel {
                 int mx = e.getX();
                 int my = e.getY();
                 if (mx < 0 || mx >= mapWidth || my < 0 || my >= mapHeight) return;
-                int clickedRegion = regionAssignment[mx][my];
+                int clickedRegion = regionAssignment.at(mx, my);
                 if (selectedSource == -1) {
                     if (regionTeam[clickedRegion] != currentTeam) {
                         System.out.println("Not your region. Current turn: " + teamNames[currentTeam]);
@@ -299,7 +291,7 @@ class VoronoiSquares extends JPanel {
                 mouseX = e.getX();
                 mouseY = e.getY();
                 if (mouseX >= 0 && mouseX < mapWidth && mouseY >= 0 && mouseY < mapHeight) {
-                    highlightedSite = regionAssignment[mouseX][mouseY];
+                    highlightedSite = regionAssignment.at(mouseX, mouseY);
                 } else {
                     highlightedSite = -1;
                 }
@@ -375,18 +367,18 @@ class VoronoiSquares extends JPanel {
     }
     
     private void computeAdjacency() {
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                int cur = regionAssignment[x][y];
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int cur = regionAssignment.at(x, y);
                 if (x < mapWidth - 1) {
-                    int neighbor = regionAssignment[x+1][y];
+                    int neighbor = regionAssignment.at(x+1, y);
                     if (cur != neighbor) {
                         adjacent[cur][neighbor] = true;
                         adjacent[neighbor][cur] = true;
                     }
                 }
                 if (y < mapHeight - 1) {
-                    int neighbor = regionAssignment[x][y+1];
+                    int neighbor = regionAssignment.at(x, y+1);
                     if (cur != neighbor) {
                         adjacent[cur][neighbor] = true;
                         adjacent[neighbor][cur] = true;
@@ -397,11 +389,17 @@ class VoronoiSquares extends JPanel {
     }
     
     private void updateVoronoiImage() {
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                int region = regionAssignment[x][y];
-                voronoiImage.setRGB(x, y, siteColors[region].getRGB());
+        int[] regionRGB = new int[numSites];
+        for (int i = 0; i < numSites; i++) {
+            regionRGB[i] = siteColors[i].getRGB();
+        }
+        int[] row = new int[mapWidth];
+        for (int y = 0; y < mapHeight; y++) {
+            regionAssignment.getRow(y, row);
+            for (int x = 0; x < mapWidth; x++) {
+                row[x] = regionRGB[row[x]];
             }
+            voronoiImage.setRGB(0, y, mapWidth, 1, row, 0, mapWidth);
         }
     }
     
@@ -559,9 +557,9 @@ class VoronoiSquares extends JPanel {
         if (selectedSource != -1) {
             Graphics2D g2 = (Graphics2D) g.create();
             g2.setColor(new Color(0, 0, 0, 100));
-            for (int x = 0; x < mapWidth; x++) {
-                for (int y = 0; y < mapHeight; y++) {
-                    if (regionAssignment[x][y] == selectedSource) {
+            for (int y = 0; y < mapHeight; y++) {
+                for (int x = 0; x < mapWidth; x++) {
+                    if (regionAssignment.at(x, y) == selectedSource) {
                         g2.fillRect(x, y, 1, 1);
                     }
                 }
@@ -586,4 +584,194 @@ class VoronoiSquares extends JPanel {
         g.setColor(Color.BLACK);
         g.drawString("Current Turn: " + teamNames[currentTeam], 10, 20);
     }
-}
\ No newline at end of file
+}
+
+// Region id per pixel, stored row-major in one array whose cell width (byte,
+// short or int) is chosen from the region count.
+class RegionRaster {
+    private final int width, height;
+    private byte[] bytes;
+    private short[] shorts;
+    private int[] ints;
+
+    public RegionRaster(int width, int height, int numRegions) {
+        this.width = width;
+        this.height = height;
+        int size = Math.multiplyExact(width, height);
+        if (numRegions <= 1 << 8) {
+            bytes = new byte[size];
+        } else if (numRegions <= 1 << 16) {
+            shorts = new short[size];
+        } else {
+            ints = new int[size];
+        }
+    }
+
+    public int at(int x, int y) {
+        int i = y * width + x;
+        if (bytes != null) return bytes[i] & 0xFF;
+        if (shorts != null) return shorts[i] & 0xFFFF;
+        return ints[i];
+    }
+
+    public void set(int x, int y, int region) {
+        int i = y * width + x;
+        if (bytes != null) bytes[i] = (byte) region;
+        else if (shorts != null) shorts[i] = (short) region;
+        else ints[i] = region;
+    }
+
+    public int[] getRow(int y, int[] dst) {
+        for (int x = 0; x < width; x++) {
+            dst[x] = at(x, y);
+        }
+        return dst;
+    }
+}
+
+// Uniform-grid index over the sites for nearest-site queries. Buckets hold about
+// two sites each; ties go to the lowest index, like a linear scan with a strict <.
+// The part of VoronoiConquest's main.SiteIndex this map needs; SiteIndexTest
+// there checks that the copies match it.
+class SiteIndex {
+    private static final int SITES_PER_BUCKET = 2;
+
+    private final double width, height;
+    private double[] xs = new double[0], ys = new double[0];
+    private int size;
+
+    private double bucketSize;
+    private int cols, rows;
+    private int[][] buckets;
+    private int[] bucketCounts;
+    // Bucket and slot of each site, so a site can be moved without a search.
+    private int[] siteBucket, siteSlot;
+
+    public SiteIndex(double width, double height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        rebuild(new double[0], new double[0], 0);
+    }
+
+    public SiteIndex(Point[] sites, double width, double height) {
+        this(width, height);
+        rebuild(sites);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void rebuild(Point[] sites) {
+        double[] x = new double[sites.length], y = new double[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            x[i] = sites[i].x;
+            y[i] = sites[i].y;
+        }
+        rebuild(x, y, sites.length);
+    }
+
+    /** Replaces all sites with the first {@code count} coordinates; the arrays are copied. */
+    public void rebuild(double[] x, double[] y, int count) {
+        size = count;
+        xs = Arrays.copyOf(x, count);
+        ys = Arrays.copyOf(y, count);
+        bucketSize = Math.max(1e-9, Math.sqrt(width * height * SITES_PER_BUCKET / Math.max(1, count)));
+        cols = Math.max(1, (int) Math.ceil(width / bucketSize));
+        rows = Math.max(1, (int) Math.ceil(height / bucketSize));
+        bucketCounts = new int[cols * rows];
+        siteBucket = new int[count];
+        siteSlot = new int[count];
+        for (int i = 0; i < count; i++) {
+            siteBucket[i] = bucketOf(xs[i], ys[i]);
+            bucketCounts[siteBucket[i]]++;
+        }
+        buckets = new int[cols * rows][];
+        for (int b = 0; b < buckets.length; b++) {
+            buckets[b] = new int[Math.max(SITES_PER_BUCKET, bucketCounts[b])];
+        }
+        Arrays.fill(bucketCounts, 0);
+        for (int i = 0; i < count; i++) {
+            addToBucket(i, siteBucket[i]);
+        }
+    }
+
+    /** Moves site {@code i} to (x, y) in place; cheap enough to call for every site per iteration. */
+    public void update(int i, double x, double y) {
+        xs[i] = x;
+        ys[i] = y;
+        int bucket = bucketOf(x, y);
+        if (bucket == siteBucket[i]) return;
+        int old = siteBucket[i];
+        int slot = siteSlot[i];
+        int last = buckets[old][--bucketCounts[old]];
+        buckets[old][slot] = last;
+        siteSlot[last] = slot;
+        addToBucket(i, bucket);
+    }
+
+    private void addToBucket(int site, int bucket) {
+        int count = bucketCounts[bucket];
+        if (count == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], count * 2);
+        }
+        buckets[bucket][count] = site;
+        bucketCounts[bucket] = count + 1;
+        siteBucket[site] = bucket;
+        siteSlot[site] = count;
+    }
+
+    private int column(double x) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor(x / bucketSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / bucketSize)));
+    }
+
+    private int bucketOf(double x, double y) {
+        return row(y) * cols + column(x);
+    }
+
+    /** Returns the index of the site nearest to (x, y), or -1 if there are none. */
+    public int nearest(double x, double y) {
+        if (size == 0) return -1;
+        int cx = column(x), cy = row(y);
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ; ring++) {
+            if (ring > 0 && ringLowerBound(ring) > bestDist) return best;
+            if (ring > cols && ring > rows) return best;
+            for (int gy = cy - ring; gy <= cy + ring; gy++) {
+                if (gy < 0 || gy >= rows) continue;
+                boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                for (int gx = cx - ring; gx <= cx + ring; gx += edgeRow ? 1 : 2 * ring) {
+                    if (gx < 0 || gx >= cols) continue;
+                    int bucket = gy * cols + gx;
+                    int[] members = buckets[bucket];
+                    for (int k = bucketCounts[bucket] - 1; k >= 0; k--) {
+                        int i = members[k];
+                        double d = distanceSq(i, x, y);
+                        if (d < bestDist || (d == bestDist && i < best)) {
+                            bestDist = d;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Squared distance from the query to anything in a ring of buckets, which
+    // is at least (ring - 1) buckets away from the query's own bucket.
+    private double ringLowerBound(int ring) {
+        double d = (ring - 1) * bucketSize;
+        return d <= 0 ? 0 : d * d;
+    }
+
+    private double distanceSq(int i, double x, double y) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        return dx * dx + dy * dy;
+    }
+}